@@ -0,0 +1,72 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.commands.model.RawDnsEntry;
+import com.foilen.clouds.manager.services.model.ConflictResolution;
+import com.foilen.clouds.manager.services.model.DnsConfig;
+import com.foilen.clouds.manager.services.model.DnsEntryConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generates zones that look like ours: mostly DKIM-like TXT entries with some A, CNAME and MX entries.
+ */
+public class DnsBenchmarkData {
+
+    public static List<RawDnsEntry> currentEntries(String domainName, int count) {
+        List<RawDnsEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            var entry = new RawDnsEntry().set_id(String.valueOf(i)).setTtl(3600);
+            switch (i % 10) {
+                case 0:
+                    entry.setName("host" + i + "." + domainName).setType("A").setDetails("10.0." + (i / 256 % 256) + "." + (i % 256));
+                    break;
+                case 1:
+                    entry.setName("alias" + i + "." + domainName).setType("CNAME").setDetails("host" + (i - 1) + "." + domainName);
+                    break;
+                case 2:
+                    entry.setName("mail" + (i % 100) + "." + domainName).setType("MX").setDetails("mx" + i + "." + domainName).setPriority(i % 50);
+                    break;
+                default:
+                    entry.setName("selector" + (i % 1000) + "._domainkey." + domainName).setType("TXT").setDetails("v=DKIM1; k=rsa; p=MIIBIjANBgkqhkiG9w0BAQEFAAOCAQ8AMIIBCgKCAQEA" + i);
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Keep the current entries, overwrite 10% of the names and append 10% more entries.
+     */
+    public static DnsConfig desiredConfig(String domainName, List<RawDnsEntry> currentEntries) {
+        List<RawDnsEntry> overwrite = new ArrayList<>();
+        List<RawDnsEntry> append = new ArrayList<>();
+        for (int i = 0; i < currentEntries.size(); i += 10) {
+            var current = currentEntries.get(i);
+            overwrite.add(new RawDnsEntry().setName(current.getName()).setType(current.getType()).setDetails("10.1.0." + (i % 256)).setTtl(300));
+            append.add(new RawDnsEntry().setName("new" + i + "." + domainName).setType("TXT").setDetails("verification=" + i));
+        }
+
+        return new DnsConfig()
+                .setStartEmpty(false)
+                .setConfigs(Arrays.asList(
+                        new DnsEntryConfig()
+                                .setConflictResolution(ConflictResolution.OVERWRITE)
+                                .setRawDnsEntries(overwrite),
+                        new DnsEntryConfig()
+                                .setConflictResolution(ConflictResolution.APPEND)
+                                .setRawDnsEntries(append)
+                ));
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.commands.model.RawDnsEntry;
+import com.foilen.clouds.manager.services.model.DnsRecord;
+import com.foilen.smalltools.listscomparator.ListComparatorHandler;
+import com.foilen.smalltools.listscomparator.ListsComparator;
+import com.foilen.smalltools.tools.StringTools;
+import com.foilen.smalltools.tuple.Tuple2;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Grouping the changes of a 50k records zone with 5k changes: filtering the desired entries for each changed name/type (the previous way) against
+ * {@link DnsChangeSet}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DnsChangeSetBenchmark {
+
+    private static final String DOMAIN_NAME = "example.com";
+
+    @Param({"50000"})
+    public int entries;
+
+    @Param({"5000"})
+    public int changes;
+
+    private List<RawDnsEntry> currentEntries;
+    private List<RawDnsEntry> desiredEntries;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        currentEntries = DnsBenchmarkData.currentEntries(DOMAIN_NAME, entries);
+        Collections.sort(currentEntries);
+
+        // Half the changes are updates and half are additions
+        desiredEntries = DnsRecord.toRawDnsEntries(DnsRecord.fromAll(currentEntries));
+        var step = entries / (changes / 2);
+        for (int i = 0; i < changes / 2; ++i) {
+            desiredEntries.get(i * step).setDetails("changed" + i);
+            desiredEntries.add(new RawDnsEntry().setName("new" + i + "." + DOMAIN_NAME).setType("TXT").setDetails("verification=" + i));
+        }
+        Collections.sort(desiredEntries);
+    }
+
+    @Benchmark
+    public Map<Tuple2<String, String>, List<RawDnsEntry>> filterPerNameType() {
+        Set<Tuple2<String, String>> nameTypesToUpdate = new HashSet<>();
+        ListsComparator.compareStreams(
+                currentEntries.stream(),
+                desiredEntries.stream(),
+                new ListComparatorHandler<>() {
+                    @Override
+                    public void both(RawDnsEntry current, RawDnsEntry desired) {
+                    }
+
+                    @Override
+                    public void leftOnly(RawDnsEntry current) {
+                        nameTypesToUpdate.add(new Tuple2<>(current.getName(), current.getType()));
+                    }
+
+                    @Override
+                    public void rightOnly(RawDnsEntry desired) {
+                        nameTypesToUpdate.add(new Tuple2<>(desired.getName(), desired.getType()));
+                    }
+                }
+        );
+
+        Map<Tuple2<String, String>, List<RawDnsEntry>> desiredEntriesByNameType = new HashMap<>();
+        nameTypesToUpdate.forEach(nameType -> desiredEntriesByNameType.put(nameType, desiredEntries.stream()
+                .filter(it -> StringTools.safeEquals(it.getName(), nameType.getA()))
+                .filter(it -> StringTools.safeEquals(it.getType(), nameType.getB()))
+                .collect(Collectors.toList())));
+        return desiredEntriesByNameType;
+    }
+
+    @Benchmark
+    public Map<Tuple2<String, String>, List<RawDnsEntry>> changeSet() {
+        return DnsChangeSet.compute(DnsRecord.fromAll(currentEntries), DnsRecord.fromAll(desiredEntries)).getDesiredEntriesByNameType();
+    }
+
+}
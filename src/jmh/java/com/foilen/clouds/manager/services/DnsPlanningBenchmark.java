@@ -0,0 +1,103 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.commands.model.RawDnsEntry;
+import com.foilen.clouds.manager.services.model.DnsConfig;
+import com.foilen.smalltools.listscomparator.ListComparatorHandler;
+import com.foilen.smalltools.listscomparator.ListsComparator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CPU bound parts of a DNS zone update: planning the desired entries, sorting them, diffing them with the current ones and matching the ids.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DnsPlanningBenchmark {
+
+    private static final String DOMAIN_NAME = "example.com";
+
+    @Param({"1000", "10000", "100000"})
+    public int entries;
+
+    private CloudDigitalOceanService cloudDigitalOceanService;
+
+    private List<RawDnsEntry> currentEntries;
+    private List<RawDnsEntry> shuffledEntries;
+    private DnsConfig desiredConfig;
+    private List<RawDnsEntry> desiredEntries;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        cloudDigitalOceanService = new CloudDigitalOceanService();
+
+        currentEntries = DnsBenchmarkData.currentEntries(DOMAIN_NAME, entries);
+        Collections.sort(currentEntries);
+        desiredConfig = DnsBenchmarkData.desiredConfig(DOMAIN_NAME, currentEntries);
+        desiredEntries = cloudDigitalOceanService.computeDnsEntries(DOMAIN_NAME, currentEntries, desiredConfig);
+
+        shuffledEntries = new ArrayList<>(currentEntries);
+        Collections.shuffle(shuffledEntries, new Random(1));
+    }
+
+    @Benchmark
+    public List<RawDnsEntry> computeDnsEntries() {
+        return cloudDigitalOceanService.computeDnsEntries(DOMAIN_NAME, currentEntries, desiredConfig);
+    }
+
+    @Benchmark
+    public List<RawDnsEntry> sortEntries() {
+        var entries = new ArrayList<>(shuffledEntries);
+        Collections.sort(entries);
+        return entries;
+    }
+
+    @Benchmark
+    public void compareStreams(Blackhole blackhole) {
+        ListsComparator.compareStreams(
+                currentEntries.stream(),
+                desiredEntries.stream(),
+                new ListComparatorHandler<>() {
+                    @Override
+                    public void both(RawDnsEntry current, RawDnsEntry desired) {
+                        blackhole.consume(current);
+                    }
+
+                    @Override
+                    public void leftOnly(RawDnsEntry current) {
+                        blackhole.consume(current);
+                    }
+
+                    @Override
+                    public void rightOnly(RawDnsEntry desired) {
+                        blackhole.consume(desired);
+                    }
+                }
+        );
+    }
+
+    @Benchmark
+    public List<RawDnsEntry> matchIds() {
+        CloudDigitalOceanService.matchIds(currentEntries, desiredEntries);
+        return desiredEntries;
+    }
+
+}
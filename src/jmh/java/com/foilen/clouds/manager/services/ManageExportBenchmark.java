@@ -0,0 +1,98 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.services.model.DigitalOceanDnsZone;
+import com.foilen.clouds.manager.services.model.DnsConfig;
+import com.foilen.clouds.manager.services.model.DnsEntryConfig;
+import com.foilen.clouds.manager.services.model.manageconfig.DigitalOceanDnsZoneManageConfiguration;
+import com.foilen.clouds.manager.services.model.manageconfig.ManageConfiguration;
+import com.foilen.smalltools.tools.JsonTools;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a big export: cleaning up a clone of the whole configuration before printing it (the previous way) against {@link ManageExportWriter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ManageExportBenchmark {
+
+    private static final int ENTRIES_PER_ZONE = 1000;
+
+    @Param({"1000", "10000", "100000"})
+    public int entries;
+
+    private ManageConfiguration config;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        config = new ManageConfiguration();
+        for (int i = 0; i < entries / ENTRIES_PER_ZONE; ++i) {
+            var domainName = "example" + i + ".com";
+            var zone = new DigitalOceanDnsZone();
+            zone.setName(domainName);
+            config.getDigitalOceanDnsZones().add(new DigitalOceanDnsZoneManageConfiguration()
+                    .setResource(zone)
+                    .setConfig(new DnsConfig()
+                            .setStartEmpty(true)
+                            .setConfigs(Collections.singletonList(new DnsEntryConfig()
+                                    .setRawDnsEntries(DnsBenchmarkData.currentEntries(domainName, ENTRIES_PER_ZONE))
+                            ))
+                    )
+            );
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static void cleanup(Map cloned) {
+
+        cloned.remove("id");
+        cloned.remove("provider");
+
+        cloned.forEach((key, value) -> {
+            if (value instanceof Map) {
+                cleanup((Map) value);
+            }
+            if (value instanceof List) {
+                ((List<?>) value).forEach(it -> {
+                    if (it instanceof Map) {
+                        cleanup((Map) it);
+                    }
+                });
+            }
+        });
+    }
+
+    @Benchmark
+    public String cloneCleanupAndPrint() {
+        var cloned = JsonTools.clone(config, Map.class);
+        cleanup(cloned);
+        return JsonTools.prettyPrintWithoutNulls(cloned);
+    }
+
+    @Benchmark
+    public void streamingWriter() throws IOException {
+        try (var writer = new ManageExportWriter(OutputStream.nullOutputStream())) {
+            writer.writeArray("digitalOceanDnsZones", config.getDigitalOceanDnsZones());
+        }
+    }
+
+}
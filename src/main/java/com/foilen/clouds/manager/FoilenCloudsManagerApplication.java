@@ -9,15 +9,28 @@
  */
 package com.foilen.clouds.manager;
 
+import com.foilen.clouds.manager.daemon.DaemonClient;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
 
+import java.util.Arrays;
+
 @SpringBootApplication(exclude = MongoAutoConfiguration.class)
 public class FoilenCloudsManagerApplication {
 
     public static void main(String[] args) {
+
+        // Send to the daemon if it is running or execute here
+        if (args.length > 0 && "client".equals(args[0])) {
+            args = Arrays.copyOfRange(args, 1, args.length);
+            var exitCode = DaemonClient.execute(args);
+            if (exitCode != DaemonClient.NOT_RUNNING) {
+                System.exit(exitCode);
+            }
+        }
+
         System.setProperty("spring.xml.ignore", "true");
 
         var app = new SpringApplication(FoilenCloudsManagerApplication.class);
@@ -15,6 +15,7 @@ import com.foilen.clouds.manager.azureclient.model.Error;
 import com.foilen.clouds.manager.azureclient.model.*;
 import com.foilen.clouds.manager.services.AzureUtils;
 import com.foilen.clouds.manager.services.CloudAzureService;
+import com.foilen.clouds.manager.services.HttpClientService;
 import com.foilen.clouds.manager.services.model.AzureWebApp;
 import com.foilen.clouds.manager.services.model.AzureWebAppMountStorage;
 import com.foilen.smalltools.tools.AbstractBasics;
@@ -25,7 +26,6 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.RequestEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
@@ -39,10 +39,10 @@ import java.util.Map;
 @Component
 public class AzureCustomClient extends AbstractBasics {
 
-    private static final RestTemplate restTemplate = new RestTemplate();
-
     @Autowired
     private CloudAzureService cloudAzureService;
+    @Autowired
+    private HttpClientService httpClientService;
 
     public void applicationServiceCertificateCreate(AzureWebApp azureWebApp, String domainName, String hostname) {
         var request = new AzureApplicationServiceCertificateRequest()
@@ -73,6 +73,44 @@ public class AzureCustomClient extends AbstractBasics {
         }
     }
 
+    /**
+     * Get a resource as it is returned by the API.
+     *
+     * @param url the full url, including the api version
+     * @return the body or null if it does not exist
+     */
+    public String resourceRaw(String url) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(cloudAzureService.getTokenManagement());
+        try {
+            return httpClientService.getRestTemplate().exchange(RequestEntity.get(new URI(url)).headers(headers).build(), String.class)
+                    .getBody();
+        } catch (HttpClientErrorException.NotFound e) {
+            return null;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Call a "list" action of a resource (e.g. "config/appsettings/list") and get the response as it is returned by the API.
+     *
+     * @param url the full url, including the api version
+     * @return the body or null if it does not exist
+     */
+    public String resourceRawPost(String url) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(cloudAzureService.getTokenManagement());
+        try {
+            return httpClientService.getRestTemplate().exchange(RequestEntity.post(new URI(url)).headers(headers).build(), String.class)
+                    .getBody();
+        } catch (HttpClientErrorException.NotFound e) {
+            return null;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public AzureWebSite website(String id) {
         var details = AzureUtils.getAzIdDetails(id);
         return website(details.getSubscriptionId(), details.getResourceGroupName(), details.getName());
@@ -138,7 +176,7 @@ public class AzureCustomClient extends AbstractBasics {
                     .uriVariables(uriVariables)
                     .queryParam("api-version", apiVersion)
                     .toUriString();
-            return restTemplate.exchange(RequestEntity.get(new URI(uri)).headers(headers).build(), responseType)
+            return httpClientService.getRestTemplate().exchange(RequestEntity.get(new URI(uri)).headers(headers).build(), responseType)
                     .getBody();
         } catch (HttpClientErrorException e) {
             return JsonTools.readFromString(e.getResponseBodyAsString(), responseType);
@@ -155,7 +193,7 @@ public class AzureCustomClient extends AbstractBasics {
                     .uriVariables(uriVariables)
                     .queryParam("api-version", apiVersion)
                     .toUriString();
-            return restTemplate.exchange(RequestEntity.put(new URI(uri)).headers(headers).body(data), responseType)
+            return httpClientService.getRestTemplate().exchange(RequestEntity.put(new URI(uri)).headers(headers).body(data), responseType)
                     .getBody();
         } catch (HttpClientErrorException e) {
             return JsonTools.readFromString(e.getResponseBodyAsString(), responseType);
@@ -14,6 +14,9 @@ import java.util.Map;
 public class AzureWebSiteConfigProperties extends BaseApiResponse {
 
     private Map<String, AzureWebSiteConfigPropertiesStorageAccount> azureStorageAccounts;
+    private String linuxFxVersion;
+    private Boolean alwaysOn;
+    private Boolean webSocketsEnabled;
 
     public Map<String, AzureWebSiteConfigPropertiesStorageAccount> getAzureStorageAccounts() {
         return azureStorageAccounts;
@@ -22,4 +25,28 @@ public class AzureWebSiteConfigProperties extends BaseApiResponse {
     public void setAzureStorageAccounts(Map<String, AzureWebSiteConfigPropertiesStorageAccount> azureStorageAccounts) {
         this.azureStorageAccounts = azureStorageAccounts;
     }
+
+    public String getLinuxFxVersion() {
+        return linuxFxVersion;
+    }
+
+    public void setLinuxFxVersion(String linuxFxVersion) {
+        this.linuxFxVersion = linuxFxVersion;
+    }
+
+    public Boolean getAlwaysOn() {
+        return alwaysOn;
+    }
+
+    public void setAlwaysOn(Boolean alwaysOn) {
+        this.alwaysOn = alwaysOn;
+    }
+
+    public Boolean getWebSocketsEnabled() {
+        return webSocketsEnabled;
+    }
+
+    public void setWebSocketsEnabled(Boolean webSocketsEnabled) {
+        this.webSocketsEnabled = webSocketsEnabled;
+    }
 }
@@ -54,8 +54,7 @@ public class AzureCommands {
             throw new CliException("Unknown DNS Zone");
         }
 
-        String ipInAzure = cloudAzureService.dnsZoneEntryList(dnsZone).stream()
-                .filter(it -> it.getName().equals(hostname))
+        String ipInAzure = cloudAzureService.dnsZoneEntryFind(dnsZone, hostname, "A").stream()
                 .map(RawDnsEntry::getDetails)
                 .findFirst()
                 .orElse(null);
@@ -178,11 +177,34 @@ public class AzureCommands {
             @ShellOption String storageAccountName,
             @ShellOption String shareName,
             @ShellOption String sourceFolder,
-            @ShellOption(defaultValue = "") String targetFolder
+            @ShellOption(defaultValue = "") String targetFolder,
+            @ShellOption(defaultValue = "8", help = "The amount of files and of ranges uploaded at the same time") int parallelism,
+            @ShellOption(defaultValue = "4096", help = "The size in KiB of the ranges when uploading big files (maximum 4096)") int chunkSizeKb,
+            @ShellOption(defaultValue = "false", help = "Compare with all the remote files instead of the manifest of the last sync") boolean verify
     ) {
 
         try {
-            cloudAzureService.storageFileShareUpload(resourceGroupName, storageAccountName, shareName, sourceFolder, targetFolder);
+            var stats = cloudAzureService.storageFileShareUpload(resourceGroupName, storageAccountName, shareName, sourceFolder, targetFolder, parallelism, chunkSizeKb * 1024, verify);
+            System.out.println(stats);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+    }
+
+    @ShellMethod("Delete a folder and all its content in a file share")
+    public void azureStoragePrune(
+            @ShellOption String resourceGroupName,
+            @ShellOption String storageAccountName,
+            @ShellOption String shareName,
+            @ShellOption String folder,
+            @ShellOption(defaultValue = "false", help = "Only delete what is inside the folder") boolean contentOnly,
+            @ShellOption(defaultValue = "16", help = "The amount of files deleted at the same time") int parallelism
+    ) {
+
+        try {
+            var stats = cloudAzureService.storageFileShareDeleteFolder(resourceGroupName, storageAccountName, shareName, folder, !contentOnly, parallelism);
+            System.out.println(stats);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -0,0 +1,29 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.commands;
+
+import com.foilen.clouds.manager.daemon.DaemonServer;
+import com.foilen.smalltools.tools.AbstractBasics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+
+@ShellComponent
+public class DaemonCommands extends AbstractBasics {
+
+    @Autowired
+    private DaemonServer daemonServer;
+
+    @ShellMethod("Keep running and execute the commands sent with `client` to not start the application for each of them. Send `client exit` to stop it")
+    public void daemon() {
+        daemonServer.run();
+    }
+
+}
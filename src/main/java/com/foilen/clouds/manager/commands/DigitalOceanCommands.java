@@ -47,8 +47,7 @@ public class DigitalOceanCommands {
 
         DigitalOceanDnsZone dnsZone = new DigitalOceanDnsZone();
         dnsZone.setName(dnsZoneName);
-        RawDnsEntry previousDnsEntry = cloudDigitalOceanService.dnsZoneEntryList(dnsZone).stream()
-                .filter(it -> it.getName().equals(hostname))
+        RawDnsEntry previousDnsEntry = cloudDigitalOceanService.dnsZoneEntryFind(dnsZone, hostname, "A").stream()
                 .findFirst()
                 .orElse(new RawDnsEntry());
         System.out.println("Current IP in DNS Zone: " + previousDnsEntry.getDetails());
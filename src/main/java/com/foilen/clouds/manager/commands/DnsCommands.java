@@ -12,6 +12,7 @@ package com.foilen.clouds.manager.commands;
 import com.foilen.clouds.manager.commands.model.RawDnsEntry;
 import com.foilen.clouds.manager.services.CloudService;
 import com.foilen.clouds.manager.services.DisplayService;
+import com.foilen.clouds.manager.services.model.DnsRecord;
 import com.foilen.smalltools.reflection.ReflectionTools;
 import com.foilen.smalltools.tools.AbstractBasics;
 import com.foilen.smalltools.tools.JsonTools;
@@ -48,8 +49,8 @@ public class DnsCommands extends AbstractBasics {
 
         List<RawDnsEntry> dnsEntries = listRawDnsEntries(hostname, moreSubDomains, usingDnsServer);
         System.out.println("\n\n---[" + hostname + "]---");
-        dnsEntries.stream().sorted().distinct()
-                .forEach(it -> System.out.println(JsonTools.compactPrintWithoutNulls(it)));
+        DnsRecord.fromAll(dnsEntries).stream().sorted().distinct()
+                .forEach(it -> System.out.println(JsonTools.compactPrintWithoutNulls(it.toRawDnsEntry())));
 
     }
 
@@ -147,10 +148,12 @@ public class DnsCommands extends AbstractBasics {
                                 dnsEntries.add(dnsEntry);
                                 break;
                             case Type.TXT:
-                                ((TXTRecord) record).getStrings().forEach(it -> {
-                                    dnsEntry.setDetails(it);
-                                    dnsEntries.add(JsonTools.clone(dnsEntry));
-                                });
+                                ((TXTRecord) record).getStrings().forEach(it -> dnsEntries.add(new RawDnsEntry()
+                                        .setName(dnsEntry.getName())
+                                        .setType(dnsEntry.getType())
+                                        .setTtl(dnsEntry.getTtl())
+                                        .setDetails(it)
+                                ));
                                 break;
                             case Type.SOA:
                                 break;
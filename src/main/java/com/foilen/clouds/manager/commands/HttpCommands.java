@@ -0,0 +1,30 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.commands;
+
+import com.foilen.clouds.manager.services.HttpClientService;
+import com.foilen.smalltools.tools.AbstractBasics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+
+@ShellComponent
+public class HttpCommands extends AbstractBasics {
+
+    @Autowired
+    private HttpClientService httpClientService;
+
+    @ShellMethod("Show the connection pool usage and the latency of the requests per host")
+    public void httpStats() {
+        System.out.println("Connection pool: " + httpClientService.getPoolStats());
+        httpClientService.getMetricsByHost().forEach((host, metrics) -> System.out.println(host + ": " + metrics));
+    }
+
+}
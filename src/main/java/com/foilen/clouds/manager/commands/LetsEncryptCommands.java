@@ -11,6 +11,7 @@ package com.foilen.clouds.manager.commands;
 
 import com.foilen.clouds.manager.services.CloudAzureService;
 import com.foilen.clouds.manager.services.CloudInMemoryService;
+import com.foilen.clouds.manager.services.CloudService;
 import com.foilen.clouds.manager.services.LetsEncryptService;
 import com.foilen.clouds.manager.services.model.AzureWebApp;
 import com.foilen.clouds.manager.services.model.DnsZone;
@@ -34,6 +35,8 @@ public class LetsEncryptCommands {
     @Autowired
     private CloudInMemoryService cloudInMemoryService;
     @Autowired
+    private CloudService cloudService;
+    @Autowired
     private LetsEncryptService letsEncryptService;
 
     @ShellMethod("Update the Let's Encrypt in local files")
@@ -66,6 +69,7 @@ public class LetsEncryptCommands {
         addIfFileExists(outDirectory + "/privateKey.pem", all, secretNamespace + "|privateKeyPem");
         addIfFileExists(outDirectory + "/publicKey.pem", all, secretNamespace + "|publicKeyPem");
         addIfFileExists(outDirectory + "/pfxPassword.txt", all, secretNamespace + "|pfxPassword");
+        cloudService.secretCacheInvalidate(secretStore);
 
         letsEncryptService.update(domain, dnsZone.get(), secretStore, Optional.empty(), staging, contactEmail);
 
@@ -24,9 +24,11 @@ public class ManageCommands extends AbstractBasics {
 
     @ShellMethod("Add/update resources that are in file")
     public void manageResources(
-            @ShellOption String file
+            @ShellOption String file,
+            @ShellOption(defaultValue = ShellOption.NULL, help = "The file that keeps what was applied to skip what did not change since the last run") String stateFile,
+            @ShellOption(defaultValue = "false", help = "Reconcile all the resources even if they did not change since the last run") boolean full
     ) {
-        manageService.manage(file);
+        manageService.manage(file, stateFile, full);
     }
 
     @ShellMethod("Export resources in file")
@@ -0,0 +1,92 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.daemon;
+
+import com.foilen.clouds.manager.services.model.json.DaemonInfo;
+import com.foilen.smalltools.tools.JsonTools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Sends a command to the daemon and shows its output. It does not start Spring, so it is quick to run.
+ */
+public final class DaemonClient {
+
+    /**
+     * The exit code when there is no daemon to send the command to or when it did not execute it.
+     */
+    public static final int NOT_RUNNING = -1;
+
+    private DaemonClient() {
+    }
+
+    /**
+     * Send the command to the daemon and wait for it to complete.
+     *
+     * @param args the command and its arguments
+     * @return the exit code of the command or {@link #NOT_RUNNING} if it must be executed here
+     */
+    public static int execute(String[] args) {
+
+        var infoFile = DaemonProtocol.infoFile();
+        if (!Files.exists(infoFile)) {
+            return NOT_RUNNING;
+        }
+
+        Socket socket;
+        DaemonInfo daemonInfo;
+        try {
+            daemonInfo = JsonTools.readFromFile(infoFile.toString(), DaemonInfo.class);
+            socket = new Socket(InetAddress.getLoopbackAddress(), daemonInfo.getPort());
+        } catch (Exception e) {
+            // Stale file
+            return NOT_RUNNING;
+        }
+
+        try (socket;
+             var in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             var out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+
+            // Send the command
+            DaemonProtocol.writeString(out, daemonInfo.getToken());
+            DaemonProtocol.writeString(out, Paths.get("").toAbsolutePath().toString());
+            DaemonProtocol.writeStrings(out, args);
+            out.flush();
+
+            // Show the output
+            while (true) {
+                var type = in.readByte();
+                if (type == DaemonProtocol.FRAME_EXIT) {
+                    var exitCode = in.readInt();
+                    return exitCode == DaemonProtocol.EXIT_NOT_EXECUTED ? NOT_RUNNING : exitCode;
+                }
+
+                var bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                PrintStream target = type == DaemonProtocol.FRAME_ERR ? System.err : System.out;
+                target.write(bytes, 0, bytes.length);
+                target.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Lost the connection with the daemon: " + e.getMessage());
+            return 1;
+        }
+    }
+
+}
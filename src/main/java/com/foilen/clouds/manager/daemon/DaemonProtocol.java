@@ -0,0 +1,137 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.daemon;
+
+import com.foilen.smalltools.JavaEnvironmentValues;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The messages between the client and the daemon.
+ * <ul>
+ *     <li>The client sends the token, its working directory and the arguments.</li>
+ *     <li>The daemon sends frames of standard output and error while the command runs and ends with a frame containing the exit code.</li>
+ *     <li>When the exit code is {@link #EXIT_NOT_EXECUTED}, the client executes the command itself.</li>
+ * </ul>
+ */
+public final class DaemonProtocol {
+
+    public static final byte FRAME_EXIT = 0;
+    public static final byte FRAME_OUT = 1;
+    public static final byte FRAME_ERR = 2;
+
+    /**
+     * The exit code when the daemon did not execute the command (e.g. busy with another one) and the client must execute it.
+     */
+    public static final int EXIT_NOT_EXECUTED = -1;
+
+    private static final int MAX_STRING_LENGTH = 10 * 1024 * 1024;
+    private static final int MAX_ARGUMENTS = 10000;
+
+    /**
+     * Sends what is written as frames of one type.
+     */
+    public static class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream out;
+        private final byte type;
+
+        public FrameOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (out) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            synchronized (out) {
+                out.writeByte(type);
+                out.writeInt(len);
+                out.write(b, off, len);
+            }
+        }
+    }
+
+    private DaemonProtocol() {
+    }
+
+    public static Path infoFile() {
+        return Paths.get(JavaEnvironmentValues.getHomeDirectory(), ".foilen-clouds-manager", "daemon.json");
+    }
+
+    public static String readString(DataInputStream in) throws IOException {
+        var length = in.readInt();
+        if (length < 0 || length > MAX_STRING_LENGTH) {
+            throw new IOException("Invalid string length " + length);
+        }
+        var bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static String[] readStrings(DataInputStream in) throws IOException {
+        var count = in.readInt();
+        if (count < 0 || count > MAX_ARGUMENTS) {
+            throw new IOException("Invalid amount of strings " + count);
+        }
+        var strings = new String[count];
+        for (int i = 0; i < count; ++i) {
+            strings[i] = readString(in);
+        }
+        return strings;
+    }
+
+    public static void writeExit(DataOutputStream out, int exitCode) throws IOException {
+        synchronized (out) {
+            out.writeByte(FRAME_EXIT);
+            out.writeInt(exitCode);
+            out.flush();
+        }
+    }
+
+    public static void writeString(DataOutputStream out, String text) throws IOException {
+        var bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+        out.writeInt(strings.length);
+        for (var string : strings) {
+            writeString(out, string);
+        }
+    }
+
+}
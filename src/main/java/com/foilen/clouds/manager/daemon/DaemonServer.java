@@ -0,0 +1,226 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.daemon;
+
+import com.foilen.clouds.manager.CliException;
+import com.foilen.clouds.manager.services.CloudAzureService;
+import com.foilen.clouds.manager.services.OwnerOnlyFileTools;
+import com.foilen.clouds.manager.services.model.json.DaemonInfo;
+import com.foilen.smalltools.tools.AbstractBasics;
+import com.foilen.smalltools.tools.JsonTools;
+import com.foilen.smalltools.tools.SecureRandomTools;
+import com.foilen.smalltools.tools.SystemTools;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.shell.ExitRequest;
+import org.springframework.shell.Shell;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the application running (Spring, the Azure clients, the tokens and the caches) and executes the commands sent by the {@link DaemonClient} on the
+ * loopback interface. The clients must send the token that is in the info file that only the user can read. The commands are executed one at a time
+ * since their output is taken from the standard output and error. When the daemon stays busy for DAEMON_BUSY_TIMEOUT_SECONDS, the client executes the
+ * command itself. The commands that never end are refused.
+ */
+@Component
+public class DaemonServer extends AbstractBasics {
+
+    private static final int REQUEST_TIMEOUT_MS = 10000;
+
+    @Autowired
+    private CloudAzureService cloudAzureService;
+    @Autowired
+    private ObjectProvider<Shell> shellProvider;
+
+    private final int port = Integer.parseInt(SystemTools.getPropertyOrEnvironment("DAEMON_PORT", "0"));
+    private final long busyTimeoutMs = Long.parseLong(SystemTools.getPropertyOrEnvironment("DAEMON_BUSY_TIMEOUT_SECONDS", "10")) * 1000;
+
+    private final ReentrantLock commandLock = new ReentrantLock(true);
+
+    private volatile ServerSocket serverSocket;
+    private volatile boolean stopped;
+
+    /**
+     * Tell why the daemon cannot execute a command.
+     *
+     * @param args the command and its arguments
+     * @return the reason or null if it can be executed
+     */
+    protected static String refusedReason(String[] args) {
+        if (args.length > 0 && "daemon".equals(args[0])) {
+            return "The daemon is already running";
+        }
+        for (var arg : args) {
+            if ("--keep-alive".equals(arg)) {
+                return "The commands with --keep-alive never end and would block the daemon. Execute it without \"client\"";
+            }
+        }
+        return null;
+    }
+
+    protected int execute(DataOutputStream out, String workingDirectory, String[] args) throws IOException {
+
+        var refusedReason = refusedReason(args);
+        if (refusedReason != null) {
+            writeErr(out, refusedReason);
+            return 1;
+        }
+
+        try {
+            if (!commandLock.tryLock(busyTimeoutMs, TimeUnit.MILLISECONDS)) {
+                writeErr(out, "The daemon is busy with another command. Executing it without the daemon");
+                return DaemonProtocol.EXIT_NOT_EXECUTED;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return DaemonProtocol.EXIT_NOT_EXECUTED;
+        }
+
+        var previousOut = System.out;
+        var previousErr = System.err;
+        try (var commandOut = new PrintStream(new BufferedOutputStream(new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.FRAME_OUT)), true, StandardCharsets.UTF_8);
+             var commandErr = new PrintStream(new BufferedOutputStream(new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.FRAME_ERR)), true, StandardCharsets.UTF_8)) {
+            System.setOut(commandOut);
+            System.setErr(commandErr);
+
+            // A failure in a previous command might be temporary
+            cloudAzureService.clearAuthenticationFailure();
+
+            var daemonWorkingDirectory = Paths.get("").toAbsolutePath().toString();
+            if (!daemonWorkingDirectory.equals(workingDirectory)) {
+                commandErr.println("The daemon runs in " + daemonWorkingDirectory + " . The relative paths are from that directory");
+            }
+
+            var command = String.join(" ", args);
+            Object result = shellProvider.getObject().evaluate(() -> command);
+            if (result instanceof ExitRequest) {
+                commandOut.println("Stopping the daemon");
+                stop();
+                return 0;
+            }
+            if (result != null) {
+                commandOut.println(result);
+            }
+            return result instanceof Throwable ? 1 : 0;
+        } finally {
+            System.setOut(previousOut);
+            System.setErr(previousErr);
+            commandLock.unlock();
+        }
+    }
+
+    private void writeErr(DataOutputStream out, String message) throws IOException {
+        var commandErr = new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.FRAME_ERR);
+        commandErr.write((message + "\n").getBytes(StandardCharsets.UTF_8));
+        commandErr.flush();
+    }
+
+    private void handle(Socket socket, String token) {
+        try (socket;
+             var in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             var out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+
+            // Get the request
+            socket.setSoTimeout(REQUEST_TIMEOUT_MS);
+            var clientToken = DaemonProtocol.readString(in);
+            if (!MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), clientToken.getBytes(StandardCharsets.UTF_8))) {
+                logger.warn("Refused a client with a wrong token");
+                return;
+            }
+            var workingDirectory = DaemonProtocol.readString(in);
+            var args = DaemonProtocol.readStrings(in);
+            socket.setSoTimeout(0);
+
+            var exitCode = execute(out, workingDirectory, args);
+            DaemonProtocol.writeExit(out, exitCode);
+        } catch (IOException e) {
+            logger.warn("Problem with a client", e);
+        }
+    }
+
+    /**
+     * Listen for the clients until the "exit" command is received.
+     */
+    public void run() {
+
+        var token = SecureRandomTools.randomHexString(32);
+        var infoFile = DaemonProtocol.infoFile();
+        ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("daemon-client-%d").setDaemon(true).build());
+        try (var serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            this.serverSocket = serverSocket;
+
+            // Let the clients know where to connect
+            var tmpFile = infoFile.resolveSibling(infoFile.getFileName() + ".tmp");
+            OwnerOnlyFileTools.createDirectories(infoFile.getParent());
+            Files.deleteIfExists(tmpFile);
+            OwnerOnlyFileTools.createFile(tmpFile);
+            JsonTools.writeToFile(tmpFile.toString(), new DaemonInfo()
+                    .setPid(ProcessHandle.current().pid())
+                    .setPort(serverSocket.getLocalPort())
+                    .setToken(token));
+            Files.move(tmpFile, infoFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            logger.info("The daemon is listening on {}", serverSocket.getLocalSocketAddress());
+            while (!stopped) {
+                var socket = serverSocket.accept();
+                executor.execute(() -> handle(socket, token));
+            }
+        } catch (IOException e) {
+            if (!stopped) {
+                throw new CliException("Problem with the daemon", e);
+            }
+        } finally {
+            executor.shutdown();
+            try {
+                Files.deleteIfExists(infoFile);
+            } catch (IOException e) {
+                logger.warn("Could not delete {}", infoFile, e);
+            }
+        }
+
+        logger.info("The daemon is stopped");
+    }
+
+    /**
+     * Stop listening for new clients.
+     */
+    public void stop() {
+        stopped = true;
+        var currentServerSocket = serverSocket;
+        if (currentServerSocket != null) {
+            try {
+                currentServerSocket.close();
+            } catch (IOException e) {
+                logger.warn("Problem closing the daemon socket", e);
+            }
+        }
+    }
+
+}
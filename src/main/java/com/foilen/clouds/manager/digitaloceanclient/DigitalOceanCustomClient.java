@@ -9,23 +9,41 @@
  */
 package com.foilen.clouds.manager.digitaloceanclient;
 
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foilen.clouds.manager.CliException;
 import com.foilen.clouds.manager.commands.model.RawDnsEntry;
 import com.foilen.clouds.manager.digitaloceanclient.model.*;
 import com.foilen.clouds.manager.services.DisabledException;
+import com.foilen.clouds.manager.services.HttpClientService;
 import com.foilen.smalltools.tools.AbstractBasics;
 import com.foilen.smalltools.tools.JsonTools;
+import com.foilen.smalltools.tools.SystemTools;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Client to use the Digital Ocean REST Service.
@@ -35,7 +53,18 @@ import java.util.Map;
 @Component
 public class DigitalOceanCustomClient extends AbstractBasics {
 
-    private static final RestTemplate restTemplate = new RestTemplate();
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int RECORDS_PER_PAGE = 200;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Autowired
+    private DigitalOceanRequestScheduler digitalOceanRequestScheduler;
+    @Autowired
+    private HttpClientService httpClientService;
+
+    private final DigitalOceanRateLimiter rateLimiter = new DigitalOceanRateLimiter(Integer.parseInt(SystemTools.getPropertyOrEnvironment("DIGITALOCEAN_RATELIMIT_RESERVE", "10")));
 
     @Value("${DIGITALOCEAN_TOKEN:#{null}}")
     private String digitalOceanToken;
@@ -51,11 +80,115 @@ public class DigitalOceanCustomClient extends AbstractBasics {
         return get(DigitalOceanDomainsResponse.class, "https://api.digitalocean.com/v2/domains", null, null);
     }
 
-    public DigitalOceanDomainRecordsResponse domainRecordList(String domainName) {
+    public DigitalOceanDomainResponse domainGet(String domainName) {
         isEnabled();
-        Map<String, String> queryParam = Map.of("per_page", "200");
-        Map<String, Object> uriVariable = Map.of("domainName", domainName);
-        return get(DigitalOceanDomainRecordsResponse.class, "https://api.digitalocean.com/v2/domains/{domainName}/records", uriVariable, queryParam);
+        return get(DigitalOceanDomainResponse.class, "https://api.digitalocean.com/v2/domains/{domainName}", Map.of("domainName", domainName), null);
+    }
+
+    /**
+     * List all the records of a domain. Once the first page gives the total, all the other pages are retrieved at the same time.
+     *
+     * @param domainName the domain
+     * @return the records in the order of the pages
+     */
+    public Stream<DigitalOceanDomainRecord> domainRecordStream(String domainName) {
+        isEnabled();
+        var firstPage = getRecordsPage(domainRecordPageUri(domainName, 1));
+        if (firstPage.getNextUrl() == null) {
+            return firstPage.getDomainRecords().stream();
+        }
+
+        // Known total: get all the other pages at the same time
+        if (firstPage.getTotal() >= 0) {
+            var pageCount = (int) ((firstPage.getTotal() + RECORDS_PER_PAGE - 1) / RECORDS_PER_PAGE);
+            var otherPages = IntStream.rangeClosed(2, pageCount).boxed().collect(Collectors.toList());
+            logger.info("Get the {} other pages of records of {}", otherPages.size(), domainName);
+            var otherPageFutures = digitalOceanRequestScheduler.submitAll(otherPages, page -> getRecordsPage(domainRecordPageUri(domainName, page)));
+            return Stream.concat(
+                    firstPage.getDomainRecords().stream(),
+                    otherPageFutures.stream().flatMap(it -> DigitalOceanRequestScheduler.join(it).getDomainRecords().stream())
+            );
+        }
+
+        // Unknown total: follow the links
+        return Stream.iterate(firstPage, Objects::nonNull, page -> page.getNextUrl() == null ? null : getRecordsPage(URI.create(page.getNextUrl())))
+                .flatMap(page -> page.getDomainRecords().stream());
+    }
+
+    /**
+     * Get only the records with that name and type.
+     *
+     * @param domainName the domain
+     * @param fullName   the full name of the record (e.g. www.example.com)
+     * @param type       the type of record
+     * @return the records
+     */
+    public List<DigitalOceanDomainRecord> domainRecordFind(String domainName, String fullName, String type) {
+        isEnabled();
+        var uri = UriComponentsBuilder.fromHttpUrl("https://api.digitalocean.com/v2/domains/{domainName}/records")
+                .queryParam("name", fullName)
+                .queryParam("type", type)
+                .queryParam("per_page", RECORDS_PER_PAGE)
+                .buildAndExpand(domainName)
+                .toUri();
+        return getRecordsPage(uri).getDomainRecords();
+    }
+
+    private URI domainRecordPageUri(String domainName, int page) {
+        return UriComponentsBuilder.fromHttpUrl("https://api.digitalocean.com/v2/domains/{domainName}/records")
+                .queryParam("per_page", RECORDS_PER_PAGE)
+                .queryParam("page", page)
+                .buildAndExpand(domainName)
+                .toUri();
+    }
+
+    private DigitalOceanDomainRecordsPage getRecordsPage(URI uri) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(digitalOceanToken);
+        try {
+            return withRetries(RequestEntity.get(uri).headers(headers).build(), request -> httpClientService.getRestTemplate().execute(uri, HttpMethod.GET,
+                    callback -> callback.getHeaders().putAll(headers),
+                    response -> new ResponseEntity<DigitalOceanDomainRecordsPage>(parseRecordsPage(response.getBody()), response.getHeaders(), response.getStatusCode())
+            )).getBody();
+        } catch (HttpClientErrorException e) {
+            throw new CliException("Could not get the domain records", JsonTools.readFromString(e.getResponseBodyAsString(), BaseApiResponseWithError.class));
+        }
+    }
+
+    /**
+     * Read a page of records while it is received.
+     *
+     * @param inputStream the body of the response
+     * @return the page
+     * @throws IOException if the body cannot be read
+     */
+    protected static DigitalOceanDomainRecordsPage parseRecordsPage(InputStream inputStream) throws IOException {
+        var page = new DigitalOceanDomainRecordsPage();
+        try (var parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expecting an object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var fieldName = parser.getCurrentName();
+                parser.nextToken();
+                switch (fieldName) {
+                    case "domain_records":
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            page.getDomainRecords().add(objectMapper.readValue(parser, DigitalOceanDomainRecord.class));
+                        }
+                        break;
+                    case "links":
+                        page.setNextUrl(objectMapper.readTree(parser).path("pages").path("next").textValue());
+                        break;
+                    case "meta":
+                        page.setTotal(objectMapper.readTree(parser).path("total").asLong(-1));
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+        return page;
     }
 
     public DigitalOceanDomainRecordResponse domainRecordAdd(String domainName, RawDnsEntry entry) {
@@ -75,7 +208,64 @@ public class DigitalOceanCustomClient extends AbstractBasics {
                 digitalOceanDomainRecord.setData(digitalOceanDomainRecord.getData() + ".");
                 break;
         }
-        return post(DigitalOceanDomainRecordResponse.class, "https://api.digitalocean.com/v2/domains/{domainName}/records", uriVariable, digitalOceanDomainRecord);
+        return post(DigitalOceanDomainRecordResponse.class, "https://api.digitalocean.com/v2/domains/{domainName}/records", uriVariable, digitalOceanDomainRecord, () -> {
+            // The record could have been created even if the response was an error
+            var existing = domainRecordFind(domainName, entry.getName(), entry.getType()).stream()
+                    .filter(it -> isSameRecord(digitalOceanDomainRecord, it, domainName))
+                    .findFirst().orElse(null);
+            if (existing == null) {
+                return null;
+            }
+            logger.info("The record {} {} was already added", entry.getName(), entry.getType());
+            var response = new DigitalOceanDomainRecordResponse();
+            response.setDomainRecord(existing);
+            return response;
+        });
+    }
+
+    /**
+     * Tell if the record returned by Digital Ocean is the one that was sent.
+     *
+     * @param sent       the record that was sent
+     * @param found      the record returned by Digital Ocean
+     * @param domainName the domain
+     * @return true if they have the same values
+     */
+    protected static boolean isSameRecord(DigitalOceanDomainRecord sent, DigitalOceanDomainRecord found, String domainName) {
+        return sent.getType() == found.getType()
+                && Objects.equals(sent.getName(), found.getName())
+                && Objects.equals(toComparableData(sent.getData(), domainName), toComparableData(found.getData(), domainName))
+                && Objects.equals(sent.getPriority(), found.getPriority())
+                && Objects.equals(sent.getPort(), found.getPort())
+                && Objects.equals(sent.getWeight(), found.getWeight());
+    }
+
+    private static String toComparableData(String data, String domainName) {
+        if (data == null) {
+            return null;
+        }
+        if ("@".equals(data)) {
+            return domainName;
+        }
+        if (data.endsWith(".")) {
+            return data.substring(0, data.length() - 1);
+        }
+        return data;
+    }
+
+    /**
+     * Tell if a call that failed with that status can be sent again. Too many requests can always be retried since the call was not executed. A server
+     * error can come after the call was executed, so only the calls that have the same result when executed twice are retried.
+     *
+     * @param method     the method of the call
+     * @param statusCode the status of the response
+     * @return true if it can be retried
+     */
+    protected static boolean isRetryable(HttpMethod method, int statusCode) {
+        if (statusCode == 429) {
+            return true;
+        }
+        return statusCode >= 500 && (method == HttpMethod.GET || method == HttpMethod.DELETE);
     }
 
     public BaseApiResponseWithError domainRecordDelete(String domainName, String id) {
@@ -86,6 +276,58 @@ public class DigitalOceanCustomClient extends AbstractBasics {
         return delete(BaseApiResponseWithError.class, "https://api.digitalocean.com/v2/domains/{domainName}/records/{id}", uriVariable);
     }
 
+    private <R> ResponseEntity<R> exchange(RequestEntity<?> request, Class<R> responseType, Supplier<R> alreadyExecuted) {
+        return withRetries(request, it -> httpClientService.getRestTemplate().exchange(it, responseType), alreadyExecuted);
+    }
+
+    private <R> ResponseEntity<R> withRetries(RequestEntity<?> request, Function<RequestEntity<?>, ResponseEntity<R>> call) {
+        return withRetries(request, call, null);
+    }
+
+    /**
+     * Execute the call and retry it when it is possible.
+     *
+     * @param request         the request
+     * @param call            executes the request
+     * @param alreadyExecuted (optional) for a call that cannot be retried on a server error: checks if it was executed and gives the result if so.
+     *                        When it gives null, the call is retried.
+     * @param <R>             the type of the body
+     * @return the response
+     */
+    private <R> ResponseEntity<R> withRetries(RequestEntity<?> request, Function<RequestEntity<?>, ResponseEntity<R>> call, Supplier<R> alreadyExecuted) {
+        for (int attempt = 1; ; ++attempt) {
+            rateLimiter.acquire();
+            HttpHeaders responseHeaders = null;
+            var checkAlreadyExecuted = false;
+            try {
+                var response = call.apply(request);
+                responseHeaders = response.getHeaders();
+                return response;
+            } catch (HttpStatusCodeException e) {
+                responseHeaders = e.getResponseHeaders();
+                var retryable = isRetryable(request.getMethod(), e.getRawStatusCode());
+                checkAlreadyExecuted = !retryable && alreadyExecuted != null && e.getRawStatusCode() >= 500;
+                if ((!retryable && !checkAlreadyExecuted) || attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                var retryAfter = responseHeaders == null ? null : responseHeaders.getFirst(HttpHeaders.RETRY_AFTER);
+                var delayMs = DigitalOceanRateLimiter.retryDelayMs(retryAfter, attempt, System.currentTimeMillis());
+                logger.warn("Got {} from Digital Ocean for {} {}. Retrying in {} ms (attempt {}/{})", e.getRawStatusCode(), request.getMethod(), request.getUrl().getPath(), delayMs, attempt, MAX_ATTEMPTS);
+                rateLimiter.pause(delayMs);
+            } finally {
+                rateLimiter.release(responseHeaders);
+            }
+
+            // After the release since it makes its own calls
+            if (checkAlreadyExecuted) {
+                var body = alreadyExecuted.get();
+                if (body != null) {
+                    return ResponseEntity.ok(body);
+                }
+            }
+        }
+    }
+
     private String toName(String fullName, String domainName) {
         if (fullName.endsWith("." + domainName)) {
             return fullName.substring(0, fullName.length() - domainName.length() - 1);
@@ -112,7 +354,7 @@ public class DigitalOceanCustomClient extends AbstractBasics {
                     .uriVariables(uriVariables)
                     .queryParams(queryParamMultimap)
                     .toUriString();
-            return restTemplate.exchange(RequestEntity.get(new URI(uri)).headers(headers).build(), responseType)
+            return exchange(RequestEntity.get(new URI(uri)).headers(headers).build(), responseType, null)
                     .getBody();
         } catch (HttpClientErrorException e) {
             return JsonTools.readFromString(e.getResponseBodyAsString(), responseType);
@@ -128,7 +370,7 @@ public class DigitalOceanCustomClient extends AbstractBasics {
             var uri = UriComponentsBuilder.fromHttpUrl(url)
                     .uriVariables(uriVariables)
                     .toUriString();
-            R body = restTemplate.exchange(RequestEntity.delete(new URI(uri)).headers(headers).build(), responseType)
+            R body = exchange(RequestEntity.delete(new URI(uri)).headers(headers).build(), responseType, null)
                     .getBody();
             if (body == null) {
                 body = responseType.getDeclaredConstructor().newInstance();
@@ -141,14 +383,14 @@ public class DigitalOceanCustomClient extends AbstractBasics {
         }
     }
 
-    private <R> R post(Class<R> responseType, String url, Map<String, Object> uriVariables, Object data) {
+    private <R> R post(Class<R> responseType, String url, Map<String, Object> uriVariables, Object data, Supplier<R> alreadyExecuted) {
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(digitalOceanToken);
         try {
             var uri = UriComponentsBuilder.fromHttpUrl(url)
                     .uriVariables(uriVariables)
                     .toUriString();
-            return restTemplate.exchange(RequestEntity.post(new URI(uri)).headers(headers).body(data), responseType)
+            return exchange(RequestEntity.post(new URI(uri)).headers(headers).body(data), responseType, alreadyExecuted)
                     .getBody();
         } catch (HttpClientErrorException e) {
             return JsonTools.readFromString(e.getResponseBodyAsString(), responseType);
@@ -0,0 +1,137 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.digitaloceanclient;
+
+import com.foilen.clouds.manager.CliException;
+import com.foilen.smalltools.tools.AbstractBasics;
+import org.springframework.http.HttpHeaders;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Keeps track of the Digital Ocean API budget given by the "ratelimit-remaining" and "ratelimit-reset" headers. The requests are let through as long as
+ * the remaining budget minus the requests in flight stays above the reserve. Otherwise, they wait for the reset instead of failing.
+ */
+public class DigitalOceanRateLimiter extends AbstractBasics {
+
+    private static final long MIN_WAIT_MS = 100;
+    private static final long MAX_WAIT_MS = 60000;
+    private static final long MAX_BACKOFF_MS = 30000;
+
+    private final int reserve;
+
+    private long remaining = -1;
+    private long resetEpochMs;
+    private long pausedUntilMs;
+    private int inFlight;
+
+    public DigitalOceanRateLimiter(int reserve) {
+        this.reserve = reserve;
+    }
+
+    /**
+     * Get the time to wait before retrying a request that got a 429 or a 5xx.
+     *
+     * @param retryAfter the "Retry-After" header (seconds or http date) if any
+     * @param attempt    the attempt that failed (starting at 1)
+     * @param nowMs      the current time
+     * @return the time to wait in ms
+     */
+    protected static long retryDelayMs(String retryAfter, int attempt, long nowMs) {
+        if (retryAfter != null) {
+            try {
+                return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+            } catch (NumberFormatException e) {
+                try {
+                    var date = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                    return Math.max(0, date.toInstant().toEpochMilli() - nowMs);
+                } catch (DateTimeParseException e2) {
+                    // Use the backoff
+                }
+            }
+        }
+        return Math.min(MAX_BACKOFF_MS, 1000L << Math.min(attempt - 1, 15));
+    }
+
+    private static Long parseLong(HttpHeaders headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        var value = headers.getFirst(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Wait until there is enough budget to send a request.
+     */
+    public synchronized void acquire() {
+        try {
+            long now;
+            while (!canStart(now = System.currentTimeMillis())) {
+                var waitMs = Math.min(MAX_WAIT_MS, Math.max(MIN_WAIT_MS, (now < pausedUntilMs ? pausedUntilMs : resetEpochMs) - now));
+                logger.info("Waiting {} ms for the Digital Ocean rate limit (remaining {} ; in flight {})", waitMs, remaining, inFlight);
+                wait(waitMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CliException("Interrupted while waiting for the Digital Ocean rate limit", e);
+        }
+        ++inFlight;
+    }
+
+    protected synchronized boolean canStart(long nowMs) {
+        if (nowMs < pausedUntilMs) {
+            return false;
+        }
+        if (remaining < 0 || nowMs >= resetEpochMs) {
+            return true;
+        }
+        return remaining - inFlight > reserve;
+    }
+
+    /**
+     * Stop sending any request for some time.
+     *
+     * @param delayMs the time to wait
+     */
+    public synchronized void pause(long delayMs) {
+        pausedUntilMs = Math.max(pausedUntilMs, System.currentTimeMillis() + delayMs);
+    }
+
+    /**
+     * Release a request that was acquired and update the budget with the response headers.
+     *
+     * @param responseHeaders the headers of the response (null if there was no response)
+     */
+    public synchronized void release(HttpHeaders responseHeaders) {
+        --inFlight;
+        update(parseLong(responseHeaders, "ratelimit-remaining"), parseLong(responseHeaders, "ratelimit-reset"));
+        notifyAll();
+    }
+
+    protected synchronized void update(Long remaining, Long resetEpochSeconds) {
+        if (remaining != null) {
+            this.remaining = remaining;
+        }
+        if (resetEpochSeconds != null) {
+            this.resetEpochMs = resetEpochSeconds * 1000;
+        }
+    }
+
+}
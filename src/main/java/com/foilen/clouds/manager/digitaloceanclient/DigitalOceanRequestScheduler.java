@@ -0,0 +1,75 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.digitaloceanclient;
+
+import com.foilen.clouds.manager.CliException;
+import com.foilen.smalltools.tools.AbstractBasics;
+import com.foilen.smalltools.tools.SystemTools;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs calls to the Digital Ocean API in parallel. The budget of requests is enforced by the {@link DigitalOceanRateLimiter} of the client.
+ */
+@Component
+public class DigitalOceanRequestScheduler extends AbstractBasics {
+
+    private final int concurrency = Integer.parseInt(SystemTools.getPropertyOrEnvironment("DIGITALOCEAN_API_CONCURRENCY", "8"));
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(concurrency, new ThreadFactoryBuilder().setNameFormat("digitalocean-api-%d").setDaemon(true).build());
+
+    /**
+     * Get the result of a submitted call.
+     *
+     * @param future the future
+     * @param <R>    the type of result
+     * @return the result
+     */
+    public static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CliException("Problem calling Digital Ocean", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Start all the calls.
+     *
+     * @param items  the items to process
+     * @param action the call to do for each item
+     * @param <T>    the type of item
+     * @param <R>    the type of result
+     * @return the futures in the same order as the items
+     */
+    public <T, R> List<CompletableFuture<R>> submitAll(List<T> items, Function<T, R> action) {
+        return items.stream()
+                .map(item -> CompletableFuture.supplyAsync(() -> action.apply(item), executor))
+                .collect(Collectors.toList());
+    }
+
+}
@@ -9,12 +9,15 @@
  */
 package com.foilen.clouds.manager.digitaloceanclient.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.foilen.smalltools.restapi.model.AbstractApiBaseWithAdditionalProperties;
 
 public class DigitalOceanDomain extends AbstractApiBaseWithAdditionalProperties {
 
     private String name;
     private long ttl;
+    @JsonProperty("zone_file")
+    private String zoneFile;
 
     public String getName() {
         return name;
@@ -31,4 +34,12 @@ public class DigitalOceanDomain extends AbstractApiBaseWithAdditionalProperties
     public void setTtl(long ttl) {
         this.ttl = ttl;
     }
+
+    public String getZoneFile() {
+        return zoneFile;
+    }
+
+    public void setZoneFile(String zoneFile) {
+        this.zoneFile = zoneFile;
+    }
 }
@@ -9,15 +9,17 @@
  */
 package com.foilen.clouds.manager.digitaloceanclient.model;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
-
 import java.util.ArrayList;
 import java.util.List;
 
-public class DigitalOceanDomainRecordsResponse extends BaseApiResponseWithError {
+/**
+ * One page of domain records with the pagination details.
+ */
+public class DigitalOceanDomainRecordsPage {
 
-    @JsonProperty("domain_records")
     private List<DigitalOceanDomainRecord> domainRecords = new ArrayList<>();
+    private String nextUrl;
+    private long total = -1;
 
     public List<DigitalOceanDomainRecord> getDomainRecords() {
         return domainRecords;
@@ -27,4 +29,20 @@ public class DigitalOceanDomainRecordsResponse extends BaseApiResponseWithError
         this.domainRecords = domainRecords;
     }
 
+    public String getNextUrl() {
+        return nextUrl;
+    }
+
+    public void setNextUrl(String nextUrl) {
+        this.nextUrl = nextUrl;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
 }
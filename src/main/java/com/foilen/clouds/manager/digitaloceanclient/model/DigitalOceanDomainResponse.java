@@ -0,0 +1,24 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.digitaloceanclient.model;
+
+public class DigitalOceanDomainResponse extends BaseApiResponseWithError {
+
+    private DigitalOceanDomain domain;
+
+    public DigitalOceanDomain getDomain() {
+        return domain;
+    }
+
+    public void setDomain(DigitalOceanDomain domain) {
+        this.domain = domain;
+    }
+
+}
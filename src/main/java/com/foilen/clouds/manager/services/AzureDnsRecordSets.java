@@ -0,0 +1,92 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.azure.resourcemanager.dns.fluent.models.RecordSetInner;
+import com.azure.resourcemanager.dns.models.*;
+import com.foilen.clouds.manager.commands.model.RawDnsEntry;
+import com.foilen.smalltools.tools.AssertTools;
+import com.google.common.base.Splitter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Converts the raw entries to the record sets that are sent directly to Azure.
+ */
+public class AzureDnsRecordSets {
+
+    public static final Set<String> SUPPORTED_TYPES = Set.of("A", "AAAA", "CNAME", "MX", "NS", "SRV", "TXT");
+
+    private static final int TXT_MAX_CHUNK_LENGTH = 255;
+
+    /**
+     * Create the whole record set for a name and type.
+     *
+     * @param type          the type of record
+     * @param rawDnsEntries all the entries for the same name and type (must not be empty)
+     * @return the record set
+     */
+    public static RecordSetInner toRecordSet(String type, List<RawDnsEntry> rawDnsEntries) {
+
+        AssertTools.assertTrue(SUPPORTED_TYPES.contains(type), "Type " + type + " is not supported");
+        AssertTools.assertFalse(rawDnsEntries.isEmpty(), "There must be at least one entry");
+
+        var recordSet = new RecordSetInner()
+                .withTtl(rawDnsEntries.stream().map(RawDnsEntry::getTtl).reduce(172800L, Math::min));
+
+        switch (type) {
+            case "A":
+                recordSet.withARecords(rawDnsEntries.stream()
+                        .map(it -> new ARecord().withIpv4Address(it.getDetails()))
+                        .collect(Collectors.toList()));
+                break;
+            case "AAAA":
+                recordSet.withAaaaRecords(rawDnsEntries.stream()
+                        .map(it -> new AaaaRecord().withIpv6Address(it.getDetails()))
+                        .collect(Collectors.toList()));
+                break;
+            case "CNAME":
+                AssertTools.assertTrue(rawDnsEntries.size() == 1, "You can only have 1 CNAME entry");
+                recordSet.withCnameRecord(new CnameRecord().withCname(rawDnsEntries.get(0).getDetails()));
+                break;
+            case "MX":
+                recordSet.withMxRecords(rawDnsEntries.stream()
+                        .map(it -> new MxRecord().withExchange(it.getDetails()).withPreference(it.getPriority()))
+                        .collect(Collectors.toList()));
+                break;
+            case "NS":
+                recordSet.withNsRecords(rawDnsEntries.stream()
+                        .map(it -> new NsRecord().withNsdname(it.getDetails()))
+                        .collect(Collectors.toList()));
+                break;
+            case "SRV":
+                recordSet.withSrvRecords(rawDnsEntries.stream()
+                        .map(it -> new SrvRecord()
+                                .withTarget(it.getDetails())
+                                .withPort(it.getPort())
+                                .withPriority(it.getPriority())
+                                .withWeight(it.getWeight())
+                        )
+                        .collect(Collectors.toList()));
+                break;
+            case "TXT":
+                // A TXT string cannot be longer than 255 characters
+                recordSet.withTxtRecords(rawDnsEntries.stream()
+                        .map(it -> new TxtRecord().withValue(Splitter.fixedLength(TXT_MAX_CHUNK_LENGTH).splitToList(it.getDetails())))
+                        .collect(Collectors.toList()));
+                break;
+        }
+
+        return recordSet;
+    }
+
+}
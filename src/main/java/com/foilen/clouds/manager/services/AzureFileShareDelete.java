@@ -0,0 +1,151 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.azure.storage.file.share.ShareDirectoryClient;
+import com.azure.storage.file.share.models.ShareFileItem;
+import com.foilen.clouds.manager.CliException;
+import com.foilen.smalltools.tools.AbstractBasics;
+import com.foilen.smalltools.tools.AssertTools;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes a folder of an Azure File Share with a pool of workers. The files of each directory are deleted in parallel and the directories are deleted
+ * bottom-up once they are empty.
+ */
+public class AzureFileShareDelete extends AbstractBasics {
+
+    private static final long PROGRESS_EVERY_FILES = 1000;
+
+    public static class Stats {
+
+        private final long deletedFiles;
+        private final long deletedDirectories;
+        private final long durationMs;
+
+        public Stats(long deletedFiles, long deletedDirectories, long durationMs) {
+            this.deletedFiles = deletedFiles;
+            this.deletedDirectories = deletedDirectories;
+            this.durationMs = durationMs;
+        }
+
+        public long getDeletedFiles() {
+            return deletedFiles;
+        }
+
+        public long getDeletedDirectories() {
+            return deletedDirectories;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        public double getFilesPerSecond() {
+            if (durationMs == 0) {
+                return 0;
+            }
+            return deletedFiles / (durationMs / 1000.0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Deleted %d files and %d folders in %.1f seconds: %.1f files/s",
+                    deletedFiles, deletedDirectories, durationMs / 1000.0, getFilesPerSecond());
+        }
+    }
+
+    private final int parallelism;
+
+    private final AtomicLong deletedFiles = new AtomicLong();
+    private final AtomicLong deletedDirectories = new AtomicLong();
+
+    private ExecutorService executor;
+    private long startTime;
+
+    public AzureFileShareDelete(int parallelism) {
+        AssertTools.assertTrue(parallelism >= 1, "The parallelism must be at least 1");
+        this.parallelism = parallelism;
+    }
+
+    private static String subPath(String path, String name) {
+        return path.isEmpty() ? name : path + "/" + name;
+    }
+
+    /**
+     * Delete everything in the folder.
+     *
+     * @param directoryClient the folder
+     * @param path            the path of the folder (for the logs)
+     * @param deleteFolder    true to also delete the folder itself
+     * @return the stats
+     */
+    public Stats delete(ShareDirectoryClient directoryClient, String path, boolean deleteFolder) {
+
+        startTime = System.currentTimeMillis();
+        executor = Executors.newFixedThreadPool(parallelism, new ThreadFactoryBuilder().setNameFormat("share-delete-%d").setDaemon(true).build());
+        try {
+            var future = deleteContent(directoryClient, path);
+            if (deleteFolder) {
+                future = future.thenRun(() -> {
+                    logger.info("Delete folder {}", path);
+                    directoryClient.delete();
+                    deletedDirectories.incrementAndGet();
+                });
+            }
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CliException("Problem deleting " + path, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new Stats(deletedFiles.get(), deletedDirectories.get(), System.currentTimeMillis() - startTime);
+    }
+
+    private CompletableFuture<Void> deleteContent(ShareDirectoryClient directoryClient, String path) {
+        return CompletableFuture.supplyAsync(() -> directoryClient.listFilesAndDirectories().stream().collect(Collectors.toList()), executor)
+                .thenCompose(items -> CompletableFuture.allOf(items.stream()
+                        .map(item -> deleteItem(directoryClient, path, item))
+                        .toArray(CompletableFuture[]::new)));
+    }
+
+    private CompletableFuture<Void> deleteItem(ShareDirectoryClient directoryClient, String path, ShareFileItem item) {
+        var itemPath = subPath(path, item.getName());
+        if (item.isDirectory()) {
+            return deleteContent(directoryClient.getSubdirectoryClient(item.getName()), itemPath)
+                    .thenRunAsync(() -> {
+                        logger.debug("Delete folder {}", itemPath);
+                        directoryClient.deleteSubdirectory(item.getName());
+                        deletedDirectories.incrementAndGet();
+                    }, executor);
+        }
+
+        return CompletableFuture.runAsync(() -> {
+            logger.debug("Delete file {}", itemPath);
+            directoryClient.deleteFile(item.getName());
+            var count = deletedFiles.incrementAndGet();
+            if (count % PROGRESS_EVERY_FILES == 0) {
+                logger.info("Deleted {} files ({} files/s)", count, count * 1000 / Math.max(1, System.currentTimeMillis() - startTime));
+            }
+        }, executor);
+    }
+
+}
@@ -0,0 +1,556 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.azure.core.util.Context;
+import com.azure.storage.file.share.ShareClient;
+import com.azure.storage.file.share.ShareDirectoryClient;
+import com.azure.storage.file.share.ShareFileClient;
+import com.azure.storage.file.share.models.ShareErrorCode;
+import com.azure.storage.file.share.models.ShareFileItem;
+import com.azure.storage.file.share.models.ShareStorageException;
+import com.azure.storage.file.share.options.ShareFileUploadRangeOptions;
+import com.azure.storage.file.share.options.ShareListFilesAndDirectoriesOptions;
+import com.foilen.clouds.manager.CliException;
+import com.foilen.clouds.manager.services.model.json.FileShareSyncManifest;
+import com.foilen.clouds.manager.services.model.json.FileShareSyncManifestEntry;
+import com.foilen.smalltools.listscomparator.ListComparatorHandler;
+import com.foilen.smalltools.listscomparator.ListsComparator;
+import com.foilen.smalltools.tools.AbstractBasics;
+import com.foilen.smalltools.tools.AssertTools;
+import com.foilen.smalltools.tools.StringTools;
+import com.foilen.smalltools.tuple.Tuple2;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Syncs a local folder to a folder in an Azure File Share.
+ * <p>
+ * The calling thread walks the local and remote trees and creates the directories while the files are uploaded by a pool of workers. The big files are
+ * split in ranges that are uploaded in parallel.
+ * <p>
+ * When a manifest of the last successful sync is provided, only the local tree is walked: the files with the same size and modification date are skipped
+ * and the others are hashed to know if they really changed. The remote tree is only listed when there is no manifest or when verifying.
+ */
+public class AzureFileShareSync extends AbstractBasics {
+
+    public static final int MAX_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    public static class Stats {
+
+        private final long uploadedFiles;
+        private final long uploadedBytes;
+        private final long skippedFiles;
+        private final long deletedFiles;
+        private final long durationMs;
+
+        public Stats(long uploadedFiles, long uploadedBytes, long skippedFiles, long deletedFiles, long durationMs) {
+            this.uploadedFiles = uploadedFiles;
+            this.uploadedBytes = uploadedBytes;
+            this.skippedFiles = skippedFiles;
+            this.deletedFiles = deletedFiles;
+            this.durationMs = durationMs;
+        }
+
+        public long getUploadedFiles() {
+            return uploadedFiles;
+        }
+
+        public long getUploadedBytes() {
+            return uploadedBytes;
+        }
+
+        public long getSkippedFiles() {
+            return skippedFiles;
+        }
+
+        public long getDeletedFiles() {
+            return deletedFiles;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        public double getMegabytesPerSecond() {
+            if (durationMs == 0) {
+                return 0;
+            }
+            return uploadedBytes / 1024.0 / 1024.0 / (durationMs / 1000.0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Uploaded %d files (%.2f MB), skipped %d unchanged files and deleted %d files in %.1f seconds: %.2f MB/s",
+                    uploadedFiles, uploadedBytes / 1024.0 / 1024.0, skippedFiles, deletedFiles, durationMs / 1000.0, getMegabytesPerSecond());
+        }
+    }
+
+    private final ShareClient shareClient;
+    private final int parallelism;
+    private final int chunkSize;
+
+    private FileShareSyncManifest previousManifest;
+    private boolean verify;
+    private FileShareSyncManifest manifest;
+
+    private final AtomicLong uploadedFiles = new AtomicLong();
+    private final AtomicLong uploadedBytes = new AtomicLong();
+    private final AtomicLong skippedFiles = new AtomicLong();
+    private final AtomicLong deletedFiles = new AtomicLong();
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+    private ExecutorService fileExecutor;
+    private ExecutorService rangeExecutor;
+    private Semaphore pendingFiles;
+    private int maxPendingFiles;
+
+    /**
+     * @param shareClient the client of the share (used for all the files)
+     * @param parallelism the amount of files and the amount of ranges that are uploaded at the same time
+     * @param chunkSize   the size of the ranges when splitting the big files (maximum 4 MiB)
+     */
+    public AzureFileShareSync(ShareClient shareClient, int parallelism, int chunkSize) {
+        AssertTools.assertTrue(parallelism >= 1, "The parallelism must be at least 1");
+        AssertTools.assertTrue(chunkSize >= 1 && chunkSize <= MAX_CHUNK_SIZE, "The chunk size must be between 1 byte and 4 MiB");
+        this.shareClient = shareClient;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    private static String subPath(String path, String name) {
+        return path.isEmpty() ? name : path + "/" + name;
+    }
+
+    private static boolean isNotFound(ShareStorageException e) {
+        return e.getStatusCode() == 404;
+    }
+
+    /**
+     * Tell if the remote tree must be listed.
+     *
+     * @param previousManifest the manifest of the last successful sync or null if none
+     * @param verify           true to list the remote tree even if there is a manifest
+     * @return true to compare with the remote files ; false to compare with the manifest
+     */
+    protected static boolean isCompareWithRemote(FileShareSyncManifest previousManifest, boolean verify) {
+        return previousManifest == null || verify;
+    }
+
+    /**
+     * Tell if a local file is the same as when the manifest entry was recorded without reading it.
+     *
+     * @param previousEntry the entry in the manifest or null if none
+     * @param localFile     the local file
+     * @return true if it has the same size and modification date
+     */
+    protected static boolean isUnchangedSinceManifest(FileShareSyncManifestEntry previousEntry, File localFile) {
+        return previousEntry != null && previousEntry.getSize() == localFile.length() && previousEntry.getLastModified() == localFile.lastModified();
+    }
+
+    /**
+     * Tell why a local file that is also on the share must be uploaded.
+     *
+     * @param remoteLastModifiedSeconds the last modification date of the remote file in seconds
+     * @param remoteSize                the size of the remote file
+     * @param remoteETag                the ETag of the remote file
+     * @param localFile                 the local file
+     * @param previousEntry             the entry in the manifest of the last sync or null if none
+     * @return the reason or null if it can be skipped
+     */
+    protected static String uploadReason(long remoteLastModifiedSeconds, long remoteSize, String remoteETag, File localFile, FileShareSyncManifestEntry previousEntry) {
+        if (remoteLastModifiedSeconds < localFile.lastModified() / 1000) {
+            return "the last modification date is locally more recent";
+        }
+        if (remoteSize != localFile.length()) {
+            return "the size are different";
+        }
+        if (previousEntry != null && previousEntry.getETag() != null && remoteETag != null && !StringTools.safeEquals(previousEntry.getETag(), remoteETag)) {
+            return "it was changed remotely since the last sync";
+        }
+        return null;
+    }
+
+    /**
+     * Split a file in the ranges to upload.
+     *
+     * @param size      the size of the file
+     * @param chunkSize the maximum size of a range
+     * @return the offset and length of each range (none for an empty file)
+     */
+    protected static List<Tuple2<Long, Integer>> ranges(long size, int chunkSize) {
+        List<Tuple2<Long, Integer>> ranges = new ArrayList<>();
+        for (long offset = 0; offset < size; offset += chunkSize) {
+            ranges.add(new Tuple2<>(offset, (int) Math.min(chunkSize, size - offset)));
+        }
+        return ranges;
+    }
+
+    /**
+     * @param previousManifest the manifest of the last successful sync or null if none
+     * @return this
+     */
+    public AzureFileShareSync setPreviousManifest(FileShareSyncManifest previousManifest) {
+        this.previousManifest = previousManifest;
+        return this;
+    }
+
+    /**
+     * @param verify true to list the remote tree even if there is a manifest
+     * @return this
+     */
+    public AzureFileShareSync setVerify(boolean verify) {
+        this.verify = verify;
+        return this;
+    }
+
+    /**
+     * @return the manifest to keep for the next sync
+     */
+    public FileShareSyncManifest getManifest() {
+        return manifest;
+    }
+
+    public Stats sync(String sourceFolder, String targetFolder) {
+
+        var startTime = System.currentTimeMillis();
+
+        fileExecutor = Executors.newFixedThreadPool(parallelism, new ThreadFactoryBuilder().setNameFormat("share-upload-%d").setDaemon(true).build());
+        rangeExecutor = Executors.newFixedThreadPool(parallelism, new ThreadFactoryBuilder().setNameFormat("share-upload-range-%d").setDaemon(true).build());
+        maxPendingFiles = parallelism * 4;
+        pendingFiles = new Semaphore(maxPendingFiles);
+        try {
+            var directoryClient = targetFolder.isEmpty() ? shareClient.getRootDirectoryClient() : shareClient.getDirectoryClient(targetFolder);
+            if (isCompareWithRemote(previousManifest, verify)) {
+                logger.info("Compare with the remote files");
+                manifest = new FileShareSyncManifest().setSourceFolder(new File(sourceFolder).getAbsolutePath());
+                syncDirectory(new File(sourceFolder), directoryClient, targetFolder, true);
+            } else {
+                logger.info("Compare with the manifest of the last sync");
+                manifest = previousManifest;
+                Set<String> seenDirectories = new HashSet<>();
+                Set<String> seenFiles = new HashSet<>();
+                syncDirectoryFromManifest(new File(sourceFolder), directoryClient, targetFolder, seenDirectories, seenFiles);
+                deleteNotSeen(seenDirectories, seenFiles);
+            }
+
+            // Wait for all the uploads to complete
+            pendingFiles.acquireUninterruptibly(maxPendingFiles);
+        } finally {
+            fileExecutor.shutdownNow();
+            rangeExecutor.shutdownNow();
+        }
+
+        var failure = firstFailure.get();
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure != null) {
+            throw new CliException("Problem while uploading", failure);
+        }
+
+        return new Stats(uploadedFiles.get(), uploadedBytes.get(), skippedFiles.get(), deletedFiles.get(), System.currentTimeMillis() - startTime);
+    }
+
+    private void syncDirectory(File sourceFolder, ShareDirectoryClient directoryClient, String targetFolder, boolean remoteExists) {
+
+        if (firstFailure.get() != null) {
+            return;
+        }
+
+        manifest.getDirectories().add(targetFolder);
+        var localFiles = listLocalFiles(sourceFolder);
+
+        // Nothing to compare with in a directory we just created
+        if (!remoteExists) {
+            for (var localFile : localFiles) {
+                create(directoryClient, targetFolder, localFile);
+            }
+            return;
+        }
+
+        ListsComparator.compareStreams(
+                directoryClient.listFilesAndDirectories(new ShareListFilesAndDirectoriesOptions().setIncludeTimestamps(true).setIncludeETag(true), null, Context.NONE).stream().sorted(Comparator.comparing(ShareFileItem::getName)),
+                Arrays.stream(localFiles),
+                (a, b) -> a.getName().compareTo(b.getName()),
+                new ListComparatorHandler<>() {
+                    @Override
+                    public void both(ShareFileItem current, File desired) {
+
+                        // Check that it is same type (if not, delete and recreate)
+                        if (current.isDirectory() != desired.isDirectory()) {
+                            delete(directoryClient, targetFolder, current);
+                            create(directoryClient, targetFolder, desired);
+                            return;
+                        }
+
+                        // Same type
+                        var path = subPath(targetFolder, desired.getName());
+                        if (current.isDirectory()) {
+                            syncDirectory(desired, directoryClient.getSubdirectoryClient(desired.getName()), path, true);
+                        } else {
+                            // Update the file if size or modification date are not the same or if it was changed remotely since the last sync
+                            var currentETag = current.getProperties().getETag();
+                            var previousEntry = previousManifest == null ? null : previousManifest.getFiles().get(path);
+                            var uploadReason = uploadReason(current.getProperties().getLastModified().toEpochSecond(), current.getFileSize(), currentETag, desired, previousEntry);
+                            if (uploadReason != null) {
+                                logger.info("Upload file in {}/{} because {}", targetFolder, desired.getName(), uploadReason);
+                                submitUpload(directoryClient, targetFolder, desired);
+                            } else {
+                                skippedFiles.incrementAndGet();
+                                submitRecord(path, desired, previousEntry, currentETag);
+                            }
+                        }
+
+                    }
+
+                    @Override
+                    public void leftOnly(ShareFileItem current) {
+                        delete(directoryClient, targetFolder, current);
+                    }
+
+                    @Override
+                    public void rightOnly(File desired) {
+                        create(directoryClient, targetFolder, desired);
+                    }
+                }
+        );
+
+    }
+
+    private void syncDirectoryFromManifest(File sourceFolder, ShareDirectoryClient directoryClient, String targetFolder, Set<String> seenDirectories, Set<String> seenFiles) {
+
+        if (firstFailure.get() != null) {
+            return;
+        }
+
+        seenDirectories.add(targetFolder);
+        if (manifest.getDirectories().add(targetFolder)) {
+            logger.info("Create folder {}", targetFolder);
+            try {
+                directoryClient.create();
+            } catch (ShareStorageException e) {
+                if (e.getErrorCode() != ShareErrorCode.RESOURCE_ALREADY_EXISTS) {
+                    throw e;
+                }
+            }
+        }
+
+        for (var localFile : listLocalFiles(sourceFolder)) {
+            var path = subPath(targetFolder, localFile.getName());
+            if (localFile.isDirectory()) {
+                syncDirectoryFromManifest(localFile, directoryClient.getSubdirectoryClient(localFile.getName()), path, seenDirectories, seenFiles);
+                continue;
+            }
+
+            seenFiles.add(path);
+            var previousEntry = manifest.getFiles().get(path);
+            if (isUnchangedSinceManifest(previousEntry, localFile)) {
+                skippedFiles.incrementAndGet();
+                continue;
+            }
+
+            // Changed or new; check the content
+            submit(targetFolder, localFile, () -> {
+                var sha256 = hash(localFile);
+                if (previousEntry != null && StringTools.safeEquals(previousEntry.getSha256(), sha256)) {
+                    skippedFiles.incrementAndGet();
+                    manifest.getFiles().put(path, entry(localFile, sha256, previousEntry.getETag()));
+                } else {
+                    logger.info("Upload file in {}/{}", targetFolder, localFile.getName());
+                    var eTag = upload(directoryClient.getFileClient(localFile.getName()), localFile);
+                    manifest.getFiles().put(path, entry(localFile, sha256, eTag));
+                }
+            });
+        }
+
+    }
+
+    private void deleteNotSeen(Set<String> seenDirectories, Set<String> seenFiles) {
+
+        var filesToDelete = manifest.getFiles().keySet().stream()
+                .filter(it -> !seenFiles.contains(it))
+                .collect(Collectors.toList());
+        for (var path : filesToDelete) {
+            logger.info("Delete file {}", path);
+            try {
+                shareClient.getFileClient(path).delete();
+            } catch (ShareStorageException e) {
+                if (!isNotFound(e)) {
+                    throw e;
+                }
+            }
+            manifest.getFiles().remove(path);
+            deletedFiles.incrementAndGet();
+        }
+
+        // The deepest first
+        var directoriesToDelete = manifest.getDirectories().stream()
+                .filter(it -> !seenDirectories.contains(it))
+                .sorted(Comparator.comparing(String::length).reversed())
+                .collect(Collectors.toList());
+        for (var path : directoriesToDelete) {
+            logger.info("Delete folder {}", path);
+            try {
+                shareClient.getDirectoryClient(path).delete();
+            } catch (ShareStorageException e) {
+                if (!isNotFound(e)) {
+                    logger.warn("Could not delete folder {}. Use --verify to sync with what is really on the share. Error: [{}]", path, e.getMessage());
+                }
+            }
+            manifest.getDirectories().remove(path);
+        }
+
+    }
+
+    private File[] listLocalFiles(File sourceFolder) {
+        var localFiles = sourceFolder.listFiles();
+        if (localFiles == null) {
+            throw new CliException("Cannot list the local folder " + sourceFolder.getAbsolutePath());
+        }
+        Arrays.sort(localFiles, Comparator.comparing(File::getName));
+        return localFiles;
+    }
+
+    private void create(ShareDirectoryClient directoryClient, String targetFolder, File desired) {
+        if (desired.isDirectory()) {
+            logger.info("Create folder {}/{}", targetFolder, desired.getName());
+            var subDirectoryClient = directoryClient.createSubdirectory(desired.getName());
+            syncDirectory(desired, subDirectoryClient, subPath(targetFolder, desired.getName()), false);
+        } else {
+            logger.info("Upload file in {}/{}", targetFolder, desired.getName());
+            submitUpload(directoryClient, targetFolder, desired);
+        }
+    }
+
+    private void delete(ShareDirectoryClient directoryClient, String targetFolder, ShareFileItem toDelete) {
+        if (toDelete.isDirectory()) {
+            var stats = new AzureFileShareDelete(parallelism).delete(directoryClient.getSubdirectoryClient(toDelete.getName()), subPath(targetFolder, toDelete.getName()), true);
+            deletedFiles.addAndGet(stats.getDeletedFiles());
+        } else {
+            logger.info("Delete file {}/{}", targetFolder, toDelete.getName());
+            directoryClient.deleteFile(toDelete.getName());
+            deletedFiles.incrementAndGet();
+        }
+    }
+
+    private FileShareSyncManifestEntry entry(File file, String sha256, String eTag) {
+        return new FileShareSyncManifestEntry()
+                .setSize(file.length())
+                .setLastModified(file.lastModified())
+                .setSha256(sha256)
+                .setETag(eTag);
+    }
+
+    private String hash(File file) {
+        try {
+            return Files.asByteSource(file).hash(Hashing.sha256()).toString();
+        } catch (IOException e) {
+            throw new CliException("Problem reading " + file.getAbsolutePath(), e);
+        }
+    }
+
+    private void submitRecord(String path, File file, FileShareSyncManifestEntry previousEntry, String eTag) {
+        if (isUnchangedSinceManifest(previousEntry, file)) {
+            manifest.getFiles().put(path, entry(file, previousEntry.getSha256(), eTag));
+            return;
+        }
+        submit(path, file, () -> manifest.getFiles().put(path, entry(file, hash(file), eTag)));
+    }
+
+    private void submitUpload(ShareDirectoryClient directoryClient, String targetFolder, File file) {
+        var path = subPath(targetFolder, file.getName());
+        submit(targetFolder, file, () -> {
+            var sha256 = hash(file);
+            var eTag = upload(directoryClient.getFileClient(file.getName()), file);
+            manifest.getFiles().put(path, entry(file, sha256, eTag));
+        });
+    }
+
+    private void submit(String targetFolder, File file, Runnable task) {
+        pendingFiles.acquireUninterruptibly();
+        try {
+            fileExecutor.execute(() -> {
+                try {
+                    if (firstFailure.get() == null) {
+                        task.run();
+                    }
+                } catch (Throwable e) {
+                    logger.error("Problem with {}/{}", targetFolder, file.getName(), e);
+                    firstFailure.compareAndSet(null, e);
+                } finally {
+                    pendingFiles.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingFiles.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Upload the file.
+     *
+     * @param fileClient the remote file
+     * @param file       the local file
+     * @return the ETag of the remote file
+     */
+    private String upload(ShareFileClient fileClient, File file) {
+
+        long size = file.length();
+        var eTag = fileClient.create(size).getETag();
+
+        var ranges = ranges(size, chunkSize);
+        if (ranges.size() == 1) {
+            eTag = uploadRange(fileClient, file, 0, (int) size);
+        } else if (ranges.size() > 1) {
+            List<CompletableFuture<String>> rangeFutures = new ArrayList<>();
+            for (var range : ranges) {
+                rangeFutures.add(CompletableFuture.supplyAsync(() -> uploadRange(fileClient, file, range.getA(), range.getB()), rangeExecutor));
+            }
+            try {
+                CompletableFuture.allOf(rangeFutures.toArray(new CompletableFuture[0])).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+
+            // The ranges can complete in any order
+            eTag = fileClient.getProperties().getETag();
+        }
+
+        uploadedFiles.incrementAndGet();
+        uploadedBytes.addAndGet(size);
+        return eTag;
+    }
+
+    private String uploadRange(ShareFileClient fileClient, File file, long offset, int length) {
+        var bytes = new byte[length];
+        try (var randomAccessFile = new RandomAccessFile(file, "r")) {
+            randomAccessFile.seek(offset);
+            randomAccessFile.readFully(bytes);
+        } catch (IOException e) {
+            throw new CliException("Problem reading " + file.getAbsolutePath(), e);
+        }
+        return fileClient.uploadRangeWithResponse(new ShareFileUploadRangeOptions(new ByteArrayInputStream(bytes), length).setOffset(offset), null, Context.NONE)
+                .getValue().getETag();
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.smalltools.tools.AbstractBasics;
+import com.google.common.base.Ticker;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The secrets retrieved by a prefetch of a namespace in a Key Vault. While a prefetch is not expired or cleared, the reads of the secrets under its prefix
+ * are served from it and the writes are applied on it.
+ */
+public class AzureKeyVaultSecretPrefetch extends AbstractBasics {
+
+    private static class Snapshot {
+
+        private final ConcurrentMap<String, String> secretByName;
+        private final long expiresAtNanos;
+
+        private Snapshot(Map<String, String> secretByName, long expiresAtNanos) {
+            this.secretByName = new ConcurrentHashMap<>(secretByName);
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final ConcurrentMap<String, ConcurrentMap<String, Snapshot>> snapshotByPrefixByVaultId = new ConcurrentHashMap<>();
+
+    private final long ttlNanos;
+    private final Ticker ticker;
+
+    public AzureKeyVaultSecretPrefetch(long ttlMs) {
+        this(ttlMs, Ticker.systemTicker());
+    }
+
+    public AzureKeyVaultSecretPrefetch(long ttlMs, Ticker ticker) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.ticker = ticker;
+    }
+
+    /**
+     * Stop using the prefetch of a prefix.
+     *
+     * @param vaultId the id of the vault
+     * @param prefix  the prefix
+     */
+    public void clear(String vaultId, String prefix) {
+        var snapshotByPrefix = snapshotByPrefixByVaultId.get(vaultId);
+        if (snapshotByPrefix != null) {
+            snapshotByPrefix.remove(prefix);
+        }
+    }
+
+    /**
+     * Get all the prefetches that cover the secret. There can be more than one when a prefix starts with another one.
+     *
+     * @param vaultId    the id of the vault
+     * @param secretName the name of the secret
+     * @return the prefetches
+     */
+    private List<Snapshot> covering(String vaultId, String secretName) {
+        var snapshotByPrefix = snapshotByPrefixByVaultId.get(vaultId);
+        if (snapshotByPrefix == null) {
+            return Collections.emptyList();
+        }
+        var now = ticker.read();
+        snapshotByPrefix.values().removeIf(it -> now - it.expiresAtNanos >= 0);
+        return snapshotByPrefix.entrySet().stream()
+                .filter(it -> secretName.startsWith(it.getKey()))
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get the secret from the prefetch that covers it or from the loader if none.
+     *
+     * @param vaultId    the id of the vault
+     * @param secretName the name of the secret
+     * @param loader     gets the secret from the vault
+     * @return the value or null if it does not exist
+     */
+    public String get(String vaultId, String secretName, Supplier<String> loader) {
+        var snapshots = covering(vaultId, secretName);
+        if (!snapshots.isEmpty()) {
+            logger.info("Get secret {} (prefetched)", secretName);
+            return snapshots.get(0).secretByName.get(secretName);
+        }
+        return loader.get();
+    }
+
+    /**
+     * Keep the secrets of a prefix. It replaces any previous prefetch of that prefix.
+     *
+     * @param vaultId      the id of the vault
+     * @param prefix       the prefix
+     * @param secretByName all the existing secrets under the prefix
+     */
+    public void put(String vaultId, String prefix, Map<String, String> secretByName) {
+        snapshotByPrefixByVaultId.computeIfAbsent(vaultId, k -> new ConcurrentHashMap<>())
+                .put(prefix, new Snapshot(secretByName, ticker.read() + ttlNanos));
+    }
+
+    /**
+     * Update all the prefetches that cover the secret. To call after the secret was saved in the vault.
+     *
+     * @param vaultId    the id of the vault
+     * @param secretName the name of the secret
+     * @param value      the new value
+     */
+    public void set(String vaultId, String secretName, String value) {
+        for (var snapshot : covering(vaultId, secretName)) {
+            if (value == null) {
+                snapshot.secretByName.remove(secretName);
+            } else {
+                snapshot.secretByName.put(secretName, value);
+            }
+        }
+    }
+
+}
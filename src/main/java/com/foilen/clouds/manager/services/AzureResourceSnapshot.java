@@ -0,0 +1,97 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.smalltools.tools.AbstractBasics;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps what was retrieved from Azure during a reconcile pass, keyed by the ARM id of the resource. Only our own writes invalidate the entries.
+ */
+public class AzureResourceSnapshot extends AbstractBasics {
+
+    private final ConcurrentMap<String, Optional<?>> valueByKey = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private static String key(String kind, String armId) {
+        return armId.toLowerCase() + "|" + kind;
+    }
+
+    /**
+     * Get the cached value or load it.
+     *
+     * @param kind   the kind of value for that resource (e.g. the resource itself, its config)
+     * @param armId  the ARM id of the resource
+     * @param loader the loader to call when not cached
+     * @param <T>    the type of value
+     * @return the value
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> get(String kind, String armId, Supplier<Optional<T>> loader) {
+        var key = key(kind, armId);
+        var value = valueByKey.get(key);
+        if (value != null) {
+            hits.incrementAndGet();
+            return (Optional<T>) value;
+        }
+
+        misses.incrementAndGet();
+        Optional<T> loaded = loader.get();
+        var previous = valueByKey.putIfAbsent(key, loaded);
+        return previous == null ? loaded : (Optional<T>) previous;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Remove all the values of that resource and of its sub-resources.
+     *
+     * @param armId the ARM id of the resource
+     */
+    public void invalidate(String armId) {
+        var prefix = armId.toLowerCase();
+        valueByKey.keySet().removeIf(key -> key.startsWith(prefix + "|") || key.startsWith(prefix + "/"));
+    }
+
+    /**
+     * Remove only one kind of value of that resource.
+     *
+     * @param kind  the kind of value for that resource
+     * @param armId the ARM id of the resource
+     */
+    public void remove(String kind, String armId) {
+        valueByKey.remove(key(kind, armId));
+    }
+
+    /**
+     * Set the value of a resource that we just created or updated.
+     *
+     * @param kind  the kind of value for that resource
+     * @param armId the ARM id of the resource
+     * @param value the value
+     */
+    public void put(String kind, String armId, Object value) {
+        valueByKey.put(key(kind, armId), Optional.ofNullable(value));
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.CliException;
+import com.foilen.clouds.manager.services.model.json.AzureTokenCache;
+import com.foilen.smalltools.tools.AbstractBasics;
+import com.foilen.smalltools.tools.JsonTools;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps the Azure tokens in a file encrypted with AES-GCM. The key is in another file of the same directory that only the owner can read.
+ */
+public class AzureTokenFileCache extends AbstractBasics {
+
+    private static final String ALGORITHM = "AES/GCM/NoPadding";
+    private static final int KEY_LENGTH = 32;
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+
+    private static final SecureRandom secureRandom = new SecureRandom();
+
+    private final Path cacheFile;
+    private final Path keyFile;
+
+    public AzureTokenFileCache(Path directory) {
+        this.cacheFile = directory.resolve("azure-token-cache.bin");
+        this.keyFile = directory.resolve("azure-token-cache.key");
+    }
+
+    protected static byte[] decrypt(byte[] key, byte[] ivAndCipherText) throws GeneralSecurityException {
+        if (ivAndCipherText.length < IV_LENGTH) {
+            throw new GeneralSecurityException("Too short");
+        }
+        var cipher = Cipher.getInstance(ALGORITHM);
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, "AES"), new GCMParameterSpec(TAG_LENGTH_BITS, ivAndCipherText, 0, IV_LENGTH));
+        return cipher.doFinal(ivAndCipherText, IV_LENGTH, ivAndCipherText.length - IV_LENGTH);
+    }
+
+    protected static byte[] encrypt(byte[] key, byte[] plainText) throws GeneralSecurityException {
+        var iv = new byte[IV_LENGTH];
+        secureRandom.nextBytes(iv);
+        var cipher = Cipher.getInstance(ALGORITHM);
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+        var cipherText = cipher.doFinal(plainText);
+
+        var ivAndCipherText = Arrays.copyOf(iv, IV_LENGTH + cipherText.length);
+        System.arraycopy(cipherText, 0, ivAndCipherText, IV_LENGTH, cipherText.length);
+        return ivAndCipherText;
+    }
+
+    private byte[] getKey(boolean createIfMissing) throws IOException {
+        if (Files.exists(keyFile)) {
+            var key = Files.readAllBytes(keyFile);
+            if (key.length != KEY_LENGTH) {
+                throw new CliException("The key in " + keyFile + " is invalid");
+            }
+            return key;
+        }
+        if (!createIfMissing) {
+            return null;
+        }
+
+        logger.info("Create the key of the token cache {}", keyFile);
+        var key = new byte[KEY_LENGTH];
+        secureRandom.nextBytes(key);
+        OwnerOnlyFileTools.createDirectories(keyFile.getParent());
+        OwnerOnlyFileTools.createFile(keyFile);
+        Files.write(keyFile, key);
+        return key;
+    }
+
+    /**
+     * Get the tokens that were saved.
+     *
+     * @return the tokens or an empty cache if there is none or they cannot be read
+     */
+    public synchronized AzureTokenCache load() {
+        try {
+            if (!Files.exists(cacheFile)) {
+                return new AzureTokenCache();
+            }
+            var key = getKey(false);
+            if (key == null) {
+                return new AzureTokenCache();
+            }
+            var json = new String(decrypt(key, Files.readAllBytes(cacheFile)), StandardCharsets.UTF_8);
+            return JsonTools.readFromString(json, AzureTokenCache.class);
+        } catch (Exception e) {
+            logger.warn("Could not read the token cache {}. Will not use it", cacheFile, e);
+            return new AzureTokenCache();
+        }
+    }
+
+    /**
+     * Save the tokens. If it fails, it is only logged since the tokens can be retrieved again.
+     *
+     * @param tokenCache the tokens
+     */
+    public synchronized void save(AzureTokenCache tokenCache) {
+        var tmpFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        try {
+            var key = getKey(true);
+            var encrypted = encrypt(key, JsonTools.compactPrint(tokenCache).getBytes(StandardCharsets.UTF_8));
+            Files.deleteIfExists(tmpFile);
+            OwnerOnlyFileTools.createFile(tmpFile);
+            Files.write(tmpFile, encrypted);
+            Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            logger.warn("Could not save the token cache {}", cacheFile, e);
+        }
+    }
+
+    /**
+     * Load, change and save the tokens without letting another update happen in between.
+     *
+     * @param updater changes the tokens that were saved
+     */
+    public synchronized void update(UnaryOperator<AzureTokenCache> updater) {
+        save(updater.apply(load()));
+    }
+
+}
@@ -0,0 +1,274 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.azure.core.credential.AccessToken;
+import com.azure.core.credential.TokenCredential;
+import com.azure.core.credential.TokenRequestContext;
+import com.foilen.clouds.manager.CliException;
+import com.foilen.clouds.manager.services.model.json.AzureCachedToken;
+import com.foilen.clouds.manager.services.model.json.AzureTokenCache;
+import com.foilen.smalltools.tools.AbstractBasics;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the tokens of a credential until they are about to expire (using their real expiration).
+ * <ul>
+ *     <li>When a token is used, it is refreshed in the background a bit before it expires.</li>
+ *     <li>Many requests for the same missing or expired token wait for a single refresh.</li>
+ *     <li>When a {@link AzureTokenFileCache} is provided, the tokens are loaded from it at the start and saved in it after each refresh so that the next
+ *     runs of the application do not have to get them again.</li>
+ * </ul>
+ * The requests with claims are not cached.
+ */
+public class AzureTokenManager extends AbstractBasics implements TokenCredential {
+
+    private static final Duration MIN_VALIDITY = Duration.ofSeconds(30);
+
+    private static class Entry {
+
+        private final TokenRequestContext request;
+        private final AccessToken token;
+        private final OffsetDateTime refreshAt;
+        private volatile boolean used;
+
+        private Entry(TokenRequestContext request, AccessToken token, OffsetDateTime refreshAt) {
+            this.request = request;
+            this.token = token;
+            this.refreshAt = refreshAt;
+        }
+    }
+
+    private final TokenCredential credential;
+    private final String namespace;
+    private final Duration refreshBefore;
+    private final AzureTokenFileCache fileCache;
+
+    private final ConcurrentMap<String, Entry> entryByKey = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<AccessToken>> refreshByKey = new HashMap<>();
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2, new ThreadFactoryBuilder().setNameFormat("azure-token-%d").setDaemon(true).build());
+
+    /**
+     * Create the manager.
+     *
+     * @param credential    the credential that gets the tokens
+     * @param namespace     what identifies the credential (to not mix the tokens of different credentials in the file cache)
+     * @param refreshBefore how long before the expiration to refresh the tokens
+     * @param fileCache     the file cache to use or null to keep the tokens only in memory
+     */
+    public AzureTokenManager(TokenCredential credential, String namespace, Duration refreshBefore, AzureTokenFileCache fileCache) {
+        this.credential = credential;
+        this.namespace = namespace;
+        this.refreshBefore = refreshBefore;
+        this.fileCache = fileCache;
+
+        if (fileCache != null) {
+            var now = OffsetDateTime.now();
+            for (var cachedToken : fileCache.load().getTokens()) {
+                if (!namespace.equals(cachedToken.getNamespace())) {
+                    continue;
+                }
+                var token = new AccessToken(cachedToken.getToken(), OffsetDateTime.ofInstant(Instant.ofEpochSecond(cachedToken.getExpiresAt()), ZoneOffset.UTC));
+                if (!isValid(token, now)) {
+                    continue;
+                }
+                var request = new TokenRequestContext()
+                        .setTenantId(cachedToken.getTenantId())
+                        .setScopes(cachedToken.getScopes());
+                var entry = new Entry(request, token, refreshAt(now, token.getExpiresAt(), refreshBefore));
+                entryByKey.put(key(request), entry);
+                scheduleRefresh(key(request), entry);
+            }
+            logger.info("Loaded {} tokens from the file cache", entryByKey.size());
+        }
+    }
+
+    /**
+     * Get when to refresh a token. It is the configured time before the expiration, but not before the middle of its life to not keep refreshing the
+     * tokens that are valid for a short time.
+     *
+     * @param retrievedAt   when the token was retrieved
+     * @param expiresAt     when the token expires
+     * @param refreshBefore how long before the expiration to refresh the tokens
+     * @return when to refresh
+     */
+    protected static OffsetDateTime refreshAt(OffsetDateTime retrievedAt, OffsetDateTime expiresAt, Duration refreshBefore) {
+        var halfLife = Duration.between(retrievedAt, expiresAt).dividedBy(2);
+        return expiresAt.minus(refreshBefore.compareTo(halfLife) < 0 ? refreshBefore : halfLife);
+    }
+
+    private static boolean isValid(AccessToken token, OffsetDateTime now) {
+        return token.getExpiresAt().isAfter(now.plus(MIN_VALIDITY));
+    }
+
+    private static String key(TokenRequestContext request) {
+        return request.getTenantId() + "|" + String.join(" ", request.getScopes());
+    }
+
+    private AccessToken fetch(String key, TokenRequestContext request) {
+        logger.info("Refresh the token for scopes {}", request.getScopes());
+        var token = credential.getToken(request).block();
+        if (token == null) {
+            throw new CliException("Could not get a token for scopes " + request.getScopes());
+        }
+
+        var entry = new Entry(request, token, refreshAt(OffsetDateTime.now(), token.getExpiresAt(), refreshBefore));
+        entryByKey.put(key, entry);
+        scheduleRefresh(key, entry);
+        saveFileCache();
+        return token;
+    }
+
+    @Override
+    public Mono<AccessToken> getToken(TokenRequestContext request) {
+
+        if (request.getClaims() != null) {
+            return credential.getToken(request);
+        }
+
+        var key = key(request);
+        var entry = entryByKey.get(key);
+        var now = OffsetDateTime.now();
+        if (entry != null && isValid(entry.token, now)) {
+            entry.used = true;
+            if (now.isAfter(entry.refreshAt)) {
+                refresh(key, request);
+            }
+            return Mono.just(entry.token);
+        }
+
+        // Depend on the shared refresh so that cancelling this one does not cancel it for the others
+        return Mono.defer(() -> Mono.fromFuture(refresh(key, request).thenApply(token -> token)))
+                .doOnNext(token -> markUsed(key));
+    }
+
+    /**
+     * Get a token.
+     *
+     * @param scope the scope
+     * @return the token
+     */
+    public String getTokenValue(String scope) {
+        var request = new TokenRequestContext().addScopes(scope);
+        try {
+            return getToken(request).toFuture().join().getToken();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CliException("Could not get a token for scope " + scope, e.getCause());
+        }
+    }
+
+    private void markUsed(String key) {
+        var entry = entryByKey.get(key);
+        if (entry != null) {
+            entry.used = true;
+        }
+    }
+
+    /**
+     * Start a refresh of the token if there is not already one running.
+     *
+     * @param key     the key of the token
+     * @param request the request
+     * @return the refresh that is running
+     */
+    private synchronized CompletableFuture<AccessToken> refresh(String key, TokenRequestContext request) {
+        var future = refreshByKey.get(key);
+        if (future != null) {
+            return future;
+        }
+
+        var newFuture = new CompletableFuture<AccessToken>();
+        refreshByKey.put(key, newFuture);
+        executor.execute(() -> {
+            try {
+                newFuture.complete(fetch(key, request));
+            } catch (Throwable e) {
+                logger.warn("Could not refresh the token for scopes {}", request.getScopes(), e);
+                newFuture.completeExceptionally(e);
+            } finally {
+                refreshDone(key, newFuture);
+            }
+        });
+        return newFuture;
+    }
+
+    private synchronized void refreshDone(String key, CompletableFuture<AccessToken> future) {
+        refreshByKey.remove(key, future);
+    }
+
+    private void saveFileCache() {
+        if (fileCache == null) {
+            return;
+        }
+
+        // The refreshes of different scopes can save at the same time
+        fileCache.update(tokenCache -> {
+            var now = OffsetDateTime.now();
+            var tokens = new ArrayList<AzureCachedToken>();
+            for (var cachedToken : tokenCache.getTokens()) {
+                // Keep the valid ones of the other credentials
+                if (!namespace.equals(cachedToken.getNamespace()) && cachedToken.getExpiresAt() > now.toEpochSecond()) {
+                    tokens.add(cachedToken);
+                }
+            }
+            entryByKey.values().stream()
+                    .filter(entry -> isValid(entry.token, now))
+                    .forEach(entry -> tokens.add(new AzureCachedToken()
+                            .setNamespace(namespace)
+                            .setTenantId(entry.request.getTenantId())
+                            .setScopes(entry.request.getScopes())
+                            .setToken(entry.token.getToken())
+                            .setExpiresAt(entry.token.getExpiresAt().toEpochSecond())
+                    ));
+            return tokenCache.setTokens(tokens);
+        });
+    }
+
+    /**
+     * Refresh the token a bit before it expires if it was used since it was retrieved. This keeps the tokens that are used ready without refreshing
+     * forever the ones that are not used anymore.
+     *
+     * @param key   the key of the token
+     * @param entry the entry that was just retrieved
+     */
+    private void scheduleRefresh(String key, Entry entry) {
+        var delayMs = Math.max(0, Duration.between(OffsetDateTime.now(), entry.refreshAt).toMillis());
+        executor.schedule(() -> {
+            if (entryByKey.get(key) != entry) {
+                return;
+            }
+            if (!entry.used) {
+                logger.debug("The token for scopes {} was not used. Will not refresh it", entry.request.getScopes());
+                return;
+            }
+            refresh(key, entry.request);
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+}
@@ -11,14 +11,12 @@ package com.foilen.clouds.manager.services;
 
 import com.azure.core.credential.AzureNamedKeyCredential;
 import com.azure.core.credential.TokenCredential;
-import com.azure.core.credential.TokenRequestContext;
 import com.azure.core.exception.ResourceNotFoundException;
 import com.azure.core.http.policy.HttpLogDetailLevel;
 import com.azure.core.http.rest.PagedIterable;
 import com.azure.core.management.AzureEnvironment;
 import com.azure.core.management.exception.ManagementException;
 import com.azure.core.management.profile.AzureProfile;
-import com.azure.core.util.Context;
 import com.azure.identity.AzureCliCredentialBuilder;
 import com.azure.identity.DefaultAzureCredentialBuilder;
 import com.azure.resourcemanager.AzureResourceManager;
@@ -29,28 +27,31 @@ import com.azure.resourcemanager.authorization.models.BuiltInRole;
 import com.azure.resourcemanager.dns.fluent.models.RecordSetInner;
 import com.azure.resourcemanager.dns.models.CnameRecord;
 import com.azure.resourcemanager.dns.models.DnsZone;
+import com.azure.resourcemanager.dns.models.RecordType;
 import com.azure.resourcemanager.keyvault.models.Secret;
 import com.azure.resourcemanager.keyvault.models.Vault;
 import com.azure.resourcemanager.mariadb.MariaDBManager;
 import com.azure.resourcemanager.mariadb.models.*;
 import com.azure.resourcemanager.storage.models.SkuName;
 import com.azure.resourcemanager.storage.models.StorageAccountSkuType;
-import com.azure.storage.file.share.ShareDirectoryClient;
-import com.azure.storage.file.share.ShareFileClientBuilder;
+import com.azure.security.keyvault.secrets.SecretClient;
+import com.azure.security.keyvault.secrets.SecretClientBuilder;
+import com.azure.security.keyvault.secrets.models.SecretProperties;
+import com.azure.storage.file.share.ShareClient;
 import com.azure.storage.file.share.ShareServiceClient;
 import com.azure.storage.file.share.ShareServiceClientBuilder;
 import com.azure.storage.file.share.models.ShareAccessTier;
-import com.azure.storage.file.share.models.ShareFileItem;
 import com.azure.storage.file.share.models.ShareProtocols;
 import com.azure.storage.file.share.options.ShareCreateOptions;
-import com.azure.storage.file.share.options.ShareListFilesAndDirectoriesOptions;
 import com.foilen.clouds.manager.CliException;
 import com.foilen.clouds.manager.ManageUnrecoverableException;
 import com.foilen.clouds.manager.azureclient.AzureCustomClient;
+import com.foilen.clouds.manager.azureclient.model.AzureWebSiteConfig;
 import com.foilen.clouds.manager.commands.model.RawDnsEntry;
 import com.foilen.clouds.manager.services.model.*;
 import com.foilen.clouds.manager.services.model.json.AzProfileDetails;
 import com.foilen.clouds.manager.services.model.json.AzSubscription;
+import com.foilen.clouds.manager.services.model.json.FileShareSyncManifest;
 import com.foilen.clouds.manager.services.model.manageconfig.*;
 import com.foilen.databasetools.connection.JdbcUriConfigConnection;
 import com.foilen.databasetools.manage.mariadb.MariadbManageProcess;
@@ -58,6 +59,7 @@ import com.foilen.databasetools.manage.mariadb.MariadbManagerConfig;
 import com.foilen.smalltools.JavaEnvironmentValues;
 import com.foilen.smalltools.crypt.bouncycastle.cert.RSACertificate;
 import com.foilen.smalltools.crypt.bouncycastle.cert.RSATools;
+import com.foilen.smalltools.hash.HashSha256;
 import com.foilen.smalltools.listscomparator.ListComparatorHandler;
 import com.foilen.smalltools.listscomparator.ListsComparator;
 import com.foilen.smalltools.tools.*;
@@ -65,8 +67,7 @@ import com.foilen.smalltools.tuple.Tuple2;
 import com.google.common.base.Strings;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.bouncycastle.asn1.DERBMPString;
 import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
 import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
@@ -84,20 +85,29 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.xbill.DNS.ARecord;
 import org.xbill.DNS.Lookup;
+import org.xbill.DNS.Record;
 import org.xbill.DNS.TextParseException;
 import org.xbill.DNS.Type;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Component
@@ -107,12 +117,27 @@ public class CloudAzureService extends AbstractBasics {
 
     private static final int ITERATION_COUNT = 2048;
 
+    private static final Map<String, String> FINGERPRINT_API_VERSION_BY_TYPE = Map.of(
+            "", "2021-04-01",
+            "microsoft.dbformariadb/servers", "2018-06-01",
+            "microsoft.keyvault/vaults", "2022-07-01",
+            "microsoft.network/dnszones", "2018-05-01",
+            "microsoft.storage/storageaccounts", "2022-09-01",
+            "microsoft.web/serverfarms", "2022-03-01",
+            "microsoft.web/sites", "2022-03-01"
+    );
+
     @Autowired
     private AzureCustomClient azureCustomClient;
 
     private final Cache<String, String> storageAccountKeyCache = CacheBuilder.newBuilder().expireAfterWrite(1, TimeUnit.HOURS).build();
+    private final Cache<String, ShareClient> shareClientCache = CacheBuilder.newBuilder().expireAfterWrite(1, TimeUnit.HOURS).build();
+    private final ConcurrentMap<String, SecretClient> secretClientByVaultId = new ConcurrentHashMap<>();
+    private final AzureKeyVaultSecretPrefetch keyVaultSecretPrefetch = new AzureKeyVaultSecretPrefetch(
+            Long.parseLong(SystemTools.getPropertyOrEnvironment("AZURE_KEYVAULT_PREFETCH_TTL_SECONDS", "60")) * 1000);
 
-    private boolean disabled = SystemTools.getPropertyOrEnvironment("DISABLE_AZURE", "false").toLowerCase().equals("true");
+    private final boolean disabled = SystemTools.getPropertyOrEnvironment("DISABLE_AZURE", "false").toLowerCase().equals("true");
+    private volatile boolean authenticationFailed;
 
     private static String storageAccountKeyCacheKey(String resourceGroupName, String storageAccountName) {
         return resourceGroupName + "|" + storageAccountName;
@@ -120,186 +145,118 @@ public class CloudAzureService extends AbstractBasics {
 
     private AzureProfile profile;
     private TokenCredential tokenCredential;
+    private AzureTokenManager tokenManager;
     private AzureResourceManager azureResourceManager;
     private String userName;
+    private volatile boolean initialized;
 
-    private LoadingCache<String, String> tokenCache = CacheBuilder.newBuilder().expireAfterWrite(10, TimeUnit.MINUTES).build(new CacheLoader<String, String>() {
-        @Override
-        public String load(String scope) {
-            init();
-            TokenRequestContext request = new TokenRequestContext();
-            request.addScopes(scope);
-            return tokenCredential.getToken(request).block().getToken();
-        }
-    });
+    private final ConcurrentMap<String, Object> managerByKey = new ConcurrentHashMap<>();
+
+    private volatile AzureResourceSnapshot snapshot;
+
+    private final int dnsWriteConcurrency = Integer.parseInt(SystemTools.getPropertyOrEnvironment("AZURE_DNS_WRITE_CONCURRENCY", "4"));
+    private final int webappReadConcurrency = Integer.parseInt(SystemTools.getPropertyOrEnvironment("AZURE_WEBAPP_READ_CONCURRENCY", "8"));
+    private final int keyVaultReadConcurrency = Integer.parseInt(SystemTools.getPropertyOrEnvironment("AZURE_KEYVAULT_READ_CONCURRENCY", "8"));
+    private final DnsPlanner dnsPlanner = new DnsPlanner();
 
     protected static AzProfileDetails getAzureProfile(String azureProfileFile) {
         return JsonTools.readFromFile(azureProfileFile, AzProfileDetails.class);
     }
 
     protected List<RawDnsEntry> computeDnsEntries(ManageContext context, String domainName, List<RawDnsEntry> currentRawDnsEntries, DnsConfig desiredDnsConfig) {
-        // Copy all the current entries if desired
-        Map<String, Set<RawDnsEntry>> desiredEntriesByNameType = new HashMap<>();
-        if (desiredDnsConfig.isStartEmpty()) {
-            if (desiredDnsConfig.getStartWithDomains() != null) {
-                currentRawDnsEntries.stream()
-                        .filter(it -> desiredDnsConfig.getStartWithDomains().contains(it.getName()))
-                        .forEach(it -> {
-                            String nameType = it.getName() + "|" + it.getType();
-                            CollectionsTools.getOrCreateEmptyHashSet(desiredEntriesByNameType, nameType, RawDnsEntry.class)
-                                    .add(it);
-                        });
-            }
-        } else {
-            currentRawDnsEntries.forEach(it -> {
-                String nameType = it.getName() + "|" + it.getType();
-                CollectionsTools.getOrCreateEmptyHashSet(desiredEntriesByNameType, nameType, RawDnsEntry.class)
-                        .add(it);
-            });
-        }
+        return dnsPlanner.plan(domainName, currentRawDnsEntries, desiredDnsConfig,
+                configEntries -> dnsAzureUidEntries(context, domainName, configEntries),
+                configEntries -> dnsAzureCustomDomainEntries(context, configEntries)
+        );
+    }
 
-        // Compute the desired entries
-        List<DnsEntryConfig> configs = desiredDnsConfig.getConfigs() == null ? Collections.emptyList() : desiredDnsConfig.getConfigs();
-        for (var configEntries : configs) {
+    private List<RawDnsEntry> dnsAzureUidEntries(ManageContext context, String domainName, DnsEntryConfig configEntries) {
+        if (configEntries.getAzureUidDnsEntry() == null) {
+            return null;
+        }
 
-            // Raw entries
-            if (configEntries.getRawDnsEntries() != null) {
-                applyRawDnsEntriesOnMap(desiredEntriesByNameType, configEntries.getConflictResolution(), configEntries.getRawDnsEntries());
+        List<RawDnsEntry> rawDnsEntries = new ArrayList<>();
+        for (var entry : configEntries.getAzureUidDnsEntry()) {
+            var webApp = webappFindByName(entry.getWebappResourceGroupName(), entry.getWebappName());
+            if (webApp.isEmpty()) {
+                context.needsNextStage(webappExistsProbe(entry.getWebappResourceGroupName(), entry.getWebappName()), entry.getWebappResourceGroupName(), entry.getWebappName());
+                continue;
             }
 
-            // Clear entries
-            if (configEntries.getClearDnsEntries() != null) {
-                configEntries.getClearDnsEntries().forEach(it -> {
-                    logger.info("Clear entries of name {} and type {}", it.getName(), it.getType());
-                    String nameType = it.getName() + "|" + it.getType();
-                    desiredEntriesByNameType.remove(nameType);
-                });
+            var azureWebSite = azureCustomClient.website(webApp.get().getId());
+            if (azureWebSite == null) {
+                context.needsNextStage(webappExistsProbe(entry.getWebappResourceGroupName(), entry.getWebappName()), entry.getWebappResourceGroupName(), entry.getWebappName());
+                continue;
             }
 
-            // Azure UID
-            if (configEntries.getAzureUidDnsEntry() != null) {
-
-                List<RawDnsEntry> rawDnsEntries = new ArrayList<>();
-                for (var entry : configEntries.getAzureUidDnsEntry()) {
-                    var webApp = webappFindByName(entry.getWebappResourceGroupName(), entry.getWebappName());
-                    if (webApp.isEmpty()) {
-                        context.needsNextStage(entry.getWebappResourceGroupName(), entry.getWebappName());
-                        continue;
-                    }
-
-                    var azureWebSite = azureCustomClient.website(webApp.get().getId());
-                    if (azureWebSite == null) {
-                        context.needsNextStage(entry.getWebappResourceGroupName(), entry.getWebappName());
-                        continue;
-                    }
+            var value = azureWebSite.getProperties().getCustomDomainVerificationId();
+            rawDnsEntries.add(new RawDnsEntry()
+                    .setName("asuid." + domainName)
+                    .setType("TXT")
+                    .setDetails(value)
+                    .setTtl(3600)
+            );
+        }
 
-                    var value = azureWebSite.getProperties().getCustomDomainVerificationId();
-                    rawDnsEntries.add(new RawDnsEntry()
-                            .setName("asuid." + domainName)
-                            .setType("TXT")
-                            .setDetails(value)
-                            .setTtl(3600)
-                    );
-                }
+        return rawDnsEntries;
+    }
 
-                applyRawDnsEntriesOnMap(desiredEntriesByNameType, configEntries.getConflictResolution(), rawDnsEntries);
+    private List<RawDnsEntry> dnsAzureCustomDomainEntries(ManageContext context, DnsEntryConfig configEntries) {
+        if (configEntries.getAzureCustomDomainDnsEntry() == null) {
+            return null;
+        }
 
+        List<RawDnsEntry> rawDnsEntries = new ArrayList<>();
+        for (var entry : configEntries.getAzureCustomDomainDnsEntry()) {
+            var webAppOptional = webappFindByNameRaw(entry.getWebappResourceGroupName(), entry.getWebappName());
+            if (webAppOptional.isEmpty()) {
+                context.needsNextStage(webappExistsProbe(entry.getWebappResourceGroupName(), entry.getWebappName()), entry.getWebappResourceGroupName(), entry.getWebappName());
+                continue;
             }
 
-            // Azure Custom Domain
-            if (configEntries.getAzureCustomDomainDnsEntry() != null) {
+            var webApp = webAppOptional.get();
+            String targetHostname = webApp.defaultHostname();
 
-                List<RawDnsEntry> rawDnsEntries = new ArrayList<>();
-                for (var entry : configEntries.getAzureCustomDomainDnsEntry()) {
-                    var webAppOptional = webappFindByNameRaw(entry.getWebappResourceGroupName(), entry.getWebappName());
-                    if (webAppOptional.isEmpty()) {
-                        context.needsNextStage(entry.getWebappResourceGroupName(), entry.getWebappName());
+            // A or CNAME
+            if (entry.isUseCname()) {
+                rawDnsEntries.add(new RawDnsEntry()
+                        .setName(entry.getHostname())
+                        .setType("CNAME")
+                        .setDetails(targetHostname)
+                        .setTtl(300)
+                );
+            } else {
+                try {
+                    var record = resolve(targetHostname, Type.A);
+                    if (record == null) {
+                        logger.warn("Could not resolve {}. Marking for retry", targetHostname);
+                        context.needsNextStage(hostnameResolvesProbe(targetHostname, Type.A), entry.getWebappResourceGroupName(), entry.getWebappName());
                         continue;
                     }
-
-                    var webApp = webAppOptional.get();
-                    String targetHostname = webApp.defaultHostname();
-
-                    // A or CNAME
-                    if (entry.isUseCname()) {
-                        rawDnsEntries.add(new RawDnsEntry()
-                                .setName(entry.getHostname())
-                                .setType("CNAME")
-                                .setDetails(targetHostname)
-                                .setTtl(300)
-                        );
-                    } else {
-                        try {
-                            var records = new Lookup(targetHostname, Type.A).run();
-                            var record = Arrays.stream(records).findFirst().orElse(null);
-                            if (record == null) {
-                                logger.warn("Could not resolve {}. Marking for retry", targetHostname);
-                                context.needsNextStage(entry.getWebappResourceGroupName(), entry.getWebappName());
-                                continue;
-                            }
-                            var aRecord = (ARecord) record;
-                            rawDnsEntries.add(new RawDnsEntry()
-                                    .setName(entry.getHostname())
-                                    .setType("A")
-                                    .setDetails(aRecord.getAddress().getHostAddress())
-                                    .setTtl(300)
-                            );
-                        } catch (TextParseException e) {
-                            logger.warn("Could not resolve {}. Marking for retry", targetHostname, e);
-                            context.needsNextStage(entry.getWebappResourceGroupName(), entry.getWebappName());
-                        }
-
-                    }
-
+                    var aRecord = (ARecord) record;
+                    rawDnsEntries.add(new RawDnsEntry()
+                            .setName(entry.getHostname())
+                            .setType("A")
+                            .setDetails(aRecord.getAddress().getHostAddress())
+                            .setTtl(300)
+                    );
+                } catch (TextParseException e) {
+                    logger.warn("Could not resolve {}. Marking for retry", targetHostname, e);
+                    context.needsNextStage(entry.getWebappResourceGroupName(), entry.getWebappName());
                 }
 
-                applyRawDnsEntriesOnMap(desiredEntriesByNameType, configEntries.getConflictResolution(), rawDnsEntries);
-
-            }
-        }
-
-        // Update TTL for all with same name/type
-        desiredEntriesByNameType.values().forEach(entries -> {
-            final var ttl = entries.stream().map(RawDnsEntry::getTtl).reduce(172800L, Math::min);
-            entries.forEach(entry -> entry.setTtl(ttl));
-        });
-
-        return desiredEntriesByNameType.values().stream()
-                .flatMap(Set::stream)
-                .filter(it -> dnsIsSubDomain(domainName, it.getName()))
-                .sorted().distinct()
-                .collect(Collectors.toList());
-
-    }
-
-    private static void applyRawDnsEntriesOnMap(Map<String, Set<RawDnsEntry>> desiredEntriesByNameType, ConflictResolution conflictResolution, List<RawDnsEntry> rawDnsEntries) {
-        // Remove any existing ones if OVERWRITE
-        if (conflictResolution == ConflictResolution.OVERWRITE) {
-            for (RawDnsEntry it : rawDnsEntries) {
-                String nameType = it.getName() + "|" + it.getType();
-                desiredEntriesByNameType.remove(nameType);
             }
-        }
 
-        // Add entries
-        for (RawDnsEntry it : rawDnsEntries) {
-            String nameType = it.getName() + "|" + it.getType();
-            CollectionsTools.getOrCreateEmptyHashSet(desiredEntriesByNameType, nameType, RawDnsEntry.class)
-                    .add(it);
         }
-    }
 
-    protected static boolean dnsIsSubDomain(String baseDomainName, String fullDomainName) {
-        if (fullDomainName.length() <= baseDomainName.length()) {
-            return baseDomainName.equals(fullDomainName);
-        } else return fullDomainName.endsWith("." + baseDomainName);
+        return rawDnsEntries;
     }
 
     protected static String dnsSubDomain(String baseDomainName, String fullDomainName) {
         String subDomain = fullDomainName;
 
         // Not subdomain
-        if (!dnsIsSubDomain(baseDomainName, fullDomainName)) {
+        if (!DnsPlanner.dnsIsSubDomain(baseDomainName, fullDomainName)) {
             return null;
         }
 
@@ -321,23 +278,66 @@ public class CloudAzureService extends AbstractBasics {
 
     }
 
+    private ReadinessProbe certificateExistsProbe(String resourceGroupName, String hostname) {
+        return new ReadinessProbe("Certificate " + resourceGroupName + "/" + hostname + " exists", () -> {
+            azureResourceManager.appServiceCertificates().getByResourceGroup(resourceGroupName, hostname);
+            return true;
+        });
+    }
+
+    private ReadinessProbe hostnameResolvesProbe(String hostname, int type) {
+        return new ReadinessProbe(hostname + " resolves (" + Type.string(type) + ")", () -> {
+            try {
+                return resolve(hostname, type) != null;
+            } catch (TextParseException e) {
+                return false;
+            }
+        });
+    }
+
+    private ReadinessProbe webappExistsProbe(String resourceGroupName, String name) {
+        return new ReadinessProbe("Web Application " + resourceGroupName + "/" + name + " exists", () -> {
+            azureResourceManager.webApps().getByResourceGroup(resourceGroupName, name);
+            return true;
+        });
+    }
+
+    private Record resolve(String hostname, int type) throws TextParseException {
+        var lookup = new Lookup(hostname, type);
+        lookup.setCache(null);
+        var records = lookup.run();
+        if (records == null) {
+            return null;
+        }
+        return Arrays.stream(records).findFirst().orElse(null);
+    }
+
+    private Map<String, AppServiceCertificate> applicationServiceCertificatesListByName(String resourceGroupName) {
+        return applicationServiceCertificatesListByName(resourceGroupName, new AtomicInteger());
+    }
+
+    private Map<String, AppServiceCertificate> applicationServiceCertificatesListByName(String resourceGroupName, AtomicInteger calls) {
+        logger.info("List App Service Certificates in {}", resourceGroupName);
+        Map<String, AppServiceCertificate> certificateByName = new HashMap<>();
+        azureResourceManager.appServiceCertificates().listByResourceGroup(resourceGroupName).streamByPage()
+                .peek(page -> calls.incrementAndGet())
+                .flatMap(page -> page.getValue().stream())
+                .forEach(it -> certificateByName.put(it.name().toLowerCase(), it));
+        return certificateByName;
+    }
+
+    private Map<String, AppServiceCertificate> applicationServiceCertificatesByName(String resourceGroupName) {
+        return snapshotGet("certificatesByName", resourceGroupArmId(resourceGroupName), () -> Optional.of(applicationServiceCertificatesListByName(resourceGroupName))).get();
+    }
+
     private Set<String> applicationServiceCertificateHostnamesWithCertificates(WebApp webApp) {
-        return webApp.getHostnameBindings().keySet().stream()
+        return applicationServiceCertificateHostnamesWithCertificates(webappHostnameBindings(webApp).keySet(), applicationServiceCertificatesByName(webApp.resourceGroupName()));
+    }
+
+    private Set<String> applicationServiceCertificateHostnamesWithCertificates(Collection<String> hostnames, Map<String, AppServiceCertificate> certificateByName) {
+        return hostnames.stream()
                 .filter(hostname -> !hostname.endsWith(".azurewebsites.net"))
-                .filter(hostname -> {
-                    try {
-                        azureResourceManager.appServiceCertificates().getByResourceGroup(webApp.resourceGroupName(), hostname);
-                        return true;
-                    } catch (ManagementException e) {
-                        if (StringTools.safeEquals(e.getValue().getCode(), AzureConstants.NOT_FOUND)) {
-                            return false;
-                        }
-                        if (StringTools.safeEquals(e.getValue().getCode(), AzureConstants.RESOURCE_NOT_FOUND)) {
-                            return false;
-                        }
-                        throw e;
-                    }
-                })
+                .filter(hostname -> certificateByName.containsKey(hostname.toLowerCase()))
                 .collect(Collectors.toSet());
     }
 
@@ -467,10 +467,11 @@ public class CloudAzureService extends AbstractBasics {
         if (currentResource == null) {
             // create
             logger.info("Create: {}", desiredResource);
-            var manager = MariaDBManager.authenticate(tokenCredential, profile);
-            currentResource = AzureDnsZone.from(azureResourceManager.dnsZones().define(desiredResource.getName())
+            var dnsZone = azureResourceManager.dnsZones().define(desiredResource.getName())
                     .withExistingResourceGroup(desiredResource.getResourceGroup())
-                    .create());
+                    .create();
+            snapshotPut("dnsZone", dnsZone.id(), dnsZone);
+            currentResource = AzureDnsZone.from(dnsZone);
             context.addModificationAdd("Azure DNS Zone", desiredResource.getName());
         } else {
             // Check
@@ -492,148 +493,161 @@ public class CloudAzureService extends AbstractBasics {
             var desiredEntries = computeDnsEntries(context, desiredResource.getName(), currentEntries, desired.getConfig());
 
             // Apply
-            Set<Tuple2<String, String>> nameTypesToUpdate = new HashSet<>();
-            ListsComparator.compareStreams(
-                    currentEntries.stream(),
-                    desiredEntries.stream(),
-                    new ListComparatorHandler<>() {
-                        @Override
-                        public void both(RawDnsEntry current, RawDnsEntry desired) {
-                            // Keep
-                        }
+            var changeSet = DnsChangeSet.compute(DnsRecord.fromAll(currentEntries), DnsRecord.fromAll(desiredEntries));
+            for (var current : changeSet.getRemoved()) {
+                logger.info("[{}] Remove: {}", desiredResource.getName(), current);
+                context.addModificationRemove("Azure DNS Zone", desiredResource.getName(), current.toString());
+            }
+            for (var desiredRecord : changeSet.getAdded()) {
+                logger.info("[{}] Add: {}", desiredResource.getName(), desiredRecord);
+                context.addModificationAdd("Azure DNS Zone", desiredResource.getName(), desiredRecord.toString());
+            }
 
-                        @Override
-                        public void leftOnly(RawDnsEntry current) {
-                            logger.info("[{}] Remove: {}", desiredResource.getName(), current);
-                            nameTypesToUpdate.add(new Tuple2<>(current.getName(), current.getType()));
-                            context.addModificationRemove("Azure DNS Zone", desiredResource.getName(), current.toString());
-                        }
+            if (!changeSet.isEmpty()) {
+                DnsZone dnsZone = dnsZoneGetById(currentResource.getId());
+                dnsSetEntries(dnsZone, changeSet.getDesiredEntriesByNameType());
+            }
+        }
 
-                        @Override
-                        public void rightOnly(RawDnsEntry desired) {
-                            logger.info("[{}] Add: {}", desiredResource.getName(), desired);
-                            nameTypesToUpdate.add(new Tuple2<>(desired.getName(), desired.getType()));
-                            context.addModificationAdd("Azure DNS Zone", desiredResource.getName(), desired.toString());
+    }
 
-                        }
-                    }
-            );
+    public Optional<AzureDnsZone> dnsZoneFindByName(String resourceGroupName, String dnsZoneName) {
 
-            if (!nameTypesToUpdate.isEmpty()) {
-                logger.info("Get DNS Zone {}", currentResource.getId());
-                DnsZone dnsZone = azureResourceManager.dnsZones().getById(currentResource.getId());
-
-                nameTypesToUpdate.forEach(nameType -> {
-                    var entryName = nameType.getA();
-                    var entryType = nameType.getB();
-                    dnsSetEntry(dnsZone, entryName, entryType,
-                            desiredEntries.stream()
-                                    .filter(it -> StringTools.safeEquals(it.getName(), entryName))
-                                    .filter(it -> StringTools.safeEquals(it.getType(), entryType))
-                                    .collect(Collectors.toList())
-                    );
-                });
+        init();
+
+        return snapshotGet("dnsZone", armId(resourceGroupName, "Microsoft.Network/dnszones", dnsZoneName), () -> {
+            logger.info("Get DNS Zone {} / {}", resourceGroupName, dnsZoneName);
+            try {
+                return Optional.of(azureResourceManager.dnsZones().getByResourceGroup(resourceGroupName, dnsZoneName));
+            } catch (ManagementException e) {
+                if (StringTools.safeEquals(e.getValue().getCode(), AzureConstants.RESOURCE_NOT_FOUND)) {
+                    return Optional.empty();
+                }
+                throw e;
             }
-        }
+        }).map(AzureDnsZone::from);
 
     }
 
-    public Optional<AzureDnsZone> dnsZoneFindByName(String resourceGroupName, String dnsZoneName) {
+    private DnsZone dnsZoneGetById(String azureDnsZoneId) {
+        return snapshotGet("dnsZone", azureDnsZoneId, () -> {
+            logger.info("Get DNS Zone {}", azureDnsZoneId);
+            return Optional.of(azureResourceManager.dnsZones().getById(azureDnsZoneId));
+        }).get();
+    }
+
+    public List<RawDnsEntry> dnsZoneEntryListIgnoreNs(AzureDnsZone azureDnsZone) {
+        var entries = dnsZoneEntryList(azureDnsZone);
+        entries.removeIf(it -> StringTools.safeEquals(it.getType(), "NS"));
+        return entries;
+    }
+
+    /**
+     * Get the entries of a single record set.
+     *
+     * @param azureDnsZone the zone
+     * @param entryName    the full name of the entry
+     * @param entryType    the type of the entry
+     * @return the entries (empty if the record set does not exist)
+     */
+    public List<RawDnsEntry> dnsZoneEntryFind(AzureDnsZone azureDnsZone, String entryName, String entryType) {
 
         init();
 
-        logger.info("Get DNS Zone {} / {}", resourceGroupName, dnsZoneName);
+        List<RawDnsEntry> rawDnsEntries = new ArrayList<>();
+        String subDomain = dnsSubDomain(azureDnsZone.getName(), entryName);
+        if (subDomain == null) {
+            return rawDnsEntries;
+        }
+
+        logger.info("Get DNS record set {}/{}", entryName, entryType);
         try {
-            DnsZone dnsZone = azureResourceManager.dnsZones().getByResourceGroup(resourceGroupName, dnsZoneName);
-            return Optional.of(AzureDnsZone.from(dnsZone));
+            var recordSet = azureResourceManager.dnsZones().manager().serviceClient().getRecordSets()
+                    .get(azureDnsZone.getResourceGroup(), azureDnsZone.getName(), subDomain, RecordType.fromString(entryType));
+            addRawDnsEntries(rawDnsEntries, trimDot(recordSet.fqdn()), entryType, recordSet.ttl() == null ? 0 : recordSet.ttl(), recordSet);
         } catch (ManagementException e) {
-            if (StringTools.safeEquals(e.getValue().getCode(), AzureConstants.RESOURCE_NOT_FOUND)) {
-                return Optional.empty();
+            if (e.getResponse().getStatusCode() == 404) {
+                return rawDnsEntries;
             }
             throw e;
         }
 
+        Collections.sort(rawDnsEntries);
+        return rawDnsEntries;
     }
 
-    public List<RawDnsEntry> dnsZoneEntryListIgnoreNs(AzureDnsZone azureDnsZone) {
-        var entries = dnsZoneEntryList(azureDnsZone);
-        entries.removeIf(it -> StringTools.safeEquals(it.getType(), "NS"));
-        return entries;
+    private static void addRawDnsEntries(List<RawDnsEntry> rawDnsEntries, String name, String type, long ttl, RecordSetInner innerModel) {
+        if (innerModel.aaaaRecords() != null) {
+            innerModel.aaaaRecords().forEach(r -> rawDnsEntries.add(new RawDnsEntry() //
+                    .setName(name) //
+                    .setType(type) //
+                    .setDetails(r.ipv6Address()) //
+                    .setTtl(ttl) //
+            ));
+        }
+        if (innerModel.aRecords() != null) {
+            innerModel.aRecords().forEach(r -> rawDnsEntries.add(new RawDnsEntry() //
+                    .setName(name) //
+                    .setType(type) //
+                    .setDetails(r.ipv4Address()) //
+                    .setTtl(ttl) //
+            ));
+        }
+        if (innerModel.cnameRecord() != null) {
+            CnameRecord r = innerModel.cnameRecord();
+            rawDnsEntries.add(new RawDnsEntry() //
+                    .setName(name) //
+                    .setType(type) //
+                    .setDetails(r.cname()) //
+                    .setTtl(ttl) //
+            );
+        }
+        if (innerModel.mxRecords() != null) {
+            innerModel.mxRecords().forEach(r -> rawDnsEntries.add(new RawDnsEntry() //
+                    .setName(name) //
+                    .setType(type) //
+                    .setDetails(r.exchange()) //
+                    .setPriority(r.preference()) //
+                    .setTtl(ttl) //
+            ));
+        }
+        if (innerModel.nsRecords() != null) {
+            innerModel.nsRecords().forEach(r -> rawDnsEntries.add(new RawDnsEntry() //
+                    .setName(name) //
+                    .setType(type) //
+                    .setDetails(r.nsdname()) //
+                    .setTtl(ttl) //
+            ));
+        }
+        if (innerModel.srvRecords() != null) {
+            innerModel.srvRecords().forEach(r -> rawDnsEntries.add(new RawDnsEntry() //
+                    .setName(name) //
+                    .setType(type) //
+                    .setDetails(r.target()) //
+                    .setPriority(r.priority()) //
+                    .setWeight(r.weight()) //
+                    .setPort(r.port()) //
+                    .setTtl(ttl) //
+            ));
+        }
+        if (innerModel.txtRecords() != null) {
+            innerModel.txtRecords().forEach(r -> r.value().forEach(v -> rawDnsEntries.add(new RawDnsEntry() //
+                    .setName(name) //
+                    .setType(type) //
+                    .setDetails(v) //
+                    .setTtl(ttl) //
+            )));
+        }
     }
 
     public List<RawDnsEntry> dnsZoneEntryList(AzureDnsZone azureDnsZone) {
 
         init();
 
-        logger.info("Get DNS Zone {}", azureDnsZone.getId());
-        DnsZone dnsZone = azureResourceManager.dnsZones().getById(azureDnsZone.getId());
+        DnsZone dnsZone = dnsZoneGetById(azureDnsZone.getId());
 
         List<RawDnsEntry> rawDnsEntries = new ArrayList<>();
-        dnsZone.listRecordSets().forEach(record -> {
-
-            RecordSetInner innerModel = record.innerModel();
-            if (innerModel.aaaaRecords() != null) {
-                innerModel.aaaaRecords().forEach(r -> rawDnsEntries.add(new RawDnsEntry() //
-                        .setName(trimDot(record.fqdn())) //
-                        .setType(record.recordType().name()) //
-                        .setDetails(r.ipv6Address()) //
-                        .setTtl(record.timeToLive()) //
-                ));
-            }
-            if (innerModel.aRecords() != null) {
-                innerModel.aRecords().forEach(r -> rawDnsEntries.add(new RawDnsEntry() //
-                        .setName(trimDot(record.fqdn())) //
-                        .setType(record.recordType().name()) //
-                        .setDetails(r.ipv4Address()) //
-                        .setTtl(record.timeToLive()) //
-                ));
-            }
-            if (innerModel.cnameRecord() != null) {
-                CnameRecord r = innerModel.cnameRecord();
-                rawDnsEntries.add(new RawDnsEntry() //
-                        .setName(trimDot(record.fqdn())) //
-                        .setType(record.recordType().name()) //
-                        .setDetails(r.cname()) //
-                        .setTtl(record.timeToLive()) //
-                );
-            }
-            if (innerModel.mxRecords() != null) {
-                innerModel.mxRecords().forEach(r -> rawDnsEntries.add(new RawDnsEntry() //
-                        .setName(trimDot(record.fqdn())) //
-                        .setType(record.recordType().name()) //
-                        .setDetails(r.exchange()) //
-                        .setPriority(r.preference()) //
-                        .setTtl(record.timeToLive()) //
-                ));
-            }
-            if (innerModel.nsRecords() != null) {
-                innerModel.nsRecords().forEach(r -> rawDnsEntries.add(new RawDnsEntry() //
-                        .setName(trimDot(record.fqdn())) //
-                        .setType(record.recordType().name()) //
-                        .setDetails(r.nsdname()) //
-                        .setTtl(record.timeToLive()) //
-                ));
-            }
-            if (innerModel.srvRecords() != null) {
-                innerModel.srvRecords().forEach(r -> rawDnsEntries.add(new RawDnsEntry() //
-                        .setName(trimDot(record.fqdn())) //
-                        .setType(record.recordType().name()) //
-                        .setDetails(r.target()) //
-                        .setPriority(r.priority()) //
-                        .setWeight(r.weight()) //
-                        .setPort(r.port()) //
-                        .setTtl(record.timeToLive()) //
-                ));
-            }
-            if (innerModel.txtRecords() != null) {
-                innerModel.txtRecords().forEach(r -> r.value().forEach(v -> rawDnsEntries.add(new RawDnsEntry() //
-                        .setName(trimDot(record.fqdn())) //
-                        .setType(record.recordType().name()) //
-                        .setDetails(v) //
-                        .setTtl(record.timeToLive()) //
-                )));
-            }
-        });
+        dnsZone.listRecordSets().forEach(record -> addRawDnsEntries(rawDnsEntries, trimDot(record.fqdn()), record.recordType().name(), record.timeToLive(), record.innerModel()));
 
         Collections.sort(rawDnsEntries);
         return rawDnsEntries;
@@ -643,14 +657,15 @@ public class CloudAzureService extends AbstractBasics {
 
         init();
 
-        logger.info("Get DNS Zone {}", azureDnsZone.getId());
-        DnsZone dnsZone = azureResourceManager.dnsZones().getById(azureDnsZone.getId());
-
-        dnsSetEntry(dnsZone, entryName, entryType, rawDnsEntries);
+        dnsSetEntry(azureDnsZone.getResourceGroup(), azureDnsZone.getName(), entryName, entryType, rawDnsEntries);
 
     }
 
     public void dnsSetEntry(DnsZone dnsZone, String entryName, String entryType, List<RawDnsEntry> rawDnsEntries) {
+        dnsSetEntry(dnsZone.resourceGroupName(), dnsZone.name(), entryName, entryType, rawDnsEntries);
+    }
+
+    private void dnsSetEntry(String resourceGroupName, String baseDomainName, String entryName, String entryType, List<RawDnsEntry> rawDnsEntries) {
 
         AssertTools.assertFalse(
                 rawDnsEntries.stream()
@@ -658,118 +673,49 @@ public class CloudAzureService extends AbstractBasics {
                 , "All provided raw entries must be for the same specified name and type");
 
         logger.info("Set {}/{}", entryName, entryType);
-        String baseDomainName = dnsZone.name();
         String subDomain = dnsSubDomain(baseDomainName, entryName);
         if (subDomain == null) {
             logger.error("Skipping {} because it is not a subdomain of {}", entryName, baseDomainName);
             return;
         }
-        switch (entryType) {
-            case "AAAA":
-                dnsZone.update() //
-                        .withoutAaaaRecordSet(subDomain) //
-                        .apply();
-                if (!rawDnsEntries.isEmpty()) {
-                    var update = new AtomicReference<>(dnsZone.update() //
-                            .defineAaaaRecordSet(subDomain)
-                            .withIPv6Address(rawDnsEntries.get(0).getDetails()));
-                    forEachAllButFirst(rawDnsEntries, it -> update.set(update.get().withIPv6Address(it.getDetails())));
-                    update.get().withTimeToLive(rawDnsEntries.stream().map(RawDnsEntry::getTtl).reduce(172800L, Math::min)) //
-                            .attach() //
-                            .apply();
-                }
-                break;
-
-            case "A":
-                dnsZone.update() //
-                        .withoutARecordSet(subDomain) //
-                        .apply();
-                if (!rawDnsEntries.isEmpty()) {
-                    var update = new AtomicReference<>(dnsZone.update() //
-                            .defineARecordSet(subDomain) //
-                            .withIPv4Address(rawDnsEntries.get(0).getDetails()));
-                    forEachAllButFirst(rawDnsEntries, it -> update.set(update.get().withIPv4Address(it.getDetails())));
-                    update.get().withTimeToLive(rawDnsEntries.stream().map(RawDnsEntry::getTtl).reduce(172800L, Math::min)) //
-                            .attach() //
-                            .apply();
-                }
-                break;
-
-            case "CNAME":
-                dnsZone.update() //
-                        .withoutCNameRecordSet(subDomain) //
-                        .apply();
-                if (!rawDnsEntries.isEmpty()) {
-                    AssertTools.assertTrue(rawDnsEntries.size() == 1, "You can only have 1 CNAME entry");
-                    var update = new AtomicReference<>(dnsZone.update() //
-                            .defineCNameRecordSet(subDomain) //
-                            .withAlias(rawDnsEntries.get(0).getDetails()));
-                    update.get().withTimeToLive(rawDnsEntries.stream().map(RawDnsEntry::getTtl).reduce(172800L, Math::min)) //
-                            .attach() //
-                            .apply();
-                }
-                break;
-
-            case "MX":
-                dnsZone.update() //
-                        .withoutMXRecordSet(subDomain) //
-                        .apply();
-                if (!rawDnsEntries.isEmpty()) {
-                    var update = new AtomicReference<>(dnsZone.update() //
-                            .defineMXRecordSet(subDomain) //
-                            .withMailExchange(rawDnsEntries.get(0).getDetails(), rawDnsEntries.get(0).getPriority()));
-                    forEachAllButFirst(rawDnsEntries, it -> update.set(update.get().withMailExchange(it.getDetails(), it.getPriority())));
-                    update.get().withTimeToLive(rawDnsEntries.stream().map(RawDnsEntry::getTtl).reduce(172800L, Math::min)) //
-                            .attach() //
-                            .apply();
-                }
-                break;
+        if (!AzureDnsRecordSets.SUPPORTED_TYPES.contains(entryType)) {
+            logger.error("Skipping {}/{} because the type is not supported", entryName, entryType);
+            return;
+        }
 
-            case "NS":
-                dnsZone.update() //
-                        .withoutNSRecordSet(subDomain) //
-                        .apply();
-                if (!rawDnsEntries.isEmpty()) {
-                    var update = new AtomicReference<>(dnsZone.update() //
-                            .defineNSRecordSet(subDomain) //
-                            .withNameServer(rawDnsEntries.get(0).getDetails()));
-                    forEachAllButFirst(rawDnsEntries, it -> update.set(update.get().withNameServer(it.getDetails())));
-                    update.get().withTimeToLive(rawDnsEntries.stream().map(RawDnsEntry::getTtl).reduce(172800L, Math::min)) //
-                            .attach() //
-                            .apply();
-                }
-                break;
+        // Replace or remove the whole record set in one call
+        var recordSetsClient = azureResourceManager.dnsZones().manager().serviceClient().getRecordSets();
+        var recordType = RecordType.fromString(entryType);
+        if (rawDnsEntries.isEmpty()) {
+            recordSetsClient.delete(resourceGroupName, baseDomainName, subDomain, recordType);
+        } else {
+            recordSetsClient.createOrUpdate(resourceGroupName, baseDomainName, subDomain, recordType, AzureDnsRecordSets.toRecordSet(entryType, rawDnsEntries));
+        }
 
-            case "SRV":
-                dnsZone.update() //
-                        .withoutSrvRecordSet(subDomain) //
-                        .apply();
-                if (!rawDnsEntries.isEmpty()) {
-                    var update = new AtomicReference<>(dnsZone.update() //
-                            .defineSrvRecordSet(subDomain) //
-                            .withRecord(subDomain, rawDnsEntries.get(0).getPort(), rawDnsEntries.get(0).getPriority(), rawDnsEntries.get(0).getWeight()));
-                    forEachAllButFirst(rawDnsEntries, it -> update.set(update.get().withRecord(subDomain, it.getPort(), it.getPriority(), it.getWeight())));
-                    update.get().withTimeToLive(rawDnsEntries.stream().map(RawDnsEntry::getTtl).reduce(172800L, Math::min)) //
-                            .attach() //
-                            .apply();
-                }
-                break;
+    }
 
-            case "TXT":
-                dnsZone.update() //
-                        .withoutTxtRecordSet(subDomain) //
-                        .apply();
-                if (!rawDnsEntries.isEmpty()) {
-                    var update = new AtomicReference<>(dnsZone.update() //
-                            .defineTxtRecordSet(subDomain) //
-                            .withText(rawDnsEntries.get(0).getDetails()));
-                    forEachAllButFirst(rawDnsEntries, it -> update.set(update.get().withText(it.getDetails())));
-                    update.get().withTimeToLive(rawDnsEntries.stream().map(RawDnsEntry::getTtl).reduce(172800L, Math::min)) //
-                            .attach() //
-                            .apply();
-                }
-                break;
+    /**
+     * Set multiple record sets at the same time.
+     *
+     * @param dnsZone                 the zone
+     * @param rawDnsEntriesByNameType all the entries to have for each name and type. An empty list removes the record set
+     */
+    public void dnsSetEntries(DnsZone dnsZone, Map<Tuple2<String, String>, List<RawDnsEntry>> rawDnsEntriesByNameType) {
 
+        var executor = Executors.newFixedThreadPool(Math.max(1, Math.min(dnsWriteConcurrency, rawDnsEntriesByNameType.size())),
+                new ThreadFactoryBuilder().setNameFormat("azure-dns-%d").setDaemon(true).build());
+        try {
+            var futures = rawDnsEntriesByNameType.entrySet().stream()
+                    .map(it -> CompletableFuture.runAsync(() -> dnsSetEntry(dnsZone, it.getKey().getA(), it.getKey().getB(), it.getValue()), executor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdownNow();
         }
 
     }
@@ -834,131 +780,93 @@ public class CloudAzureService extends AbstractBasics {
 
     }
 
-    public void storageFileShareUpload(String resourceGroupName, String storageAccountName, String shareName, String sourceFolder, String targetFolder) {
-
-        init();
-
-        var client = new ShareFileClientBuilder()
-                .endpoint(String.format("https://%s.file.core.windows.net", storageAccountName))
-                .shareName(shareName)
-                .credential(new AzureNamedKeyCredential(storageAccountName, storageAccountKey(resourceGroupName, storageAccountName)))
-                .resourcePath(targetFolder)
-                .buildDirectoryClient();
+    public AzureFileShareSync.Stats storageFileShareUpload(String resourceGroupName, String storageAccountName, String shareName, String sourceFolder, String targetFolder) {
+        return storageFileShareUpload(resourceGroupName, storageAccountName, shareName, sourceFolder, targetFolder, 8, AzureFileShareSync.MAX_CHUNK_SIZE, false);
+    }
 
-        ListsComparator.compareStreams(
-                client.listFilesAndDirectories(new ShareListFilesAndDirectoriesOptions().setIncludeTimestamps(true), null, Context.NONE).stream().sorted(Comparator.comparing(ShareFileItem::getName)),
-                Arrays.stream(new File(sourceFolder).listFiles()).sorted(Comparator.comparing(File::getName)),
-                (a, b) -> a.getName().compareTo(b.getName()),
-                new ListComparatorHandler<>() {
-                    @Override
-                    public void both(ShareFileItem current, File desired) {
-
-                        // Check that it is same type (if not, delete and recreate)
-                        if (current.isDirectory() != desired.isDirectory()) {
-
-                            storageFileShareDeleteFileOrDirectory(resourceGroupName, storageAccountName, shareName, targetFolder, client, current);
-
-                            // Recreate
-                            storageFileShareCreateFileOrDirectory(resourceGroupName, storageAccountName, shareName, targetFolder, client, desired);
-
-                        } else {
-
-                            // Same type
-                            if (current.isDirectory()) {
-                                // Walk it
-                                var subSourceFolder = desired.getAbsolutePath();
-                                var subTargetFolder = targetFolder.isEmpty() ? current.getName() : targetFolder + "/" + current.getName();
-                                storageFileShareUpload(resourceGroupName, storageAccountName, shareName, subSourceFolder, subTargetFolder);
-                            } else {
-                                // Update the file if size or modification date are not the same
-                                long currentLastModificationSeconds = current.getProperties().getLastModified().toEpochSecond();
-                                long desiredLastModificationSeconds = desired.lastModified() / 1000;
-                                if (currentLastModificationSeconds < desiredLastModificationSeconds) {
-                                    logger.info("Upload file in {}/{} because the last modification date is locally more recent", targetFolder, desired.getName());
-                                    client.createFile(desired.getName(), desired.length())
-                                            .uploadFromFile(desired.getAbsolutePath());
-                                }
-                                if (current.getFileSize() != desired.length()) {
-                                    logger.info("Upload file in {}/{} because the size are different", targetFolder, desired.getName());
-                                    client.createFile(desired.getName(), desired.length())
-                                            .uploadFromFile(desired.getAbsolutePath());
-                                }
-                            }
+    public AzureFileShareSync.Stats storageFileShareUpload(String resourceGroupName, String storageAccountName, String shareName, String sourceFolder, String targetFolder, int parallelism, int chunkSize, boolean verify) {
 
+        init();
 
-                        }
+        // Get the manifest of the last successful sync
+        var absoluteSourceFolder = new File(sourceFolder).getAbsolutePath();
+        var manifestFile = JavaEnvironmentValues.getHomeDirectory() + "/.foilen-clouds-manager/file-share-sync/"
+                + HashSha256.hashString(storageAccountName + "|" + shareName + "|" + targetFolder + "|" + absoluteSourceFolder) + ".json";
+        FileShareSyncManifest previousManifest = null;
+        if (FileTools.exists(manifestFile)) {
+            previousManifest = JsonTools.readFromFile(manifestFile, FileShareSyncManifest.class);
+            if (!StringTools.safeEquals(previousManifest.getSourceFolder(), absoluteSourceFolder)) {
+                previousManifest = null;
+            }
+        }
 
-                    }
+        var sync = new AzureFileShareSync(storageFileShareClient(resourceGroupName, storageAccountName, shareName), parallelism, chunkSize)
+                .setPreviousManifest(previousManifest)
+                .setVerify(verify);
+        var stats = sync.sync(sourceFolder, targetFolder);
+        logger.info("{}", stats);
 
-                    @Override
-                    public void leftOnly(ShareFileItem current) {
-                        // Delete file or delete folder recursively
-                        storageFileShareDeleteFileOrDirectory(resourceGroupName, storageAccountName, shareName, targetFolder, client, current);
-                    }
+        DirectoryTools.createPathToFile(manifestFile);
+        JsonTools.writeToFile(manifestFile, sync.getManifest());
 
-                    @Override
-                    public void rightOnly(File desired) {
-                        //  Upload file or create directory and walk it
-                        storageFileShareCreateFileOrDirectory(resourceGroupName, storageAccountName, shareName, targetFolder, client, desired);
-                    }
-                }
-        );
+        return stats;
 
     }
 
-    private void storageFileShareCreateFileOrDirectory(String resourceGroupName, String storageAccountName, String shareName, String targetFolder, ShareDirectoryClient client, File fileOrFolderToCreate) {
-        if (fileOrFolderToCreate.isDirectory()) {
-            logger.info("Create folder {}/{}", targetFolder, fileOrFolderToCreate.getName());
-            client.createSubdirectory(fileOrFolderToCreate.getName());
-            var subSourceFolder = fileOrFolderToCreate.getAbsolutePath();
-            var subTargetFolder = targetFolder.isEmpty() ? fileOrFolderToCreate.getName() : targetFolder + "/" + fileOrFolderToCreate.getName();
-            storageFileShareUpload(resourceGroupName, storageAccountName, shareName, subSourceFolder, subTargetFolder);
-        } else {
-            logger.info("Upload file in {}/{}", targetFolder, fileOrFolderToCreate.getName());
-            client.createFile(fileOrFolderToCreate.getName(), fileOrFolderToCreate.length())
-                    .uploadFromFile(fileOrFolderToCreate.getAbsolutePath());
+    private ShareClient storageFileShareClient(String resourceGroupName, String storageAccountName, String shareName) {
+        // Per account key to get a new client when the key changes
+        var storageAccountKey = storageAccountKey(resourceGroupName, storageAccountName);
+        var cacheKey = storageAccountKeyCacheKey(resourceGroupName, storageAccountName) + "|" + shareName + "|" + HashSha256.hashString(storageAccountKey);
+        try {
+            return shareClientCache.get(cacheKey, () -> new ShareServiceClientBuilder()
+                    .endpoint(String.format("https://%s.file.core.windows.net", storageAccountName))
+                    .credential(new AzureNamedKeyCredential(storageAccountName, storageAccountKey))
+                    .buildClient()
+                    .getShareClient(shareName));
+        } catch (ExecutionException e) {
+            throw new CliException("Problem getting the share client", e);
         }
     }
 
-    private void storageFileShareDeleteFileOrDirectory(String resourceGroupName, String storageAccountName, String shareName, String targetFolder, ShareDirectoryClient client, ShareFileItem toDelete) {
-        if (toDelete.isDirectory()) {
-
-            var subTargetFolder = targetFolder.isEmpty() ? toDelete.getName() : targetFolder + "/" + toDelete.getName();
-            storageFileShareDeleteAllInFolder(resourceGroupName, storageAccountName, shareName, subTargetFolder);
-            logger.info("Delete folder {}", subTargetFolder);
-            client.deleteSubdirectory(toDelete.getName());
-
-        } else {
-
-            logger.info("Delete file {}/{}", targetFolder, toDelete.getName());
-            client.deleteFile(toDelete.getName());
-
-        }
+    public void storageFileShareDeleteAllInFolder(String resourceGroupName, String storageAccountName, String shareName, String folderToDelete) {
+        storageFileShareDeleteFolder(resourceGroupName, storageAccountName, shareName, folderToDelete, false, 8);
     }
 
-    public void storageFileShareDeleteAllInFolder(String resourceGroupName, String storageAccountName, String shareName, String folderToDelete) {
+    public AzureFileShareDelete.Stats storageFileShareDeleteFolder(String resourceGroupName, String storageAccountName, String shareName, String folderToDelete, boolean deleteFolder, int parallelism) {
 
         init();
 
-        var client = new ShareFileClientBuilder()
-                .endpoint(String.format("https://%s.file.core.windows.net", storageAccountName))
-                .shareName(shareName)
-                .credential(new AzureNamedKeyCredential(storageAccountName, storageAccountKey(resourceGroupName, storageAccountName)))
-                .resourcePath(folderToDelete)
-                .buildDirectoryClient();
-
         logger.info("Delete all in folder {}", folderToDelete);
-        client.listFilesAndDirectories().forEach(shareFileItem -> {
-            storageFileShareDeleteFileOrDirectory(resourceGroupName, storageAccountName, shareName, folderToDelete, client, shareFileItem);
-        });
+        var shareClient = storageFileShareClient(resourceGroupName, storageAccountName, shareName);
+        var client = folderToDelete.isEmpty() ? shareClient.getRootDirectoryClient() : shareClient.getDirectoryClient(folderToDelete);
+        var stats = new AzureFileShareDelete(parallelism).delete(client, folderToDelete, deleteFolder && !folderToDelete.isEmpty());
+        logger.info("{}", stats);
+        return stats;
 
     }
 
+    /**
+     * Let the next call try to authenticate again after a failure. Without it, a failure stays until the application stops.
+     */
+    public void clearAuthenticationFailure() {
+        authenticationFailed = false;
+    }
+
     private void init() {
+        if (initialized) {
+            return;
+        }
+        initOnce();
+    }
+
+    private synchronized void initOnce() {
 
         if (disabled) {
             throw new DisabledException("Azure is disabled");
         }
+        if (authenticationFailed) {
+            throw new DisabledException("Azure is disabled since the authentication failed");
+        }
 
         if (profile == null) {
             logger.info("Prepare profile");
@@ -994,27 +902,61 @@ public class CloudAzureService extends AbstractBasics {
                         .build();
             }
 
-            tokenCredential = request -> {
+            TokenCredential loggingTokenCredential = request -> {
                 logger.info("Get token for Scopes {}, tenant id {}, claims {}", request.getScopes(), request.getTenantId(), request.getClaims());
                 return wrappedTokenCredential.getToken(request);
             };
+
+            AzureTokenFileCache tokenFileCache = null;
+            if (SystemTools.getPropertyOrEnvironment("AZURE_TOKEN_FILE_CACHE", "false").toLowerCase().equals("true")) {
+                tokenFileCache = new AzureTokenFileCache(Paths.get(JavaEnvironmentValues.getHomeDirectory(), ".foilen-clouds-manager"));
+            }
+            var tokenNamespace = (forceAzCliAuth ? "az-cli" : "default")
+                    + "|" + profile.getTenantId()
+                    + "|" + userName
+                    + "|" + SystemTools.getPropertyOrEnvironment("AZURE_CLIENT_ID", "");
+            var refreshBefore = Duration.ofSeconds(Long.parseLong(SystemTools.getPropertyOrEnvironment("AZURE_TOKEN_REFRESH_BEFORE_SECONDS", "300")));
+            tokenManager = new AzureTokenManager(loggingTokenCredential, tokenNamespace, refreshBefore, tokenFileCache);
+            tokenCredential = tokenManager;
         }
 
         if (azureResourceManager == null) {
-            logger.info("Prepare resource manager");
             try {
-                azureResourceManager = AzureResourceManager.configure() //
+                azureResourceManager = manager(AzureResourceManager.class, (credential, azureProfile) -> AzureResourceManager.configure() //
                         .withLogLevel(HttpLogDetailLevel.BASIC) //
-                        .authenticate(tokenCredential, profile) //
-                        .withDefaultSubscription();
+                        .authenticate(credential, azureProfile) //
+                        .withDefaultSubscription());
             } catch (Exception e) {
                 logger.error("Could not authenticate", e);
-                disabled = true;
-                throw new DisabledException("Azure is disabled");
+                authenticationFailed = true;
+                throw new DisabledException("Azure is disabled since the authentication failed");
             }
 
         }
 
+        initialized = true;
+
+    }
+
+    /**
+     * Get the service manager of that type for the current credential and subscription. It is created the first time and then shared by all the calls.
+     * {@link #init()} must be called before.
+     *
+     * @param managerType the type of manager
+     * @param factory     creates the manager with the credential and the profile
+     * @param <T>         the type of manager
+     * @return the manager
+     */
+    private <T> T manager(Class<T> managerType, BiFunction<TokenCredential, AzureProfile, T> factory) {
+        var key = managerType.getName() + "|" + profile.getSubscriptionId();
+        return managerType.cast(managerByKey.computeIfAbsent(key, k -> {
+            logger.info("Prepare {}", managerType.getSimpleName());
+            return factory.apply(tokenCredential, profile);
+        }));
+    }
+
+    private MariaDBManager mariadbManager() {
+        return manager(MariaDBManager.class, MariaDBManager::authenticate);
     }
 
     public AzureKeyVault keyVaultCreate(String resourceGroupName, Optional<String> regionName, String keyVaultName) {
@@ -1065,25 +1007,90 @@ public class CloudAzureService extends AbstractBasics {
         return azureKeyVault;
     }
 
+    private SecretClient keyVaultSecretClient(AzureKeyVault azureKeyVault) {
+        return secretClientByVaultId.computeIfAbsent(azureKeyVault.getId(), vaultId -> {
+            logger.info("Get vault {}", vaultId);
+            var vaultUri = azureResourceManager.vaults().getById(vaultId).vaultUri();
+            return new SecretClientBuilder()
+                    .vaultUrl(vaultUri)
+                    .credential(tokenCredential)
+                    .buildClient();
+        });
+    }
+
     public String keyVaultSecretGetAsText(AzureKeyVault azureKeyVault, String secretName) {
 
         init();
 
-        secretName = sanitizedSecretName(secretName);
+        var sanitizedSecretName = sanitizedSecretName(secretName);
 
-        logger.info("Get vault {}", azureKeyVault.getId());
+        return keyVaultSecretPrefetch.get(azureKeyVault.getId(), sanitizedSecretName, () -> {
+            logger.info("Get secret {}", sanitizedSecretName);
 
-        Vault vault = azureResourceManager.vaults() //
-                .getById(azureKeyVault.getId());
+            try {
+                return keyVaultSecretClient(azureKeyVault).getSecret(sanitizedSecretName).getValue();
+            } catch (ResourceNotFoundException e) {
+                logger.info("Secret {} doesn't exist", azureKeyVault.getId());
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Stop using the secrets retrieved by {@link #keyVaultSecretPrefetch(AzureKeyVault, String)}.
+     *
+     * @param azureKeyVault the vault
+     * @param prefix        the prefix of the secrets names
+     */
+    public void keyVaultSecretPrefetchClear(AzureKeyVault azureKeyVault, String prefix) {
+        keyVaultSecretPrefetch.clear(azureKeyVault.getId(), sanitizedSecretName(prefix));
+    }
+
+    /**
+     * Get all the secrets that start with the prefix at once: one list of the secrets and then all the values at the same time. Until it expires
+     * (AZURE_KEYVAULT_PREFETCH_TTL_SECONDS) or is cleared, the reads of those secrets are served from what was retrieved and the writes are also applied on it.
+     *
+     * @param azureKeyVault the vault
+     * @param prefix        the prefix of the secrets names (e.g. "domain--")
+     */
+    public void keyVaultSecretPrefetch(AzureKeyVault azureKeyVault, String prefix) {
 
-        logger.info("Get secret {}", secretName);
+        init();
 
+        var sanitizedPrefix = sanitizedSecretName(prefix);
+        var secretClient = keyVaultSecretClient(azureKeyVault);
+
+        logger.info("Prefetch secrets {}* of vault {}", sanitizedPrefix, azureKeyVault.getId());
+        var secretNames = secretClient.listPropertiesOfSecrets().stream()
+                .filter(it -> it.getName().startsWith(sanitizedPrefix))
+                .filter(it -> !Boolean.FALSE.equals(it.isEnabled()))
+                .map(SecretProperties::getName)
+                .collect(Collectors.toList());
+
+        ConcurrentMap<String, String> secrets = new ConcurrentHashMap<>();
+        var executor = Executors.newFixedThreadPool(Math.max(1, Math.min(keyVaultReadConcurrency, secretNames.size())),
+                new ThreadFactoryBuilder().setNameFormat("azure-keyvault-%d").setDaemon(true).build());
         try {
-            return vault.secrets().getByName(secretName).getValue();
-        } catch (ResourceNotFoundException e) {
-            logger.info("Secret {} doesn't exist", azureKeyVault.getId());
-            return null;
+            var futures = secretNames.stream()
+                    .map(secretName -> CompletableFuture.runAsync(() -> {
+                        var value = secretClient.getSecret(secretName).getValue();
+                        if (value != null) {
+                            secrets.put(secretName, value);
+                        }
+                    }, executor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdownNow();
         }
+
+        logger.info("Prefetched {} secrets", secrets.size());
+        keyVaultSecretPrefetch.put(azureKeyVault.getId(), sanitizedPrefix, secrets);
     }
 
     public PagedIterable<Secret> keyVaultSecretList(AzureKeyVault azureKeyVault) {
@@ -1107,17 +1114,13 @@ public class CloudAzureService extends AbstractBasics {
 
         secretName = sanitizedSecretName(secretName);
 
-        logger.info("Get vault {}", azureKeyVault.getId());
-
-        Vault vault = azureResourceManager.vaults() //
-                .getById(azureKeyVault.getId());
-
         logger.info("Set secret {}", secretName);
 
         try {
-            vault.secrets().define(secretName).withValue(value).create();
+            keyVaultSecretClient(azureKeyVault).setSecret(secretName, value);
+            keyVaultSecretPrefetch.set(azureKeyVault.getId(), secretName, value);
         } catch (Exception e) {
-            logger.error("Could not set secret {}", azureKeyVault.getId(), e);
+            throw new CliException("Could not set secret " + secretName + " in " + azureKeyVault.getId(), e);
         }
     }
 
@@ -1199,7 +1202,7 @@ public class CloudAzureService extends AbstractBasics {
         init();
 
         logger.info("List MariaDB databases");
-        var manager = MariaDBManager.authenticate(tokenCredential, profile);
+        var manager = mariadbManager();
         return manager.servers().list().stream()
                 .map(AzureMariadb::from)
                 .sorted((a, b) -> StringTools.safeComparisonNullFirst(a.getName(), b.getName()))
@@ -1213,7 +1216,7 @@ public class CloudAzureService extends AbstractBasics {
 
         logger.info("Get MariaDB database {}", mariadbId);
         try {
-            var manager = MariaDBManager.authenticate(tokenCredential, profile);
+            var manager = mariadbManager();
             var server = manager.servers().getById(mariadbId);
             return Optional.of(AzureMariadb.from(server));
         } catch (ManagementException e) {
@@ -1230,7 +1233,7 @@ public class CloudAzureService extends AbstractBasics {
 
         logger.info("Get MariaDB database {} / {}", resourceGroupName, mariadbName);
         try {
-            var manager = MariaDBManager.authenticate(tokenCredential, profile);
+            var manager = mariadbManager();
             var server = manager.servers().getByResourceGroup(resourceGroupName, mariadbName);
             return Optional.of(AzureMariadb.from(server));
         } catch (ManagementException e) {
@@ -1263,7 +1266,7 @@ public class CloudAzureService extends AbstractBasics {
         if (currentResource == null) {
             // create
             logger.info("Create: {}", desiredResource);
-            var manager = MariaDBManager.authenticate(tokenCredential, profile);
+            var manager = mariadbManager();
             currentResource = AzureMariadb.from(manager.servers().define(desiredResource.getName())
                     .withRegion(desiredResource.getRegionId())
                     .withExistingResourceGroup(desiredResource.getResourceGroup())
@@ -1374,6 +1377,86 @@ public class CloudAzureService extends AbstractBasics {
 
     }
 
+    /**
+     * Get the id of a resource.
+     *
+     * @param resourceGroupName the resource group
+     * @param resourceType      the type of resource (e.g. "Microsoft.Web/sites") or null for the resource group itself
+     * @param name              the name of the resource
+     * @return the id
+     */
+    public String resourceId(String resourceGroupName, String resourceType, String name) {
+
+        init();
+
+        if (resourceType == null) {
+            return resourceGroupArmId(resourceGroupName);
+        }
+        return armId(resourceGroupName, resourceType, name);
+    }
+
+    /**
+     * Get a fingerprint of a resource with as few calls as possible. It changes when the resource changes. For DNS zones, it also changes when any record set
+     * changes, for storage accounts, when any file share changes and for web applications, when their configuration, application settings or mounted
+     * storages change.
+     *
+     * @param armId the id of the resource
+     * @return the fingerprint or null if the resource does not exist
+     */
+    public String resourceFingerprint(String armId) {
+
+        init();
+
+        var providersIndex = armId.indexOf("/providers/");
+        var resourceType = "";
+        if (providersIndex != -1) {
+            var parts = armId.substring(providersIndex + "/providers/".length()).split("/");
+            resourceType = (parts[0] + "/" + parts[1]).toLowerCase();
+        }
+        var apiVersion = FINGERPRINT_API_VERSION_BY_TYPE.get(resourceType);
+        if (apiVersion == null) {
+            throw new CliException("Cannot get the fingerprint of " + armId);
+        }
+
+        var url = "https://management.azure.com" + armId;
+        var body = azureCustomClient.resourceRaw(url + "?api-version=" + apiVersion);
+        if (body == null) {
+            return null;
+        }
+        var fingerprint = new StringBuilder(HashSha256.hashString(body));
+        switch (resourceType) {
+            case "microsoft.network/dnszones":
+                // All the pages of record sets
+                var nextUrl = url + "/recordsets?api-version=" + apiVersion;
+                while (nextUrl != null) {
+                    var page = azureCustomClient.resourceRaw(nextUrl);
+                    if (page == null) {
+                        return null;
+                    }
+                    fingerprint.append(HashSha256.hashString(page));
+                    nextUrl = (String) JsonTools.readFromString(page, Map.class).get("nextLink");
+                }
+                break;
+            case "microsoft.storage/storageaccounts":
+                var shares = azureCustomClient.resourceRaw(url + "/fileServices/default/shares?api-version=" + apiVersion);
+                fingerprint.append(HashSha256.hashString(Strings.nullToEmpty(shares)));
+                break;
+            case "microsoft.web/sites":
+                // The site does not contain the whole configuration, the application settings and the mounted storages
+                var webConfig = azureCustomClient.resourceRaw(url + "/config/web?api-version=" + apiVersion);
+                var appSettings = azureCustomClient.resourceRawPost(url + "/config/appsettings/list?api-version=" + apiVersion);
+                var storageAccounts = azureCustomClient.resourceRawPost(url + "/config/azurestorageaccounts/list?api-version=" + apiVersion);
+                if (webConfig == null || appSettings == null || storageAccounts == null) {
+                    return null;
+                }
+                fingerprint.append(HashSha256.hashString(webConfig));
+                fingerprint.append(HashSha256.hashString(appSettings));
+                fingerprint.append(HashSha256.hashString(storageAccounts));
+                break;
+        }
+        return HashSha256.hashString(fingerprint.toString());
+    }
+
     public String storageAccountKey(String resourceGroupName, String storageAccountName) {
 
         init();
@@ -1511,21 +1594,65 @@ public class CloudAzureService extends AbstractBasics {
 
     }
 
+    /**
+     * List all the web applications. The listed sites are used as is and only their configuration and app settings are retrieved, at the same time for all of
+     * them. The certificates are listed once per resource group.
+     *
+     * @return the web applications
+     */
     public List<AzureWebApp> webappList() {
 
         init();
 
-        return azureResourceManager.webApps().list().stream()
-                .map(it -> {
-                            var webApp = webappFindByIdRaw(it.id()).get();
+        logger.info("List Web Applications");
+        var totalCalls = new AtomicInteger();
+        var webApps = azureResourceManager.webApps().list().streamByPage()
+                .peek(page -> totalCalls.incrementAndGet())
+                .flatMap(page -> page.getValue().stream())
+                .collect(Collectors.toList());
+        var webAppsClient = azureResourceManager.webApps().manager().serviceClient().getWebApps();
+
+        Map<String, CompletableFuture<Map<String, AppServiceCertificate>>> certificatesByNameByResourceGroup = new ConcurrentHashMap<>();
+        var executor = Executors.newFixedThreadPool(Math.max(1, Math.min(webappReadConcurrency, webApps.size() * 2)),
+                new ThreadFactoryBuilder().setNameFormat("azure-webapp-%d").setDaemon(true).build());
+        try {
+            var futures = webApps.stream()
+                    .map(webApp -> {
+                        var calls = new AtomicInteger();
+                        var webSiteConfigFuture = CompletableFuture.supplyAsync(() -> webappConfig(webApp.id(), calls), executor);
+                        var appSettingsFuture = CompletableFuture.supplyAsync(() -> {
+                            calls.incrementAndGet();
+                            return webAppsClient.listApplicationSettings(webApp.resourceGroupName(), webApp.name()).properties();
+                        }, executor);
+                        // Shared by all the applications of the resource group
+                        var certificateByNameFuture = certificatesByNameByResourceGroup.computeIfAbsent(webApp.resourceGroupName().toLowerCase(), k -> CompletableFuture.supplyAsync(
+                                () -> applicationServiceCertificatesListByName(webApp.resourceGroupName(), totalCalls), executor));
+                        return CompletableFuture.allOf(webSiteConfigFuture, appSettingsFuture, certificateByNameFuture).thenApply(v -> {
+                            logger.info("Got Web Application {} / {} with {} calls", webApp.resourceGroupName(), webApp.name(), calls.get());
+                            totalCalls.addAndGet(calls.get());
                             return AzureWebApp.from(
                                     webApp,
-                                    azureCustomClient.websiteConfig(it.id()).getSingleValue(),
-                                    applicationServiceCertificateHostnamesWithCertificates(webApp)
+                                    webSiteConfigFuture.join(),
+                                    appSettingsFuture.join(),
+                                    applicationServiceCertificateHostnamesWithCertificates(webApp.hostnames(), certificateByNameFuture.join())
                             );
-                        }
-                )
-                .collect(Collectors.toList());
+                        });
+                    })
+                    .collect(Collectors.toList());
+
+            var result = futures.stream()
+                    .map(CompletableFuture::join)
+                    .collect(Collectors.toList());
+            logger.info("Got {} Web Applications with {} calls ({} lists of certificates)", result.size(), totalCalls.get(), certificatesByNameByResourceGroup.size());
+            return result;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
 
     }
 
@@ -1565,8 +1692,9 @@ public class CloudAzureService extends AbstractBasics {
                     .withWebAppAlwaysOn(desiredResource.getAlwaysOn())
                     .withWebSocketsEnabled(desiredResource.getWebSocketsEnabled())
                     .create();
+            snapshotPut("webapp", webapp.id(), webapp);
             currentResource = AzureWebApp.from(webapp,
-                    azureCustomClient.websiteConfig(webapp.id()).getSingleValue(),
+                    webappConfig(webapp.id()),
                     applicationServiceCertificateHostnamesWithCertificates(webapp)
             );
             context.addModificationAdd("Azure Web Application", desiredResource.getName());
@@ -1587,7 +1715,10 @@ public class CloudAzureService extends AbstractBasics {
             if (!updateActions.isEmpty()) {
                 logger.info("Azure Web Application - Update some properties of {}", desiredResource.getName());
                 var resourceId = currentResource.getId();
-                updateActions.forEach(it -> it.apply(azureResourceManager.webApps().getById(resourceId)).forEach(context::addModification));
+                updateActions.forEach(it -> {
+                    it.apply(webappGetById(resourceId)).forEach(context::addModification);
+                    snapshotInvalidate(resourceId);
+                });
             }
         }
 
@@ -1627,6 +1758,7 @@ public class CloudAzureService extends AbstractBasics {
         if (hasChanges.get()) {
             logger.info("[{}] Update mounts", desiredResource.getName());
             azureCustomClient.websiteMountStorageUpdate(desiredResource.getId(), desiredResource.getResourceGroup(), desiredResource.getMountStorages());
+            snapshotInvalidate(desiredResource.getId());
         }
 
         // Update custom domains
@@ -1645,9 +1777,10 @@ public class CloudAzureService extends AbstractBasics {
                     public void leftOnly(Map.Entry<String, AzureWebAppCustomHostname> current) {
                         logger.info("[{}] Remove Azure Web Application & Custom Domain: {}", desiredResource.getName(), current);
                         try {
-                            var webApp = azureResourceManager.webApps().getById(desiredResource.getId());
+                            var webApp = webappGetById(desiredResource.getId());
                             webApp.update().withoutHostnameBinding(current.getKey())
                                     .apply();
+                            snapshotInvalidate(desiredResource.getId());
                             context.addModificationRemove("Azure Web Application & Custom Domain", desiredResource.getName() + "/" + current.getKey());
                         } catch (Exception e) {
                             logger.warn("Problem removing the custom domain {}. Error: [{}]. Retry later", current.getKey(), e.getMessage());
@@ -1661,7 +1794,7 @@ public class CloudAzureService extends AbstractBasics {
                         logger.info("[{}] Add Azure Web Application & Custom Domain: {}", desiredResource.getName(), desired);
                         String domainName = desired.getValue().getDomainName();
                         try {
-                            var webApp = azureResourceManager.webApps().getById(desiredResource.getId());
+                            var webApp = webappGetById(desiredResource.getId());
                             webApp.update().defineHostnameBinding()
                                     .withThirdPartyDomain(domainName)
                                     .withSubDomain(desired.getKey())
@@ -1669,10 +1802,11 @@ public class CloudAzureService extends AbstractBasics {
                                     .attach()
                                     .apply()
                             ;
+                            snapshotInvalidate(desiredResource.getId());
                             context.addModificationAdd("Azure Web Application & Custom Domain", desiredResource.getName() + "/" + desired.getKey());
                         } catch (Exception e) {
                             logger.warn("Problem adding the custom domain {}. Error: [{}]. Retry later", desired.getKey(), e.getMessage());
-                            context.needsNextStage(desiredResource.getName(), desired.getKey());
+                            context.needsNextStage(hostnameResolvesProbe("asuid." + desired.getKey(), Type.TXT), desiredResource.getName(), desired.getKey());
                         }
 
                     }
@@ -1680,7 +1814,7 @@ public class CloudAzureService extends AbstractBasics {
         );
 
         // Create App Service Managed Certificate
-        var currentCertificates = applicationServiceCertificateHostnamesWithCertificates(azureResourceManager.webApps().getById(desiredResource.getId()));
+        var currentCertificates = applicationServiceCertificateHostnamesWithCertificates(webappGetById(desiredResource.getId()));
         var desiredCustomHostnameCerts = desiredResource.getCustomHostnames().entrySet().stream()
                 .filter(it -> it.getValue().isCreateCertificate())
                 .map(Map.Entry::getKey)
@@ -1699,6 +1833,7 @@ public class CloudAzureService extends AbstractBasics {
                         logger.info("[{}] Remove Azure Web Application & Certificate: {}", desiredResource.getName(), current);
                         try {
                             azureResourceManager.appServiceCertificates().deleteByResourceGroup(desiredResource.getResourceGroup(), current);
+                            snapshotRemove("certificatesByName", resourceGroupArmId(desiredResource.getResourceGroup()));
                             context.addModificationRemove("Azure Web Application & Certificate", desiredResource.getName() + "/" + current);
                         } catch (Exception e) {
                             logger.warn("Problem removing the certificate for domain {}. Error: [{}]. Retry later", current, e.getMessage(), e);
@@ -1711,17 +1846,18 @@ public class CloudAzureService extends AbstractBasics {
                         logger.info("[{}] Add Azure Web Application & Certificate: {}", desiredResource.getName(), desired);
                         try {
                             azureCustomClient.applicationServiceCertificateCreate(desiredResource, desiredResource.getCustomHostnames().get(desired).getDomainName(), desired);
+                            snapshotRemove("certificatesByName", resourceGroupArmId(desiredResource.getResourceGroup()));
                             context.addModificationAdd("Azure Web Application & Certificate", desiredResource.getName() + "/" + desired);
                         } catch (Exception e) {
                             logger.warn("Problem adding the certificate for domain {}. Error: [{}]. Retry later", desired, e.getMessage(), e);
-                            context.needsNextStage(desiredResource.getName(), desired);
+                            context.needsNextStage(hostnameResolvesProbe(desired, Type.A), desiredResource.getName(), desired);
                         }
                     }
                 }
         );
 
         // Add binding
-        var currentBindedCustomNames = azureResourceManager.webApps().getById(desiredResource.getId()).getHostnameBindings().entrySet().stream()
+        var currentBindedCustomNames = webappHostnameBindings(webappGetById(desiredResource.getId())).entrySet().stream()
                 .filter(it -> !it.getKey().endsWith(".azurewebsites.net"))
                 .filter(it -> it.getValue().innerModel().sslState() != null)
                 .filter(it -> it.getValue().innerModel().sslState() != SslState.DISABLED)
@@ -1740,8 +1876,9 @@ public class CloudAzureService extends AbstractBasics {
                     public void leftOnly(String current) {
                         logger.info("[{}] Remove Azure Web Application & Certificate Binding: {}", desiredResource.getName(), current);
                         try {
-                            var webApp = azureResourceManager.webApps().getById(desiredResource.getId());
+                            var webApp = webappGetById(desiredResource.getId());
                             webApp.update().withoutSslBinding(current).apply();
+                            snapshotInvalidate(desiredResource.getId());
                             context.addModificationRemove("Azure Web Application & Certificate Binding", desiredResource.getName() + "/" + current);
                         } catch (Exception e) {
                             logger.warn("Problem removing the certificate binding for domain {}. Error: [{}]. Retry later", current, e.getMessage(), e);
@@ -1753,17 +1890,18 @@ public class CloudAzureService extends AbstractBasics {
                     public void rightOnly(String desired) {
                         logger.info("[{}] Add Azure Web Application & Certificate Binding: {}", desiredResource.getName(), desired);
                         try {
-                            var webApp = azureResourceManager.webApps().getById(desiredResource.getId());
+                            var webApp = webappGetById(desiredResource.getId());
                             webApp.update().defineSslBinding()
                                     .forHostname(desired)
                                     .withExistingCertificate(desired)
                                     .withSniBasedSsl()
                                     .attach()
                                     .apply();
+                            snapshotInvalidate(desiredResource.getId());
                             context.addModificationAdd("Azure Web Application & Certificate Binding", desiredResource.getName() + "/" + desired);
                         } catch (Exception e) {
                             logger.warn("Problem adding the certificate binding for domain {}. Error: [{}]. Retry later", desired, e.getMessage(), e);
-                            context.needsNextStage(desiredResource.getName(), desired);
+                            context.needsNextStage(certificateExistsProbe(desiredResource.getResourceGroup(), desired), desiredResource.getName(), desired);
                         }
                     }
                 }
@@ -1782,7 +1920,7 @@ public class CloudAzureService extends AbstractBasics {
         var resource = resourceOptional.get();
         return Optional.of(AzureWebApp.from(
                 resource,
-                azureCustomClient.websiteConfig(azureWebappId).getSingleValue(),
+                webappConfig(azureWebappId),
                 applicationServiceCertificateHostnamesWithCertificates(resource)
         ));
     }
@@ -1791,11 +1929,13 @@ public class CloudAzureService extends AbstractBasics {
 
         init();
 
-        try {
-            return Optional.of(azureResourceManager.webApps().getById(azureWebappId));
-        } catch (ResourceNotFoundException e) {
-            return Optional.empty();
-        }
+        return snapshotGet("webapp", azureWebappId, () -> {
+            try {
+                return Optional.of(azureResourceManager.webApps().getById(azureWebappId));
+            } catch (ResourceNotFoundException e) {
+                return Optional.empty();
+            }
+        });
     }
 
     public Optional<AzureWebApp> webappFindByName(String resourceGroupName, String name) {
@@ -1809,7 +1949,7 @@ public class CloudAzureService extends AbstractBasics {
         var resource = resourceOptional.get();
         return Optional.of(AzureWebApp.from(
                 resource,
-                azureCustomClient.websiteConfig(resource.id()).getSingleValue(),
+                webappConfig(resource.id()),
                 applicationServiceCertificateHostnamesWithCertificates(resource)
         ));
     }
@@ -1818,14 +1958,35 @@ public class CloudAzureService extends AbstractBasics {
 
         init();
 
-        try {
-            return Optional.of(azureResourceManager.webApps().getByResourceGroup(resourceGroupName, name));
-        } catch (ManagementException e) {
-            if (StringTools.safeEquals(e.getValue().getCode(), AzureConstants.RESOURCE_NOT_FOUND)) {
-                return Optional.empty();
+        return snapshotGet("webapp", armId(resourceGroupName, "Microsoft.Web/sites", name), () -> {
+            try {
+                return Optional.of(azureResourceManager.webApps().getByResourceGroup(resourceGroupName, name));
+            } catch (ManagementException e) {
+                if (StringTools.safeEquals(e.getValue().getCode(), AzureConstants.RESOURCE_NOT_FOUND)) {
+                    return Optional.empty();
+                }
+                throw e;
             }
-            throw e;
-        }
+        });
+    }
+
+    private WebApp webappGetById(String azureWebappId) {
+        return webappFindByIdRaw(azureWebappId).orElseThrow(() -> new ManageUnrecoverableException("The Web Application " + azureWebappId + " does not exist"));
+    }
+
+    private AzureWebSiteConfig webappConfig(String azureWebappId) {
+        return webappConfig(azureWebappId, new AtomicInteger());
+    }
+
+    private AzureWebSiteConfig webappConfig(String azureWebappId, AtomicInteger calls) {
+        return snapshotGet("webappConfig", azureWebappId, () -> {
+            calls.incrementAndGet();
+            return Optional.ofNullable(azureCustomClient.websiteConfig(azureWebappId).getSingleValue());
+        }).orElse(null);
+    }
+
+    private Map<String, HostnameBinding> webappHostnameBindings(WebApp webApp) {
+        return snapshotGet("webappHostnameBindings", webApp.id(), () -> Optional.of(webApp.getHostnameBindings())).get();
     }
 
     public void webAppServicePushCertificate(String hostname, AzureWebApp azureWebApp, RSACertificate caRsaCertificate, RSACertificate hostRsaCertificate, String pfxPassword) {
@@ -1889,10 +2050,11 @@ public class CloudAzureService extends AbstractBasics {
         } catch (IOException e) {
             throw new CliException("Problem creating pfx file", e);
         }
-        azureResourceManager.webApps().getById(azureWebApp.getId()) //
+        webappGetById(azureWebApp.getId()) //
                 .update() //
                 .defineSslBinding().forHostname(hostname).withPfxCertificateToUpload(pfxFile, pfxPassword).withSniBasedSsl().attach() //
                 .apply();
+        snapshotInvalidate(azureWebApp.getId());
         pfxFile.delete();
 
     }
@@ -1909,29 +2071,65 @@ public class CloudAzureService extends AbstractBasics {
         }
     }
 
-    private <T> void forEachAllButFirst(List<T> items, Consumer<T> action) {
-        var it = items.iterator();
+    private String armId(String resourceGroupName, String resourceType, String name) {
+        return resourceGroupArmId(resourceGroupName) + "/providers/" + resourceType + "/" + name;
+    }
+
+    private String resourceGroupArmId(String resourceGroupName) {
+        return "/subscriptions/" + azureResourceManager.subscriptionId() + "/resourceGroups/" + resourceGroupName;
+    }
+
+    private <T> Optional<T> snapshotGet(String kind, String armId, Supplier<Optional<T>> loader) {
+        var currentSnapshot = snapshot;
+        if (currentSnapshot == null) {
+            return loader.get();
+        }
+        return currentSnapshot.get(kind, armId, loader);
+    }
 
-        // Skip first
-        if (it.hasNext()) {
-            it.next();
+    private void snapshotInvalidate(String armId) {
+        var currentSnapshot = snapshot;
+        if (currentSnapshot != null) {
+            currentSnapshot.invalidate(armId);
         }
+    }
 
-        // All the rest
-        while (it.hasNext()) {
-            var next = it.next();
-            action.accept(next);
+    private void snapshotRemove(String kind, String armId) {
+        var currentSnapshot = snapshot;
+        if (currentSnapshot != null) {
+            currentSnapshot.remove(kind, armId);
         }
     }
 
+    private void snapshotPut(String kind, String armId, Object value) {
+        var currentSnapshot = snapshot;
+        if (currentSnapshot != null) {
+            currentSnapshot.put(kind, armId, value);
+        }
+    }
+
+    /**
+     * Start keeping what is retrieved until {@link #snapshotStop()} is called.
+     */
+    public void snapshotStart() {
+        snapshot = new AzureResourceSnapshot();
+    }
+
+    /**
+     * Stop keeping what is retrieved.
+     *
+     * @return the snapshot that was used (to get its stats) or null if none was started
+     */
+    public AzureResourceSnapshot snapshotStop() {
+        var currentSnapshot = snapshot;
+        snapshot = null;
+        return currentSnapshot;
+    }
+
     public String getTokenManagement() {
         init();
 
-        try {
-            return tokenCache.get("https://management.core.windows.net//.default");
-        } catch (ExecutionException e) {
-            throw new RuntimeException(e);
-        }
+        return tokenManager.getTokenValue("https://management.core.windows.net//.default");
     }
 
     private String sanitizedSecretName(String secretName) {
@@ -12,17 +12,17 @@ package com.foilen.clouds.manager.services;
 import com.foilen.clouds.manager.CliException;
 import com.foilen.clouds.manager.commands.model.RawDnsEntry;
 import com.foilen.clouds.manager.digitaloceanclient.DigitalOceanCustomClient;
+import com.foilen.clouds.manager.digitaloceanclient.DigitalOceanRequestScheduler;
 import com.foilen.clouds.manager.digitaloceanclient.model.DigitalOceanDomainRecord;
-import com.foilen.clouds.manager.services.model.ConflictResolution;
 import com.foilen.clouds.manager.services.model.DigitalOceanDnsZone;
 import com.foilen.clouds.manager.services.model.DnsConfig;
-import com.foilen.clouds.manager.services.model.DnsEntryConfig;
 import com.foilen.clouds.manager.services.model.manageconfig.DigitalOceanDnsZoneManageConfiguration;
 import com.foilen.clouds.manager.services.model.manageconfig.ManageContext;
+import com.foilen.smalltools.hash.HashSha256;
 import com.foilen.smalltools.tools.AbstractBasics;
 import com.foilen.smalltools.tools.AssertTools;
-import com.foilen.smalltools.tools.CollectionsTools;
 import com.foilen.smalltools.tools.StringTools;
+import com.google.common.base.Strings;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -34,92 +34,21 @@ public class CloudDigitalOceanService extends AbstractBasics {
 
     @Autowired
     private DigitalOceanCustomClient digitalOceanCustomClient;
+    @Autowired
+    private DigitalOceanRequestScheduler digitalOceanRequestScheduler;
 
-    protected List<RawDnsEntry> computeDnsEntries(String domainName, List<RawDnsEntry> currentRawDnsEntries, DnsConfig desiredDnsConfig) {
-        // Copy all the current entries if desired
-        Map<String, Set<RawDnsEntry>> desiredEntriesByNameType = new HashMap<>();
-        if (desiredDnsConfig.isStartEmpty()) {
-            if (desiredDnsConfig.getStartWithDomains() != null) {
-                currentRawDnsEntries.stream()
-                        .filter(it -> desiredDnsConfig.getStartWithDomains().contains(it.getName()))
-                        .forEach(it -> {
-                            String nameType = it.getName() + "|" + it.getType();
-                            CollectionsTools.getOrCreateEmptyHashSet(desiredEntriesByNameType, nameType, RawDnsEntry.class)
-                                    .add(it);
-                        });
-            }
-        } else {
-            currentRawDnsEntries.forEach(it -> {
-                String nameType = it.getName() + "|" + it.getType();
-                CollectionsTools.getOrCreateEmptyHashSet(desiredEntriesByNameType, nameType, RawDnsEntry.class)
-                        .add(it);
-            });
-        }
-
-        // Compute the desired entries
-        List<DnsEntryConfig> configs = desiredDnsConfig.getConfigs() == null ? Collections.emptyList() : desiredDnsConfig.getConfigs();
-        for (var configEntries : configs) {
-
-            // Raw entries
-            if (configEntries.getRawDnsEntries() != null) {
-                applyRawDnsEntriesOnMap(desiredEntriesByNameType, configEntries.getConflictResolution(), configEntries.getRawDnsEntries());
-            }
-
-            // Clear entries
-            if (configEntries.getClearDnsEntries() != null) {
-                configEntries.getClearDnsEntries().forEach(it -> {
-                    logger.info("Clear entries of name {} and type {}", it.getName(), it.getType());
-                    String nameType = it.getName() + "|" + it.getType();
-                    desiredEntriesByNameType.remove(nameType);
-                });
-            }
+    private final DnsPlanner dnsPlanner = new DnsPlanner();
 
-            // Digital Ocean UID
+    protected List<RawDnsEntry> computeDnsEntries(String domainName, List<RawDnsEntry> currentRawDnsEntries, DnsConfig desiredDnsConfig) {
+        return dnsPlanner.plan(domainName, currentRawDnsEntries, desiredDnsConfig, configEntries -> {
             if (configEntries.getAzureUidDnsEntry() != null) {
                 throw new CliException("AzureUidDnsEntry not supported yet");
             }
-
-            // Digital Ocean Custom Domain
             if (configEntries.getAzureCustomDomainDnsEntry() != null) {
                 throw new CliException("AzureCustomDomainDnsEntry not supported yet");
             }
-        }
-
-        // Update TTL for all with same name/type
-        desiredEntriesByNameType.values().forEach(entries -> {
-            final var ttl = entries.stream().map(RawDnsEntry::getTtl).reduce(172800L, Math::min);
-            entries.forEach(entry -> entry.setTtl(ttl));
+            return null;
         });
-
-        return desiredEntriesByNameType.values().stream()
-                .flatMap(Set::stream)
-                .filter(it -> dnsIsSubDomain(domainName, it.getName()))
-                .sorted().distinct()
-                .collect(Collectors.toList());
-
-    }
-
-    private static void applyRawDnsEntriesOnMap(Map<String, Set<RawDnsEntry>> desiredEntriesByNameType, ConflictResolution conflictResolution, List<RawDnsEntry> rawDnsEntries) {
-        // Remove any existing ones if OVERWRITE
-        if (conflictResolution == ConflictResolution.OVERWRITE) {
-            for (RawDnsEntry it : rawDnsEntries) {
-                String nameType = it.getName() + "|" + it.getType();
-                desiredEntriesByNameType.remove(nameType);
-            }
-        }
-
-        // Add entries
-        for (RawDnsEntry it : rawDnsEntries) {
-            String nameType = it.getName() + "|" + it.getType();
-            CollectionsTools.getOrCreateEmptyHashSet(desiredEntriesByNameType, nameType, RawDnsEntry.class)
-                    .add(it);
-        }
-    }
-
-    protected static boolean dnsIsSubDomain(String baseDomainName, String fullDomainName) {
-        if (fullDomainName.length() <= baseDomainName.length()) {
-            return baseDomainName.equals(fullDomainName);
-        } else return fullDomainName.endsWith("." + baseDomainName);
     }
 
     public List<DigitalOceanDnsZone> domainList() {
@@ -157,55 +86,129 @@ public class CloudDigitalOceanService extends AbstractBasics {
                     .map(RawDnsEntry::get_id)
                     .filter(Objects::nonNull)
                     .collect(Collectors.toSet());
-            currentEntries.stream()
+            var toDelete = currentEntries.stream()
                     .filter(it -> !usedIds.contains(it.get_id()))
-                    .forEach(it -> {
-                        logger.info("[{}] Delete: {}", desiredResource.getName(), it);
-                        var result = digitalOceanCustomClient.domainRecordDelete(desiredResource.getName(), it.get_id());
-                        if (!result.isSuccess()) {
-                            throw new CliException("Could not delete the domain record", result);
-                        }
-                        context.addModificationRemove("Digital Ocean DNS Record", desiredResource.getName(), it.toString());
-                    });
+                    .collect(Collectors.toList());
+            var deleteFutures = digitalOceanRequestScheduler.submitAll(toDelete, it -> {
+                logger.info("[{}] Delete: {}", desiredResource.getName(), it);
+                return digitalOceanCustomClient.domainRecordDelete(desiredResource.getName(), it.get_id());
+            });
+            for (int i = 0; i < toDelete.size(); ++i) {
+                var result = DigitalOceanRequestScheduler.join(deleteFutures.get(i));
+                if (!result.isSuccess()) {
+                    throw new CliException("Could not delete the domain record", result);
+                }
+                context.addModificationRemove("Digital Ocean DNS Record", desiredResource.getName(), toDelete.get(i).toString());
+            }
 
             // Add desired _id = null
-            desiredEntries.stream()
+            var toAdd = desiredEntries.stream()
                     .filter(it -> it.get_id() == null)
-                    .forEach(it -> {
-                        logger.info("[{}] Add: {}", desiredResource.getName(), it);
-                        var result = digitalOceanCustomClient.domainRecordAdd(desiredResource.getName(), it);
-                        if (!result.isSuccess()) {
-                            throw new CliException("Could not add the domain record", result);
-                        }
-                        context.addModificationAdd("Digital Ocean DNS Record", desiredResource.getName(), it.toString());
-                    });
+                    .collect(Collectors.toList());
+            var addFutures = digitalOceanRequestScheduler.submitAll(toAdd, it -> {
+                logger.info("[{}] Add: {}", desiredResource.getName(), it);
+                return digitalOceanCustomClient.domainRecordAdd(desiredResource.getName(), it);
+            });
+            for (int i = 0; i < toAdd.size(); ++i) {
+                var result = DigitalOceanRequestScheduler.join(addFutures.get(i));
+                if (!result.isSuccess()) {
+                    throw new CliException("Could not add the domain record", result);
+                }
+                context.addModificationAdd("Digital Ocean DNS Record", desiredResource.getName(), toAdd.get(i).toString());
+            }
 
         }
 
     }
 
-    private void matchIds(List<RawDnsEntry> currentEntries, List<RawDnsEntry> desiredEntries) {
-        Set<String> usedIds = new HashSet<>();
-        desiredEntries.forEach(desired -> {
-            var matching = currentEntries.stream()
-                    .filter(current -> StringTools.safeEquals(current.getName(), desired.getName())
-                            && StringTools.safeEquals(current.getType(), desired.getType())
-                            && StringTools.safeEquals(current.getDetails(), desired.getDetails())
-                            && current.getTtl() == desired.getTtl()
-                            && Objects.equals(current.getPriority(), desired.getPriority())
-                            && Objects.equals(current.getPort(), desired.getPort())
-                            && Objects.equals(current.getWeight(), desired.getWeight())
-                    )
-                    .collect(Collectors.toList());
-            for (var match : matching) {
-                if (match.get_id() != null) {
-                    if (usedIds.add(match.get_id())) {
-                        desired.set_id(match.get_id());
-                        break;
-                    }
-                }
+    private static final class MatchKey {
+
+        private final String name;
+        private final String type;
+        private final String details;
+        private final long ttl;
+        private final Integer priority;
+        private final Integer port;
+        private final Integer weight;
+        private final int hashCode;
+
+        private MatchKey(RawDnsEntry entry) {
+            this.name = entry.getName();
+            this.type = entry.getType();
+            this.details = entry.getDetails();
+            this.ttl = entry.getTtl();
+            this.priority = entry.getPriority();
+            this.port = entry.getPort();
+            this.weight = entry.getWeight();
+            this.hashCode = Objects.hash(name, type, details, ttl, priority, port, weight);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
             }
-        });
+            if (!(o instanceof MatchKey)) {
+                return false;
+            }
+            MatchKey other = (MatchKey) o;
+            return hashCode == other.hashCode
+                    && ttl == other.ttl
+                    && StringTools.safeEquals(name, other.name)
+                    && StringTools.safeEquals(type, other.type)
+                    && StringTools.safeEquals(details, other.details)
+                    && Objects.equals(priority, other.priority)
+                    && Objects.equals(port, other.port)
+                    && Objects.equals(weight, other.weight);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Give the desired entries the id of a current entry that is exactly the same. Each current id is used only once, so duplicates are matched one to one.
+     *
+     * @param currentEntries the current entries (with ids)
+     * @param desiredEntries the desired entries
+     */
+    protected static void matchIds(List<RawDnsEntry> currentEntries, List<RawDnsEntry> desiredEntries) {
+
+        // Index the ids of the current entries
+        Map<MatchKey, Deque<String>> idsByKey = new HashMap<>(currentEntries.size() * 2);
+        for (var current : currentEntries) {
+            if (current.get_id() != null) {
+                idsByKey.computeIfAbsent(new MatchKey(current), k -> new ArrayDeque<>(1)).add(current.get_id());
+            }
+        }
+
+        // Take one for each desired
+        for (var desired : desiredEntries) {
+            var ids = idsByKey.get(new MatchKey(desired));
+            if (ids != null && !ids.isEmpty()) {
+                desired.set_id(ids.poll());
+            }
+        }
+    }
+
+    /**
+     * Get a fingerprint of the zone in a single call. It changes when any record changes.
+     *
+     * @param domainName the domain
+     * @return the fingerprint or null if the domain does not exist
+     */
+    public String dnsZoneFingerprint(String domainName) {
+        logger.info("Get DNS Zone fingerprint {}", domainName);
+        var result = digitalOceanCustomClient.domainGet(domainName);
+        if (!result.isSuccess()) {
+            if (StringTools.safeEquals(result.getId(), "not_found")) {
+                return null;
+            }
+            throw new CliException("Could not get the domain", result);
+        }
+        return HashSha256.hashString(result.getDomain().getTtl() + "|" + Strings.nullToEmpty(result.getDomain().getZoneFile()));
     }
 
     public List<RawDnsEntry> dnsZoneEntryListIgnoreNs(DigitalOceanDnsZone dnsZone) {
@@ -214,16 +217,30 @@ public class CloudDigitalOceanService extends AbstractBasics {
         return entries;
     }
 
+    /**
+     * Get the entries with that name and type.
+     *
+     * @param dnsZone   the zone
+     * @param entryName the full name of the entry
+     * @param entryType the type of the entry
+     * @return the entries
+     */
+    public List<RawDnsEntry> dnsZoneEntryFind(DigitalOceanDnsZone dnsZone, String entryName, String entryType) {
+
+        String domainName = dnsZone.getName();
+        logger.info("Get DNS entries {}/{}", entryName, entryType);
+        return digitalOceanCustomClient.domainRecordFind(domainName, entryName, entryType).stream()
+                .map(record -> toRawDnsEntry(record, domainName))
+                .filter(Objects::nonNull)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
     public List<RawDnsEntry> dnsZoneEntryList(DigitalOceanDnsZone dnsZone) {
 
         String domainName = dnsZone.getName();
         logger.info("Get DNS Zone {}", domainName);
-        var records = digitalOceanCustomClient.domainRecordList(domainName);
-        if (!records.isSuccess()) {
-            throw new CliException("Could not get the domain records", records);
-        }
-
-        return records.getDomainRecords().stream()
+        return digitalOceanCustomClient.domainRecordStream(domainName)
                 .map(record -> toRawDnsEntry(record, domainName))
                 .filter(Objects::nonNull)
                 .sorted()
@@ -303,19 +320,25 @@ public class CloudDigitalOceanService extends AbstractBasics {
         String domainName = dnsZone.getName();
 
         // Delete
-        for (RawDnsEntry toDeleteEntry : toDeleteEntries) {
+        var deleteFutures = digitalOceanRequestScheduler.submitAll(toDeleteEntries, toDeleteEntry -> {
             logger.info("Delete: {}", toDeleteEntry);
-            var result = digitalOceanCustomClient.domainRecordDelete(domainName, toDeleteEntry.get_id());
+            return digitalOceanCustomClient.domainRecordDelete(domainName, toDeleteEntry.get_id());
+        });
+        for (var deleteFuture : deleteFutures) {
+            var result = DigitalOceanRequestScheduler.join(deleteFuture);
             if (!result.isSuccess()) {
                 throw new CliException("Could not delete the domain record", result);
             }
         }
 
         // Add
-        List<RawDnsEntry> newDnsEntries = new ArrayList<>();
-        for (RawDnsEntry toAddEntry : toAddEntries) {
+        var addFutures = digitalOceanRequestScheduler.submitAll(toAddEntries, toAddEntry -> {
             logger.info("Add: {}", toAddEntry);
-            var result = digitalOceanCustomClient.domainRecordAdd(domainName, toAddEntry);
+            return digitalOceanCustomClient.domainRecordAdd(domainName, toAddEntry);
+        });
+        List<RawDnsEntry> newDnsEntries = new ArrayList<>();
+        for (var addFuture : addFutures) {
+            var result = DigitalOceanRequestScheduler.join(addFuture);
             if (!result.isSuccess()) {
                 throw new CliException("Could not add the domain record", result);
             }
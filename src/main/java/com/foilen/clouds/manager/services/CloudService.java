@@ -14,6 +14,7 @@ import com.foilen.clouds.manager.commands.model.RawDnsEntry;
 import com.foilen.clouds.manager.services.model.*;
 import com.foilen.smalltools.crypt.bouncycastle.cert.RSACertificate;
 import com.foilen.smalltools.tools.AbstractBasics;
+import com.foilen.smalltools.tools.SystemTools;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -28,6 +29,11 @@ public class CloudService extends AbstractBasics {
     @Autowired
     private CloudInMemoryService cloudInMemoryService;
 
+    private final SecretCache secretCache = new SecretCache(
+            Long.parseLong(SystemTools.getPropertyOrEnvironment("SECRET_CACHE_MAX_SIZE", "1000")),
+            Long.parseLong(SystemTools.getPropertyOrEnvironment("SECRET_CACHE_TTL_SECONDS", "300")) * 1000
+    );
+
     private String azureKeyFullName(String namespace, String name) {
         return namespace + "--" + name;
     }
@@ -69,27 +75,90 @@ public class CloudService extends AbstractBasics {
         throw new CliException("Unknown provider");
     }
 
+    /**
+     * Remove the secrets of the store from the cache. To use when the store is changed outside of this service.
+     *
+     * @param secretStore the secret store
+     */
+    public void secretCacheInvalidate(SecretStore secretStore) {
+        secretCache.invalidate(secretStore);
+    }
+
+    public SecretCache getSecretCache() {
+        return secretCache;
+    }
+
     public String secretGetAsText(SecretStore secretStore, String namespace, String name) {
 
+        switch (secretStore.getProvider()) {
+            case AZURE: {
+                var fullName = azureKeyFullName(namespace, name);
+                return secretCache.get(secretStore, fullName, () -> cloudAzureService.keyVaultSecretGetAsText((AzureKeyVault) secretStore, fullName));
+            }
+            case IN_MEMORY: {
+                var fullName = inMemoryKeyFullName(namespace, name);
+                return secretCache.get(secretStore, fullName, () -> cloudInMemoryService.keyVaultSecretGetAsText((InMemorySecretStore) secretStore, fullName));
+            }
+        }
+
+        throw new CliException("Unknown provider");
+    }
+
+    /**
+     * Get all the secrets of the namespace at once. The next {@link #secretGetAsText(SecretStore, String, String)} in that namespace are served from them.
+     *
+     * @param secretStore the secret store
+     * @param namespace   the namespace
+     */
+    public void secretPrefetch(SecretStore secretStore, String namespace) {
+
         switch (secretStore.getProvider()) {
             case AZURE:
-                return cloudAzureService.keyVaultSecretGetAsText((AzureKeyVault) secretStore, azureKeyFullName(namespace, name));
+                cloudAzureService.keyVaultSecretPrefetch((AzureKeyVault) secretStore, azureKeyFullName(namespace, ""));
+                return;
             case IN_MEMORY:
-                return cloudInMemoryService.keyVaultSecretGetAsText((InMemorySecretStore) secretStore, inMemoryKeyFullName(namespace, name));
+                // Already in memory
+                return;
         }
 
         throw new CliException("Unknown provider");
+
     }
 
-    public void secretSetAsTextOrFail(SecretStore secretStore, String namespace, String name, String value) {
+    /**
+     * Stop using the secrets retrieved by {@link #secretPrefetch(SecretStore, String)}.
+     *
+     * @param secretStore the secret store
+     * @param namespace   the namespace
+     */
+    public void secretPrefetchClear(SecretStore secretStore, String namespace) {
 
         switch (secretStore.getProvider()) {
             case AZURE:
-                cloudAzureService.keyVaultSecretSetAsTextOrFail((AzureKeyVault) secretStore, azureKeyFullName(namespace, name), value);
+                cloudAzureService.keyVaultSecretPrefetchClear((AzureKeyVault) secretStore, azureKeyFullName(namespace, ""));
                 return;
             case IN_MEMORY:
-                cloudInMemoryService.keyVaultSecretSetAsTextOrFail((InMemorySecretStore) secretStore, inMemoryKeyFullName(namespace, name), value);
+                // Nothing prefetched
+                return;
+        }
+
+        throw new CliException("Unknown provider");
+
+    }
+
+    public void secretSetAsTextOrFail(SecretStore secretStore, String namespace, String name, String value) {
+
+        switch (secretStore.getProvider()) {
+            case AZURE: {
+                var fullName = azureKeyFullName(namespace, name);
+                secretCache.set(secretStore, fullName, value, () -> cloudAzureService.keyVaultSecretSetAsTextOrFail((AzureKeyVault) secretStore, fullName, value));
+                return;
+            }
+            case IN_MEMORY: {
+                var fullName = inMemoryKeyFullName(namespace, name);
+                secretCache.set(secretStore, fullName, value, () -> cloudInMemoryService.keyVaultSecretSetAsTextOrFail((InMemorySecretStore) secretStore, fullName, value));
                 return;
+            }
         }
 
         throw new CliException("Unknown provider");
@@ -0,0 +1,132 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.commands.model.RawDnsEntry;
+import com.foilen.clouds.manager.services.model.DnsRecord;
+import com.foilen.smalltools.tools.StringTools;
+import com.foilen.smalltools.tuple.Tuple2;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The changes to apply on a zone, grouped by name and type. It is computed in one pass over the current and desired records that are both sorted.
+ */
+public class DnsChangeSet {
+
+    private final List<DnsRecord> removed = new ArrayList<>();
+    private final List<DnsRecord> added = new ArrayList<>();
+    private final Map<Tuple2<String, String>, List<RawDnsEntry>> desiredEntriesByNameType = new LinkedHashMap<>();
+
+    private static boolean sameNameType(DnsRecord record, String name, String type) {
+        return StringTools.safeEquals(record.getName(), name) && StringTools.safeEquals(record.getType(), type);
+    }
+
+    private static int endOfGroup(List<DnsRecord> records, int start, String name, String type) {
+        int end = start;
+        while (end < records.size() && sameNameType(records.get(end), name, type)) {
+            ++end;
+        }
+        return end;
+    }
+
+    /**
+     * Compute the changes.
+     *
+     * @param currentRecords the current records (sorted)
+     * @param desiredRecords the desired records (sorted)
+     * @return the changes
+     */
+    public static DnsChangeSet compute(List<DnsRecord> currentRecords, List<DnsRecord> desiredRecords) {
+
+        var changeSet = new DnsChangeSet();
+
+        int currentStart = 0;
+        int desiredStart = 0;
+        while (currentStart < currentRecords.size() || desiredStart < desiredRecords.size()) {
+
+            // Take the next name/type group
+            DnsRecord groupRecord;
+            if (currentStart >= currentRecords.size()) {
+                groupRecord = desiredRecords.get(desiredStart);
+            } else if (desiredStart >= desiredRecords.size()) {
+                groupRecord = currentRecords.get(currentStart);
+            } else {
+                var current = currentRecords.get(currentStart);
+                var desired = desiredRecords.get(desiredStart);
+                groupRecord = current.compareTo(desired) <= 0 ? current : desired;
+            }
+            var name = groupRecord.getName();
+            var type = groupRecord.getType();
+            int currentEnd = endOfGroup(currentRecords, currentStart, name, type);
+            int desiredEnd = endOfGroup(desiredRecords, desiredStart, name, type);
+
+            // Compare the group
+            boolean changed = false;
+            int c = currentStart;
+            int d = desiredStart;
+            while (c < currentEnd || d < desiredEnd) {
+                int result;
+                if (c >= currentEnd) {
+                    result = 1;
+                } else if (d >= desiredEnd) {
+                    result = -1;
+                } else {
+                    result = currentRecords.get(c).compareTo(desiredRecords.get(d));
+                }
+
+                if (result == 0) {
+                    ++c;
+                    ++d;
+                } else if (result < 0) {
+                    changeSet.removed.add(currentRecords.get(c++));
+                    changed = true;
+                } else {
+                    changeSet.added.add(desiredRecords.get(d++));
+                    changed = true;
+                }
+            }
+
+            if (changed) {
+                changeSet.desiredEntriesByNameType.put(new Tuple2<>(name, type), DnsRecord.toRawDnsEntries(desiredRecords.subList(desiredStart, desiredEnd)));
+            }
+
+            currentStart = currentEnd;
+            desiredStart = desiredEnd;
+        }
+
+        return changeSet;
+    }
+
+    public List<DnsRecord> getAdded() {
+        return added;
+    }
+
+    /**
+     * Get all the entries to have for each name and type that changed. An empty list means to remove the record set.
+     *
+     * @return the entries by name and type
+     */
+    public Map<Tuple2<String, String>, List<RawDnsEntry>> getDesiredEntriesByNameType() {
+        return desiredEntriesByNameType;
+    }
+
+    public List<DnsRecord> getRemoved() {
+        return removed;
+    }
+
+    public boolean isEmpty() {
+        return desiredEntriesByNameType.isEmpty();
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.commands.model.RawDnsEntry;
+import com.foilen.clouds.manager.services.model.ConflictResolution;
+import com.foilen.clouds.manager.services.model.DnsConfig;
+import com.foilen.clouds.manager.services.model.DnsEntryConfig;
+import com.foilen.clouds.manager.services.model.DnsRecord;
+import com.foilen.smalltools.tools.AbstractBasics;
+import com.foilen.smalltools.tools.StringTools;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Computes the desired DNS entries of a zone from the current entries and the configuration. The entries that depend on the provider (e.g. Azure
+ * verification ids) are given by {@link Expansion}s.
+ */
+public class DnsPlanner extends AbstractBasics {
+
+    private static final long MAX_TTL = 172800L;
+
+    /**
+     * Gives the entries of a configuration that are specific to a provider.
+     */
+    @FunctionalInterface
+    public interface Expansion {
+
+        /**
+         * Get the entries to apply.
+         *
+         * @param configEntries the configuration
+         * @return the entries to apply with the conflict resolution of the configuration or null if none
+         */
+        List<RawDnsEntry> expand(DnsEntryConfig configEntries);
+
+    }
+
+    private static final class NameType {
+
+        private final String name;
+        private final String type;
+        private final int hashCode;
+
+        private NameType(String name, String type) {
+            this.name = name;
+            this.type = type;
+            this.hashCode = 31 * Objects.hashCode(name) + Objects.hashCode(type);
+        }
+
+        private NameType(DnsRecord record) {
+            this(record.getName(), record.getType());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof NameType)) {
+                return false;
+            }
+            NameType other = (NameType) o;
+            return hashCode == other.hashCode
+                    && StringTools.safeEquals(name, other.name)
+                    && StringTools.safeEquals(type, other.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    protected static boolean dnsIsSubDomain(String baseDomainName, String fullDomainName) {
+        if (fullDomainName.length() <= baseDomainName.length()) {
+            return baseDomainName.equals(fullDomainName);
+        } else return fullDomainName.endsWith("." + baseDomainName);
+    }
+
+    private static void applyRawDnsEntries(Map<NameType, List<DnsRecord>> desiredRecordsByNameType, ConflictResolution conflictResolution, List<RawDnsEntry> rawDnsEntries) {
+        var records = DnsRecord.fromAll(rawDnsEntries);
+
+        // Remove any existing ones if OVERWRITE
+        if (conflictResolution == ConflictResolution.OVERWRITE) {
+            for (DnsRecord it : records) {
+                desiredRecordsByNameType.remove(new NameType(it));
+            }
+        }
+
+        // Add entries
+        for (DnsRecord it : records) {
+            add(desiredRecordsByNameType, it);
+        }
+    }
+
+    private static void add(Map<NameType, List<DnsRecord>> desiredRecordsByNameType, DnsRecord record) {
+        desiredRecordsByNameType.computeIfAbsent(new NameType(record), k -> new ArrayList<>(2)).add(record);
+    }
+
+    /**
+     * Compute the desired entries.
+     *
+     * @param domainName           the domain name of the zone
+     * @param currentRawDnsEntries the current entries in the zone
+     * @param desiredDnsConfig     the configuration
+     * @param expansions           the provider specific entries
+     * @return the desired entries sorted and without duplicates
+     */
+    public List<RawDnsEntry> plan(String domainName, List<RawDnsEntry> currentRawDnsEntries, DnsConfig desiredDnsConfig, Expansion... expansions) {
+        return DnsRecord.toRawDnsEntries(planRecords(domainName, currentRawDnsEntries, desiredDnsConfig, expansions));
+    }
+
+    /**
+     * Compute the desired records.
+     *
+     * @param domainName           the domain name of the zone
+     * @param currentRawDnsEntries the current entries in the zone
+     * @param desiredDnsConfig     the configuration
+     * @param expansions           the provider specific entries
+     * @return the desired records sorted and without duplicates
+     */
+    public List<DnsRecord> planRecords(String domainName, List<RawDnsEntry> currentRawDnsEntries, DnsConfig desiredDnsConfig, Expansion... expansions) {
+
+        // Copy all the current entries if desired
+        Map<NameType, List<DnsRecord>> desiredRecordsByNameType = new HashMap<>();
+        if (desiredDnsConfig.isStartEmpty()) {
+            if (desiredDnsConfig.getStartWithDomains() != null) {
+                var startWithDomains = desiredDnsConfig.getStartWithDomains();
+                for (var it : currentRawDnsEntries) {
+                    if (startWithDomains.contains(it.getName())) {
+                        add(desiredRecordsByNameType, DnsRecord.from(it));
+                    }
+                }
+            }
+        } else {
+            for (var it : currentRawDnsEntries) {
+                add(desiredRecordsByNameType, DnsRecord.from(it));
+            }
+        }
+
+        // Compute the desired entries
+        if (desiredDnsConfig.getConfigs() != null) {
+            for (var configEntries : desiredDnsConfig.getConfigs()) {
+
+                // Raw entries
+                if (configEntries.getRawDnsEntries() != null) {
+                    applyRawDnsEntries(desiredRecordsByNameType, configEntries.getConflictResolution(), configEntries.getRawDnsEntries());
+                }
+
+                // Clear entries
+                if (configEntries.getClearDnsEntries() != null) {
+                    configEntries.getClearDnsEntries().forEach(it -> {
+                        logger.info("Clear entries of name {} and type {}", it.getName(), it.getType());
+                        desiredRecordsByNameType.remove(new NameType(it.getName(), it.getType()));
+                    });
+                }
+
+                // Provider specific
+                for (var expansion : expansions) {
+                    var rawDnsEntries = expansion.expand(configEntries);
+                    if (rawDnsEntries != null) {
+                        applyRawDnsEntries(desiredRecordsByNameType, configEntries.getConflictResolution(), rawDnsEntries);
+                    }
+                }
+            }
+        }
+
+        // Update TTL for all with same name/type and keep those in the zone
+        List<DnsRecord> desiredRecords = new ArrayList<>();
+        for (var records : desiredRecordsByNameType.values()) {
+            if (!dnsIsSubDomain(domainName, records.get(0).getName())) {
+                continue;
+            }
+            var ttl = MAX_TTL;
+            for (var record : records) {
+                ttl = Math.min(ttl, record.getTtl());
+            }
+            for (var record : records) {
+                desiredRecords.add(record.withTtl(ttl));
+            }
+        }
+
+        desiredRecords.sort(null);
+        return distinctSorted(desiredRecords);
+    }
+
+    private static List<DnsRecord> distinctSorted(List<DnsRecord> sortedRecords) {
+        List<DnsRecord> result = new ArrayList<>(sortedRecords.size());
+        int runStart = 0;
+        for (var record : sortedRecords) {
+            // Start a new run when it differs from the previous one
+            if (!result.isEmpty() && result.get(result.size() - 1).compareTo(record) != 0) {
+                runStart = result.size();
+            }
+            if (!result.subList(runStart, result.size()).contains(record)) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+}
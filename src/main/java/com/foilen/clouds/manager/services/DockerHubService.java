@@ -13,8 +13,8 @@ import com.foilen.clouds.manager.model.DockerHubTag;
 import com.foilen.clouds.manager.model.DockerHubTagsResponse;
 import com.foilen.clouds.manager.model.OnlineFileDetails;
 import com.foilen.smalltools.tools.AbstractBasics;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.Collections;
 import java.util.Optional;
@@ -22,10 +22,11 @@ import java.util.Optional;
 @Component
 public class DockerHubService extends AbstractBasics {
 
-    private static final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private HttpClientService httpClientService;
 
     public OnlineFileDetails getLatestVersionDockerHub(String imageName) {
-        DockerHubTagsResponse tags = restTemplate.getForObject("https://hub.docker.com/v2/repositories/{imageName}/tags/", DockerHubTagsResponse.class,
+        DockerHubTagsResponse tags = httpClientService.getRestTemplate().getForObject("https://hub.docker.com/v2/repositories/{imageName}/tags/", DockerHubTagsResponse.class,
                 Collections.singletonMap("imageName", imageName));
 
         Optional<DockerHubTag> tag = tags.getResults().stream() //
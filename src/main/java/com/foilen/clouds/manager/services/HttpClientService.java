@@ -0,0 +1,158 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.smalltools.tools.AbstractBasics;
+import com.foilen.smalltools.tools.SystemTools;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The HTTP transport shared by all the custom REST clients. The connections are pooled and kept alive per host, the responses are decompressed
+ * (gzip/deflate) and the latency of the requests is measured per host.
+ */
+@Component
+public class HttpClientService extends AbstractBasics {
+
+    private final int connectTimeoutSeconds = Integer.parseInt(SystemTools.getPropertyOrEnvironment("HTTP_CONNECT_TIMEOUT_SECONDS", "10"));
+    private final int readTimeoutSeconds = Integer.parseInt(SystemTools.getPropertyOrEnvironment("HTTP_READ_TIMEOUT_SECONDS", "120"));
+    private final int maxConnections = Integer.parseInt(SystemTools.getPropertyOrEnvironment("HTTP_MAX_CONNECTIONS", "100"));
+    private final int maxConnectionsPerHost = Integer.parseInt(SystemTools.getPropertyOrEnvironment("HTTP_MAX_CONNECTIONS_PER_HOST", "20"));
+
+    public static class HostMetrics {
+
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong totalMs = new AtomicLong();
+        private final AtomicLong maxMs = new AtomicLong();
+
+        private void record(long durationMs, boolean error) {
+            requests.incrementAndGet();
+            if (error) {
+                errors.incrementAndGet();
+            }
+            totalMs.addAndGet(durationMs);
+            maxMs.accumulateAndGet(durationMs, Math::max);
+        }
+
+        public long getRequests() {
+            return requests.get();
+        }
+
+        public long getErrors() {
+            return errors.get();
+        }
+
+        public long getAverageMs() {
+            var count = requests.get();
+            return count == 0 ? 0 : totalMs.get() / count;
+        }
+
+        public long getMaxMs() {
+            return maxMs.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests (%d errors) ; average %d ms ; max %d ms", getRequests(), getErrors(), getAverageMs(), getMaxMs());
+        }
+    }
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final RestTemplate restTemplate;
+
+    private final ConcurrentMap<String, HostMetrics> metricsByHost = new ConcurrentHashMap<>();
+
+    public HttpClientService() {
+        connectionManager = new PoolingHttpClientConnectionManager(5, TimeUnit.MINUTES);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+        connectionManager.setValidateAfterInactivity(10000);
+
+        // The content compression is enabled by default
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(connectTimeoutSeconds * 1000)
+                        .setConnectionRequestTimeout(connectTimeoutSeconds * 1000)
+                        .setSocketTimeout(readTimeoutSeconds * 1000)
+                        .build())
+                .evictIdleConnections(1, TimeUnit.MINUTES)
+                .build();
+
+        restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        restTemplate.getInterceptors().add(new MetricsInterceptor());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    /**
+     * Get the metrics of the requests.
+     *
+     * @return the metrics by host (sorted by host)
+     */
+    public Map<String, HostMetrics> getMetricsByHost() {
+        return new TreeMap<>(metricsByHost);
+    }
+
+    /**
+     * Get the usage of the connection pool.
+     *
+     * @return the leased, available, pending and max connections
+     */
+    public String getPoolStats() {
+        var stats = connectionManager.getTotalStats();
+        return String.format("leased %d ; available %d ; pending %d ; max %d", stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax());
+    }
+
+    public RestTemplate getRestTemplate() {
+        return restTemplate;
+    }
+
+    private class MetricsInterceptor implements ClientHttpRequestInterceptor {
+
+        @Override
+        public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+            var metrics = metricsByHost.computeIfAbsent(request.getURI().getHost(), host -> new HostMetrics());
+            var start = System.currentTimeMillis();
+            try {
+                var response = execution.execute(request, body);
+                metrics.record(System.currentTimeMillis() - start, response.getRawStatusCode() >= 400);
+                return response;
+            } catch (IOException | RuntimeException e) {
+                metrics.record(System.currentTimeMillis() - start, true);
+                throw e;
+            }
+        }
+    }
+
+}
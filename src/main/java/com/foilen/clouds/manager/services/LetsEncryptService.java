@@ -73,6 +73,7 @@ public class LetsEncryptService extends AbstractBasics {
 
         String secretNamespace = domainName + (staging ? "-staging" : "");
         logger.info("Get recent certificate from secret store");
+        cloudService.secretPrefetch(secretStore, secretNamespace);
         String certificatePem = cloudService.secretGetAsText(secretStore, secretNamespace, "certificatePem");
         String publicKeyPem = cloudService.secretGetAsText(secretStore, secretNamespace, "publicKeyPem");
         String privateKeyPem = cloudService.secretGetAsText(secretStore, secretNamespace, "privateKeyPem");
@@ -261,6 +262,9 @@ public class LetsEncryptService extends AbstractBasics {
             cloudService.pushCertificate(domainName, httpsWebApp, caRsaCertificate, rsaCertificate, pfxPassword);
         }
 
+        cloudService.secretPrefetchClear(secretStore, secretNamespace);
+        logger.info("Secret cache: {}", cloudService.getSecretCache());
+
     }
 
 }
@@ -0,0 +1,86 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes an export of the resources one resource at a time, without the "id" and "provider" properties and without the null values. The result has the same
+ * structure as the {@link com.foilen.clouds.manager.services.model.manageconfig.ManageConfiguration}.
+ */
+public class ManageExportWriter implements Closeable {
+
+    private static final Set<String> REMOVED_PROPERTIES = Set.of("id", "provider");
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .registerModule(new SimpleModule().setSerializerModifier(new BeanSerializerModifier() {
+                @Override
+                public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc, List<BeanPropertyWriter> beanProperties) {
+                    beanProperties.removeIf(it -> REMOVED_PROPERTIES.contains(it.getName()));
+                    return beanProperties;
+                }
+            }));
+
+    private final JsonGenerator generator;
+
+    public ManageExportWriter(File file) throws IOException {
+        this(objectMapper.getFactory().createGenerator(file, JsonEncoding.UTF8));
+    }
+
+    public ManageExportWriter(OutputStream outputStream) throws IOException {
+        this(objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8));
+    }
+
+    private ManageExportWriter(JsonGenerator generator) throws IOException {
+        this.generator = generator;
+        generator.useDefaultPrettyPrinter();
+        generator.writeStartObject();
+    }
+
+    /**
+     * Write a list of resources. Each resource is written as soon as it is serialized.
+     *
+     * @param fieldName the name of the list in the configuration
+     * @param resources the resources
+     * @throws IOException if there is a problem writing
+     */
+    public void writeArray(String fieldName, List<?> resources) throws IOException {
+        generator.writeArrayFieldStart(fieldName);
+        for (var resource : resources) {
+            objectMapper.writeValue(generator, resource);
+        }
+        generator.writeEndArray();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.writeEndObject();
+        generator.close();
+    }
+
+}
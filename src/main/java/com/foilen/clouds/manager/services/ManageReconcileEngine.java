@@ -0,0 +1,205 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.ManageUnrecoverableException;
+import com.foilen.clouds.manager.services.model.CloudProvider;
+import com.foilen.clouds.manager.services.model.manageconfig.ManageContext;
+import com.foilen.smalltools.tools.AbstractBasics;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs the manage actions as a dependency graph. The nodes that do not depend on each other are executed at the same time, with a maximum concurrency per
+ * cloud provider.
+ * <p>
+ * Each node gets its own {@link ManageContext} and they are merged in the order the nodes were added, so the summary stays the same whatever the execution
+ * order was.
+ */
+public class ManageReconcileEngine extends AbstractBasics {
+
+    public static class Node {
+
+        private final String id;
+        private final CloudProvider provider;
+        private final Set<String> dependsOn = new LinkedHashSet<>();
+        private final Consumer<ManageContext> action;
+
+        private String desiredFingerprint;
+        private Supplier<String> remoteId;
+        private Function<String, String> remoteFingerprint;
+
+        public Node(String id, CloudProvider provider, Consumer<ManageContext> action) {
+            this.id = id;
+            this.provider = provider;
+            this.action = action;
+        }
+
+        public Node dependsOn(Collection<String> ids) {
+            dependsOn.addAll(ids);
+            return this;
+        }
+
+        /**
+         * Tell how to know if the resource changed since the last run.
+         *
+         * @param desiredFingerprint the fingerprint of the desired configuration (computed before the action since it can fill some missing values)
+         * @param remoteId           gives the id of the remote resource once the action is done
+         * @param remoteFingerprint  gives the fingerprint of the remote resource from its id or null if it does not exist
+         * @return this
+         */
+        public Node fingerprints(String desiredFingerprint, Supplier<String> remoteId, Function<String, String> remoteFingerprint) {
+            this.desiredFingerprint = desiredFingerprint;
+            this.remoteId = remoteId;
+            this.remoteFingerprint = remoteFingerprint;
+            return this;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public CloudProvider getProvider() {
+            return provider;
+        }
+
+        public Set<String> getDependsOn() {
+            return dependsOn;
+        }
+
+        public Consumer<ManageContext> getAction() {
+            return action;
+        }
+
+        public String getDesiredFingerprint() {
+            return desiredFingerprint;
+        }
+
+        public Supplier<String> getRemoteId() {
+            return remoteId;
+        }
+
+        public Function<String, String> getRemoteFingerprint() {
+            return remoteFingerprint;
+        }
+
+    }
+
+    private final Map<CloudProvider, Integer> concurrencyByProvider;
+
+    public ManageReconcileEngine(Map<CloudProvider, Integer> concurrencyByProvider) {
+        this.concurrencyByProvider = concurrencyByProvider;
+    }
+
+    /**
+     * Execute all the nodes. Dependencies on ids that are not in the list are considered already satisfied.
+     *
+     * @param nodes the nodes in the order their modifications must be reported
+     * @return the context of each node, in the same order as the nodes
+     */
+    public LinkedHashMap<Node, ManageContext> run(List<Node> nodes) {
+
+        Map<CloudProvider, ExecutorService> executorByProvider = new EnumMap<>(CloudProvider.class);
+        Map<String, CompletableFuture<Void>> futureById = new HashMap<>();
+        Map<Node, CompletableFuture<Void>> futureByNode = new HashMap<>();
+        LinkedHashMap<Node, ManageContext> contextByNode = new LinkedHashMap<>();
+        Map<Node, Throwable> failureByNode = new ConcurrentHashMap<>();
+
+        try {
+            for (var node : sortDependenciesFirst(nodes)) {
+                var context = new ManageContext();
+                contextByNode.put(node, context);
+
+                var executor = executorByProvider.computeIfAbsent(node.getProvider(), provider -> Executors.newFixedThreadPool(
+                        concurrencyByProvider.getOrDefault(provider, 1),
+                        new ThreadFactoryBuilder().setNameFormat("manage-" + provider.name().toLowerCase() + "-%d").setDaemon(true).build()
+                ));
+
+                var dependencies = node.getDependsOn().stream()
+                        .map(futureById::get)
+                        .filter(Objects::nonNull)
+                        .toArray(CompletableFuture[]::new);
+                var future = CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+                    try {
+                        node.action.accept(context);
+                    } catch (Throwable e) {
+                        failureByNode.put(node, e);
+                        throw e;
+                    }
+                }, executor);
+                futureById.putIfAbsent(node.getId(), future);
+                futureByNode.put(node, future);
+            }
+
+            // Wait for all and keep the first failure in the nodes' order
+            Throwable firstFailure = null;
+            for (var node : nodes) {
+                try {
+                    futureByNode.get(node).join();
+                } catch (CompletionException | CancellationException e) {
+                    var failure = failureByNode.get(node);
+                    if (failure == null) {
+                        logger.warn("Skipped {} because one of its dependencies failed", node.getId());
+                    } else if (firstFailure == null) {
+                        firstFailure = failure;
+                    }
+                }
+            }
+
+            if (firstFailure instanceof RuntimeException) {
+                throw (RuntimeException) firstFailure;
+            }
+            if (firstFailure != null) {
+                throw new ManageUnrecoverableException("Problem while managing the resources", firstFailure);
+            }
+
+        } finally {
+            executorByProvider.values().forEach(ExecutorService::shutdownNow);
+        }
+
+        // Keep the nodes' order
+        LinkedHashMap<Node, ManageContext> result = new LinkedHashMap<>();
+        nodes.forEach(node -> result.put(node, contextByNode.get(node)));
+        return result;
+    }
+
+    private List<Node> sortDependenciesFirst(List<Node> nodes) {
+        Map<String, Node> nodeById = new HashMap<>();
+        nodes.forEach(node -> nodeById.putIfAbsent(node.getId(), node));
+
+        List<Node> sorted = new ArrayList<>();
+        Set<Node> visited = new HashSet<>();
+        Set<Node> visiting = new HashSet<>();
+        nodes.forEach(node -> sortDependenciesFirst(node, nodeById, visited, visiting, sorted));
+        return sorted;
+    }
+
+    private void sortDependenciesFirst(Node node, Map<String, Node> nodeById, Set<Node> visited, Set<Node> visiting, List<Node> sorted) {
+        if (visited.contains(node)) {
+            return;
+        }
+        if (!visiting.add(node)) {
+            throw new ManageUnrecoverableException("There is a dependency cycle with " + node.getId());
+        }
+        node.getDependsOn().stream()
+                .map(nodeById::get)
+                .filter(Objects::nonNull)
+                .forEach(dependency -> sortDependenciesFirst(dependency, nodeById, visited, visiting, sorted));
+        visiting.remove(node);
+        visited.add(node);
+        sorted.add(node);
+    }
+
+}
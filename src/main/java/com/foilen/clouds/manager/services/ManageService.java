@@ -9,86 +9,154 @@
  */
 package com.foilen.clouds.manager.services;
 
-import com.foilen.clouds.manager.services.model.ConflictResolution;
-import com.foilen.clouds.manager.services.model.DnsConfig;
-import com.foilen.clouds.manager.services.model.DnsEntryConfig;
+import com.foilen.clouds.manager.CliException;
+import com.foilen.clouds.manager.services.model.*;
+import com.foilen.clouds.manager.services.model.json.ManageState;
+import com.foilen.clouds.manager.services.model.json.ManageStateResource;
 import com.foilen.clouds.manager.services.model.manageconfig.*;
+import com.foilen.smalltools.hash.HashSha256;
 import com.foilen.smalltools.tools.*;
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Component
 public class ManageService extends AbstractBasics {
 
+    private static final long READINESS_INITIAL_DELAY_MS = 2000;
+    private static final long READINESS_MAX_DELAY_MS = 60000;
+
     @Autowired
     private CloudAzureService cloudAzureService;
     @Autowired
     private CloudDigitalOceanService cloudDigitalOceanService;
 
+    private final int azureConcurrency = Integer.parseInt(SystemTools.getPropertyOrEnvironment("MANAGE_AZURE_CONCURRENCY", "4"));
+    private final int digitalOceanConcurrency = Integer.parseInt(SystemTools.getPropertyOrEnvironment("MANAGE_DIGITALOCEAN_CONCURRENCY", "2"));
+    private final int exportConcurrency = Integer.parseInt(SystemTools.getPropertyOrEnvironment("MANAGE_EXPORT_CONCURRENCY", "8"));
+    private final int readinessMaxWaitSeconds = Integer.parseInt(SystemTools.getPropertyOrEnvironment("MANAGE_READINESS_MAX_WAIT_SECONDS", "300"));
+
     public void manage(String file) {
+        manage(file, null, true);
+    }
+
+    /**
+     * Manage the resources in the file.
+     *
+     * @param file      the configuration
+     * @param stateFile the file that keeps what was applied by the last runs or null to not keep any
+     * @param full      true to reconcile all the resources even if they did not change since the last run
+     */
+    public void manage(String file, String stateFile, boolean full) {
 
         try {
             var config = JsonTools.readFromFile(file, ManageConfiguration.class);
-            manage(config);
+            ManageState state = null;
+            if (stateFile != null) {
+                state = FileTools.exists(stateFile) ? JsonTools.readFromFile(stateFile, ManageState.class) : new ManageState();
+            }
+            try {
+                manage(config, state, full);
+            } finally {
+                if (stateFile != null) {
+                    logger.info("Save state to {}", stateFile);
+                    DirectoryTools.createPathToFile(stateFile);
+                    JsonTools.writeToFile(stateFile, state);
+                }
+            }
         } catch (Exception e) {
             logger.error("Problem managing the resources", e);
         }
     }
 
     public void manage(ManageConfiguration config) {
+        manage(config, null, true);
+    }
+
+    /**
+     * Manage the resources.
+     *
+     * @param config the configuration
+     * @param state  what was applied by the last runs (updated with what is applied in this run) or null to not keep any
+     * @param full   true to reconcile all the resources even if they did not change since the last run
+     */
+    public void manage(ManageConfiguration config, ManageState state, boolean full) {
 
         var globalContext = new ManageContext();
+        var engine = new ManageReconcileEngine(Map.of(
+                CloudProvider.AZURE, azureConcurrency,
+                CloudProvider.DIGITAL_OCEAN, digitalOceanConcurrency
+        ));
+        var nodes = buildNodes(config);
+        var skippedCount = new AtomicInteger();
+        if (state != null) {
+            nodes = incremental(nodes, state, full, skippedCount);
+        }
 
-        boolean retry = true;
+        var blockedNodes = nodes;
         var lastRetryHash = "";
         var retrySameHashCount = 0;
-        while (retry) {
-
-            retry = false;
-
+        while (!blockedNodes.isEmpty()) {
+
+            // Each pass gets a fresh view of the Azure resources
+            cloudAzureService.snapshotStart();
+            LinkedHashMap<ManageReconcileEngine.Node, ManageContext> contextByNode;
+            try {
+                contextByNode = engine.run(blockedNodes);
+            } finally {
+                var snapshot = cloudAzureService.snapshotStop();
+                logger.info("Azure resources: {} retrieved, {} GETs saved", snapshot.getMisses(), snapshot.getHits());
+            }
             var currentContext = new ManageContext();
-            config.getAzureResourceGroups().forEach(it -> cloudAzureService.resourceGroupManage(currentContext, it));
-            config.getAzureKeyVaults().forEach(it -> cloudAzureService.keyVaultManage(currentContext, config, it));
-            config.getAzureApplicationServicePlans().forEach(it -> cloudAzureService.applicationServicePlanManage(currentContext, config, it));
-            config.getAzureMariadbs().forEach(it -> cloudAzureService.mariadbManage(currentContext, config, it));
-            config.getAzureDnsZones().forEach(it -> cloudAzureService.dnsZoneManage(currentContext, config, it));
-            config.getAzureStorageAccounts().forEach(it -> cloudAzureService.storageAccountManage(currentContext, config, it));
-            config.getAzureWebapps().forEach(it -> cloudAzureService.webappManage(currentContext, config, it));
-            config.getDigitalOceanDnsZones().forEach(it -> cloudDigitalOceanService.dnsZoneManage(currentContext, it));
+            contextByNode.values().forEach(currentContext::merge);
+
+            globalContext.setNeedsNextStageHash(currentContext.getNeedsNextStageHash());
+            globalContext.getModifications().addAll(currentContext.getModifications());
 
             // Retry logic
-            if (!currentContext.getNeedsNextStageHash().isEmpty()) {
-                if (StringTools.safeEquals(lastRetryHash, globalContext.getNeedsNextStageHash())) {
-                    ++retrySameHashCount;
-                    if (retrySameHashCount == 4) {
-                        logger.error("Needs to retry to proceed to next stage, but even after retry, it is not progressing. Not retrying");
-                    } else {
-                        retry = true;
-                        logger.info("Needs to retry to proceed to next stage. Retrying in 30 seconds");
-                        ThreadTools.sleep(30000);
-                    }
-                } else {
-                    retrySameHashCount = 0;
-                    lastRetryHash = currentContext.getNeedsNextStageHash();
-                    retry = true;
-                    logger.info("Needs to retry to proceed to next stage. Retrying in 15 seconds");
-                    ThreadTools.sleep(15000);
+            if (currentContext.getNeedsNextStageHash().isEmpty()) {
+                break;
+            }
+            if (StringTools.safeEquals(lastRetryHash, currentContext.getNeedsNextStageHash())) {
+                ++retrySameHashCount;
+                if (retrySameHashCount == 4) {
+                    logger.error("Needs to retry to proceed to next stage, but even after retry, it is not progressing. Not retrying");
+                    break;
                 }
+            } else {
+                retrySameHashCount = 0;
+                lastRetryHash = currentContext.getNeedsNextStageHash();
             }
 
-            globalContext.setNeedsNextStageHash(currentContext.getNeedsNextStageHash());
-            globalContext.getModifications().addAll(currentContext.getModifications());
+            // Only retry the blocked ones (and what depends on them) when what they are waiting for is ready
+            blockedNodes = withDependents(nodes, contextByNode.entrySet().stream()
+                    .filter(it -> !it.getValue().getNeedsNextStageHash().isEmpty())
+                    .map(it -> it.getKey().getId())
+                    .collect(Collectors.toSet()));
+            logger.info("Needs to retry {} resources to proceed to next stage. Waiting for {}", blockedNodes.size(), currentContext.getReadinessProbes());
+            waitForReadiness(currentContext.getReadinessProbes());
 
         }
 
         // Show summary of modifications
         System.out.println("---[ Summary of modifications ]---");
         globalContext.getModifications().forEach(System.out::println);
+        if (state != null) {
+            System.out.println("\nSkipped " + skippedCount.get() + " resources that did not change since the last run");
+        }
 
         if (!globalContext.getNeedsNextStageHash().isEmpty()) {
             System.out.println("\nISSUE: Could not complete due to missing dependency");
@@ -96,31 +164,260 @@ public class ManageService extends AbstractBasics {
 
     }
 
-    public void export(String file) {
-        ManageConfiguration config = new ManageConfiguration();
+    /**
+     * Wrap the nodes to skip those that did not change since the last run and to keep what is applied in the state.
+     *
+     * @param nodes        the nodes
+     * @param state        what was applied by the last runs
+     * @param full         true to never skip
+     * @param skippedCount incremented for each skipped node
+     * @return the wrapped nodes
+     */
+    protected List<ManageReconcileEngine.Node> incremental(List<ManageReconcileEngine.Node> nodes, ManageState state, boolean full, AtomicInteger skippedCount) {
+
+        // Forget the resources that are not in the configuration anymore
+        var nodeIds = nodes.stream()
+                .map(ManageReconcileEngine.Node::getId)
+                .collect(Collectors.toSet());
+        state.getResources().keySet().retainAll(nodeIds);
+
+        Set<String> changedNodeIds = ConcurrentHashMap.newKeySet();
+        return nodes.stream()
+                .map(node -> new ManageReconcileEngine.Node(node.getId(), node.getProvider(), context -> incrementalAction(node, context, state, full, changedNodeIds, skippedCount))
+                        .dependsOn(node.getDependsOn()))
+                .collect(Collectors.toList());
+    }
+
+    private void incrementalAction(ManageReconcileEngine.Node node, ManageContext context, ManageState state, boolean full, Set<String> changedNodeIds, AtomicInteger skippedCount) {
+
+        var id = node.getId();
+        var tracked = node.getDesiredFingerprint() != null;
+        var desiredFingerprint = tracked ? HashSha256.hashString(node.getDesiredFingerprint() + "|" + Joiner.on(",").join(node.getDependsOn())) : null;
+
+        // Skip when the desired and the remote sides are the same as after the last run and nothing it depends on changed in this run
+        var previous = state.getResources().get(id);
+        if (!full && tracked && previous != null
+                && StringTools.safeEquals(desiredFingerprint, previous.getDesiredFingerprint())
+                && node.getDependsOn().stream().noneMatch(changedNodeIds::contains)) {
+            try {
+                var remoteFingerprint = node.getRemoteFingerprint().apply(previous.getRemoteId());
+                if (remoteFingerprint != null && StringTools.safeEquals(remoteFingerprint, previous.getRemoteFingerprint())) {
+                    logger.info("Skip {} since it did not change since the last run", id);
+                    skippedCount.incrementAndGet();
+                    return;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not get the fingerprint of {}. Will reconcile it", id, e);
+            }
+        }
 
+        state.getResources().remove(id);
         try {
-            logger.info("Getting resource groups");
-            config.setAzureResourceGroups(cloudAzureService.resourceGroupFindAll());
+            node.getAction().accept(context);
+        } catch (RuntimeException e) {
+            changedNodeIds.add(id);
+            throw e;
+        }
+        if (!context.getModifications().isEmpty() || !context.getNeedsNextStageHash().isEmpty()) {
+            changedNodeIds.add(id);
+        }
+
+        // Keep what was applied
+        if (tracked && context.getNeedsNextStageHash().isEmpty()) {
+            var remoteId = node.getRemoteId().get();
+            var remoteFingerprint = node.getRemoteFingerprint().apply(remoteId);
+            if (remoteFingerprint != null) {
+                state.getResources().put(id, new ManageStateResource()
+                        .setDesiredFingerprint(desiredFingerprint)
+                        .setRemoteId(remoteId)
+                        .setRemoteFingerprint(remoteFingerprint)
+                );
+            }
+        }
+    }
+
+    private List<ManageReconcileEngine.Node> withDependents(List<ManageReconcileEngine.Node> nodes, Set<String> ids) {
+        Set<String> selectedIds = new HashSet<>(ids);
+        boolean added = true;
+        while (added) {
+            added = false;
+            for (var node : nodes) {
+                if (!selectedIds.contains(node.getId()) && node.getDependsOn().stream().anyMatch(selectedIds::contains)) {
+                    selectedIds.add(node.getId());
+                    added = true;
+                }
+            }
+        }
+        return nodes.stream()
+                .filter(it -> selectedIds.contains(it.getId()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Poll the probes with an exponential backoff and jitter until they are all ready or the maximum wait is reached.
+     *
+     * @param readinessProbes the probes
+     */
+    protected void waitForReadiness(List<ReadinessProbe> readinessProbes) {
+        var until = System.currentTimeMillis() + readinessMaxWaitSeconds * 1000L;
+        var pending = new ArrayList<>(readinessProbes);
+        long delayMs = READINESS_INITIAL_DELAY_MS;
+        while (true) {
+            pending.removeIf(ReadinessProbe::isReady);
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            var now = System.currentTimeMillis();
+            if (now >= until) {
+                logger.info("Still not ready after {} seconds: {}. Retrying anyway", readinessMaxWaitSeconds, pending);
+                return;
+            }
+
+            // Half fixed and half random
+            var sleepMs = delayMs / 2 + ThreadLocalRandom.current().nextLong(delayMs / 2 + 1);
+            ThreadTools.sleep(Math.min(sleepMs, until - now));
+            delayMs = Math.min(delayMs * 2, READINESS_MAX_DELAY_MS);
+        }
+    }
+
+    private List<ManageReconcileEngine.Node> buildNodes(ManageConfiguration config) {
 
-            logger.info("Getting key vaults");
-            config.setAzureKeyVaults(cloudAzureService.keyVaultFindAll());
+        config.getAzureMariadbs().forEach(it -> AssertTools.assertNotNull(it.getResource(), "resource must be provided"));
+        config.getAzureDnsZones().forEach(it -> AssertTools.assertNotNull(it.getResource(), "resource must be provided"));
+        config.getAzureWebapps().forEach(it -> AssertTools.assertNotNull(it.getResource(), "resource must be provided"));
+        config.getDigitalOceanDnsZones().forEach(it -> AssertTools.assertNotNull(it.getResource(), "resource must be provided"));
 
-            logger.info("Getting application service plans");
-            config.setAzureApplicationServicePlans(cloudAzureService.applicationServicePlansFindAll());
+        List<ManageReconcileEngine.Node> nodes = new ArrayList<>();
 
-            logger.info("Getting mariadbs");
-            config.setAzureMariadbs(cloudAzureService.mariadbList().stream()
+        // Resource groups
+        Map<String, String> resourceGroupNodeIdByName = new HashMap<>();
+        config.getAzureResourceGroups().forEach(it -> {
+            var nodeId = nodeId("Azure Resource Group", null, it.getName());
+            resourceGroupNodeIdByName.put(it.getName(), nodeId);
+            nodes.add(new ManageReconcileEngine.Node(nodeId, CloudProvider.AZURE, context -> cloudAzureService.resourceGroupManage(context, it))
+                    .fingerprints(desiredFingerprint(config, it), () -> cloudAzureService.resourceId(it.getName(), null, null), cloudAzureService::resourceFingerprint));
+        });
+
+        // Resources in resource groups
+        config.getAzureKeyVaults().forEach(it -> nodes.add(new ManageReconcileEngine.Node(nodeId("Azure Key Vault", it.getResourceGroup(), it.getName()), CloudProvider.AZURE,
+                context -> cloudAzureService.keyVaultManage(context, config, it))
+                .dependsOn(resourceGroupDependencies(resourceGroupNodeIdByName, it))
+                .fingerprints(desiredFingerprint(config, it), () -> cloudAzureService.resourceId(it.getResourceGroup(), "Microsoft.KeyVault/vaults", it.getName()), cloudAzureService::resourceFingerprint)
+        ));
+        Map<String, List<String>> applicationServicePlanNodeIdsByName = new HashMap<>();
+        config.getAzureApplicationServicePlans().forEach(it -> {
+            var nodeId = nodeId("Azure Application Service Plan", it.getResourceGroup(), it.getName());
+            applicationServicePlanNodeIdsByName.computeIfAbsent(it.getName(), k -> new ArrayList<>()).add(nodeId);
+            nodes.add(new ManageReconcileEngine.Node(nodeId, CloudProvider.AZURE,
+                    context -> cloudAzureService.applicationServicePlanManage(context, config, it))
+                    .dependsOn(resourceGroupDependencies(resourceGroupNodeIdByName, it))
+                    .fingerprints(desiredFingerprint(config, it), () -> cloudAzureService.resourceId(it.getResourceGroup(), "Microsoft.Web/serverfarms", it.getName()), cloudAzureService::resourceFingerprint)
+            );
+        });
+        config.getAzureMariadbs().forEach(it -> {
+            var node = new ManageReconcileEngine.Node(nodeId("Azure MariaDB", it.getResource().getResourceGroup(), it.getResource().getName()), CloudProvider.AZURE,
+                    context -> cloudAzureService.mariadbManage(context, config, it))
+                    .dependsOn(resourceGroupDependencies(resourceGroupNodeIdByName, it.getResource()));
+            // What is inside the databases is not part of the fingerprint, so always reconcile them
+            if (it.getConfig() == null) {
+                node.fingerprints(desiredFingerprint(config, it), () -> cloudAzureService.resourceId(it.getResource().getResourceGroup(), "Microsoft.DBforMariaDB/servers", it.getResource().getName()),
+                        cloudAzureService::resourceFingerprint);
+            }
+            nodes.add(node);
+        });
+        Map<String, List<String>> storageAccountNodeIdsByName = new HashMap<>();
+        config.getAzureStorageAccounts().forEach(it -> {
+            var nodeId = nodeId("Azure Storage Account", it.getResourceGroup(), it.getName());
+            storageAccountNodeIdsByName.computeIfAbsent(it.getName(), k -> new ArrayList<>()).add(nodeId);
+            nodes.add(new ManageReconcileEngine.Node(nodeId, CloudProvider.AZURE,
+                    context -> cloudAzureService.storageAccountManage(context, config, it))
+                    .dependsOn(resourceGroupDependencies(resourceGroupNodeIdByName, it))
+                    .fingerprints(desiredFingerprint(config, it), () -> cloudAzureService.resourceId(it.getResourceGroup(), "Microsoft.Storage/storageAccounts", it.getName()), cloudAzureService::resourceFingerprint)
+            );
+        });
+
+        // Web apps: resource group -> plan -> web app ; storage account -> web app mounts
+        Map<String, List<String>> webappNodeIdsByName = new HashMap<>();
+        config.getAzureWebapps().forEach(it -> {
+            var resource = it.getResource();
+            var nodeId = nodeId("Azure Web Application", resource.getResourceGroup(), resource.getName());
+            webappNodeIdsByName.computeIfAbsent(resource.getName(), k -> new ArrayList<>()).add(nodeId);
+            var node = new ManageReconcileEngine.Node(nodeId, CloudProvider.AZURE, context -> cloudAzureService.webappManage(context, config, it))
+                    .dependsOn(resourceGroupDependencies(resourceGroupNodeIdByName, resource))
+                    .fingerprints(desiredFingerprint(config, it), () -> cloudAzureService.resourceId(resource.getResourceGroup(), "Microsoft.Web/sites", resource.getName()), cloudAzureService::resourceFingerprint);
+            if (resource.getAppServicePlanId() != null) {
+                var planName = resource.getAppServicePlanId().substring(resource.getAppServicePlanId().lastIndexOf('/') + 1);
+                node.dependsOn(applicationServicePlanNodeIdsByName.getOrDefault(planName, Collections.emptyList()));
+            }
+            resource.getMountStorages().values().forEach(mount -> node.dependsOn(storageAccountNodeIdsByName.getOrDefault(mount.getAccountName(), Collections.emptyList())));
+            nodes.add(node);
+        });
+
+        // DNS Zones: web app -> asuid and custom domain entries
+        config.getAzureDnsZones().forEach(it -> {
+            var resource = it.getResource();
+            var node = new ManageReconcileEngine.Node(nodeId("Azure DNS Zone", resource.getResourceGroup(), resource.getName()), CloudProvider.AZURE,
+                    context -> cloudAzureService.dnsZoneManage(context, config, it))
+                    .dependsOn(resourceGroupDependencies(resourceGroupNodeIdByName, resource))
+                    .fingerprints(desiredFingerprint(config, it), () -> cloudAzureService.resourceId(resource.getResourceGroup(), "Microsoft.Network/dnszones", resource.getName()), cloudAzureService::resourceFingerprint);
+            if (it.getConfig() != null && it.getConfig().getConfigs() != null) {
+                it.getConfig().getConfigs().forEach(dnsEntryConfig -> {
+                    if (dnsEntryConfig.getAzureUidDnsEntry() != null) {
+                        dnsEntryConfig.getAzureUidDnsEntry().forEach(entry -> node.dependsOn(webappNodeIdsByName.getOrDefault(entry.getWebappName(), Collections.emptyList())));
+                    }
+                    if (dnsEntryConfig.getAzureCustomDomainDnsEntry() != null) {
+                        dnsEntryConfig.getAzureCustomDomainDnsEntry().forEach(entry -> node.dependsOn(webappNodeIdsByName.getOrDefault(entry.getWebappName(), Collections.emptyList())));
+                    }
+                });
+            }
+            nodes.add(node);
+        });
+
+        // Digital Ocean
+        config.getDigitalOceanDnsZones().forEach(it -> nodes.add(new ManageReconcileEngine.Node(nodeId("Digital Ocean DNS Zone", null, it.getResource().getName()), CloudProvider.DIGITAL_OCEAN,
+                context -> cloudDigitalOceanService.dnsZoneManage(context, it))
+                .fingerprints(desiredFingerprint(config, it), () -> it.getResource().getName(), cloudDigitalOceanService::dnsZoneFingerprint)
+        ));
+
+        return nodes;
+    }
+
+    private String desiredFingerprint(ManageConfiguration config, Object desired) {
+        // The resource group and the region can come from the resource groups in the configuration
+        return HashSha256.hashString(JsonTools.compactPrint(desired) + "|" + JsonTools.compactPrint(config.getAzureResourceGroups()));
+    }
+
+    private Collection<String> resourceGroupDependencies(Map<String, String> resourceGroupNodeIdByName, HasResourceGroup hasResourceGroup) {
+        if (Strings.isNullOrEmpty(hasResourceGroup.getResourceGroup())) {
+            // Will use the only resource group if there is only one
+            return resourceGroupNodeIdByName.values();
+        }
+        var nodeId = resourceGroupNodeIdByName.get(hasResourceGroup.getResourceGroup());
+        return nodeId == null ? Collections.emptyList() : Collections.singletonList(nodeId);
+    }
+
+    private String nodeId(String type, String resourceGroup, String name) {
+        return type + " (" + (resourceGroup == null ? "" : resourceGroup + "/") + name + ")";
+    }
+
+    public void export(String file) {
+
+        var executor = Executors.newFixedThreadPool(exportConcurrency, new ThreadFactoryBuilder().setNameFormat("export-%d").setDaemon(true).build());
+        try {
+
+            // Get all the categories and the resources inside them at the same time
+            var azureResourceGroups = getAsync("resource groups", cloudAzureService::resourceGroupFindAll, executor);
+            var azureKeyVaults = getAsync("key vaults", cloudAzureService::keyVaultFindAll, executor);
+            var azureApplicationServicePlans = getAsync("application service plans", cloudAzureService::applicationServicePlansFindAll, executor);
+            var azureMariadbs = getAsync("mariadbs", () -> cloudAzureService.mariadbList().stream()
                     .map(it -> new AzureMariadbManageConfiguration()
                                     .setResource(it)
                             // TODO MariaDB - Export Config
                     )
-                    .collect(Collectors.toList())
-            );
-
-            logger.info("Getting Azure Dns Zones");
-            config.setAzureDnsZones(cloudAzureService.dnsZoneList().stream()
-                    .map(it -> new AzureDnsZoneManageConfiguration()
+                    .collect(Collectors.toList()), executor);
+            var azureDnsZones = getAsync("Azure Dns Zones", cloudAzureService::dnsZoneList, executor)
+                    .thenCompose(dnsZones -> getAllAsync(dnsZones, it -> new AzureDnsZoneManageConfiguration()
                             .setResource(it)
                             .setConfig(new DnsConfig()
                                     .setStartEmpty(true)
@@ -129,29 +426,15 @@ public class ManageService extends AbstractBasics {
                                                     .setRawDnsEntries(cloudAzureService.dnsZoneEntryListIgnoreNs(it))
                                             )
                                     )
-                            )
-                    )
-                    .collect(Collectors.toList())
-            );
-
-            logger.info("Getting storage accounts");
-            config.setAzureStorageAccounts(cloudAzureService.storageAccountList());
-
-            logger.info("Getting web applications");
-            config.setAzureWebapps(cloudAzureService.webappList().stream()
+                            ), executor));
+            var azureStorageAccounts = getAsync("storage accounts", cloudAzureService::storageAccountList, executor);
+            var azureWebapps = getAsync("web applications", () -> cloudAzureService.webappList().stream()
                     .map(it -> new AzureWebAppManageConfiguration()
                             .setResource(it)
                     )
-                    .collect(Collectors.toList())
-            );
-        } catch (DisabledException e) {
-            logger.info("Skipping Azure resources");
-        }
-
-        try {
-            logger.info("Getting DigitalOcean Dns Zones");
-            config.setDigitalOceanDnsZones(cloudDigitalOceanService.domainList().stream()
-                    .map(it -> new DigitalOceanDnsZoneManageConfiguration()
+                    .collect(Collectors.toList()), executor);
+            var digitalOceanDnsZones = getAsync("DigitalOcean Dns Zones", cloudDigitalOceanService::domainList, executor)
+                    .thenCompose(dnsZones -> getAllAsync(dnsZones, it -> new DigitalOceanDnsZoneManageConfiguration()
                             .setResource(it)
                             .setConfig(new DnsConfig()
                                     .setStartEmpty(true)
@@ -162,42 +445,69 @@ public class ManageService extends AbstractBasics {
                                                             .collect(Collectors.toList()))
                                             )
                                     )
-                            )
-                    )
-                    .collect(Collectors.toList())
-            );
-        } catch (DisabledException e) {
-            logger.info("Skipping DigitalOcean resources");
-        }
+                            ), executor));
+
+            // Write each category in order as soon as it is ready
+            logger.info("Export to {}", file);
+            var tmpFile = new File(file + ".tmp");
+            var moved = false;
+            try {
+                try (var writer = new ManageExportWriter(tmpFile)) {
+                    writer.writeArray("azureResourceGroups", exportResult("Azure resource groups", azureResourceGroups));
+                    writer.writeArray("azureKeyVaults", exportResult("Azure key vaults", azureKeyVaults));
+                    writer.writeArray("azureApplicationServicePlans", exportResult("Azure application service plans", azureApplicationServicePlans));
+                    writer.writeArray("azureMariadbs", exportResult("Azure mariadbs", azureMariadbs));
+                    writer.writeArray("azureDnsZones", exportResult("Azure Dns Zones", azureDnsZones));
+                    writer.writeArray("azureStorageAccounts", exportResult("Azure storage accounts", azureStorageAccounts));
+                    writer.writeArray("azureWebapps", exportResult("Azure web applications", azureWebapps));
+                    writer.writeArray("digitalOceanDnsZones", exportResult("DigitalOcean Dns Zones", digitalOceanDnsZones));
+                }
+                Files.move(tmpFile.toPath(), new File(file).toPath(), StandardCopyOption.REPLACE_EXISTING);
+                moved = true;
+            } finally {
+                // Do not leave a partial export
+                if (!moved) {
+                    Files.deleteIfExists(tmpFile.toPath());
+                }
+            }
 
-        logger.info("Export to {}", file);
-        var json = JsonTools.prettyPrintWithoutNulls(cleanup(config));
-        FileTools.writeFile(json, file);
+        } catch (IOException e) {
+            throw new CliException("Problem writing the export", e);
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
-    private Object cleanup(ManageConfiguration config) {
-        var cloned = JsonTools.clone(config, Map.class);
-        cleanup(cloned);
-        return cloned;
+    private <T> CompletableFuture<List<T>> getAsync(String name, Supplier<List<T>> supplier, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            logger.info("Getting {}", name);
+            return supplier.get();
+        }, executor);
     }
 
-    @SuppressWarnings({"rawtypes", "unchecked"})
-    private void cleanup(Map cloned) {
-
-        cloned.remove("id");
-        cloned.remove("provider");
+    private static <T, R> CompletableFuture<List<R>> getAllAsync(List<T> items, Function<T, R> action, Executor executor) {
+        var futures = items.stream()
+                .map(item -> CompletableFuture.supplyAsync(() -> action.apply(item), executor))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toList()));
+    }
 
-        cloned.forEach((key, value) -> {
-            if (value instanceof Map) {
-                cleanup((Map) value);
+    private <T> List<T> exportResult(String name, CompletableFuture<List<T>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof DisabledException) {
+                logger.info("Skipping {}", name);
+                return Collections.emptyList();
             }
-            if (value instanceof List) {
-                ((List<?>) value).forEach(it -> {
-                    if (it instanceof Map) {
-                        cleanup((Map) it);
-                    }
-                });
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
-        });
+            throw e;
+        }
     }
+
 }
@@ -0,0 +1,138 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.services.model.SecretStore;
+import com.foilen.smalltools.tools.AbstractBasics;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of the secrets that is independent of the provider. The values are kept for some time, the writes go to the provider and then in the
+ * cache and the secrets that do not exist are also kept (as empty).
+ */
+public class SecretCache extends AbstractBasics {
+
+    private final Cache<String, Optional<String>> cache;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong negativeHitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public SecretCache(long maximumSize, long ttlMs) {
+        this(maximumSize, ttlMs, Ticker.systemTicker());
+    }
+
+    public SecretCache(long maximumSize, long ttlMs, Ticker ticker) {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+                .ticker(ticker)
+                .build();
+    }
+
+    private static String storeKey(SecretStore secretStore) {
+        return secretStore.getProvider() + "|" + (secretStore.getId() == null ? secretStore.getName() : secretStore.getId()) + "|";
+    }
+
+    /**
+     * Get the secret from the cache or from the provider when it is not there. Many threads asking for the same missing secret will wait for a single load.
+     *
+     * @param secretStore the secret store
+     * @param fullName    the full name of the secret in the store
+     * @param loader      gets the value from the provider (null if it does not exist)
+     * @return the value or null if it does not exist
+     */
+    public String get(SecretStore secretStore, String fullName, Supplier<String> loader) {
+        var loaded = new AtomicBoolean();
+        Optional<String> value;
+        try {
+            value = cache.get(storeKey(secretStore) + fullName, () -> {
+                loaded.set(true);
+                return Optional.ofNullable(loader.get());
+            });
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+
+        if (loaded.get()) {
+            missCount.incrementAndGet();
+        } else if (value.isPresent()) {
+            hitCount.incrementAndGet();
+        } else {
+            negativeHitCount.incrementAndGet();
+        }
+        return value.orElse(null);
+    }
+
+    /**
+     * Remove all the secrets of a store. To use when the store is changed without going through the cache.
+     *
+     * @param secretStore the secret store
+     */
+    public void invalidate(SecretStore secretStore) {
+        var storeKey = storeKey(secretStore);
+        cache.asMap().keySet().removeIf(key -> key.startsWith(storeKey));
+    }
+
+    /**
+     * Save the secret in the provider and then in the cache. If the provider fails, the secret is removed from the cache since its value is unknown.
+     *
+     * @param secretStore the secret store
+     * @param fullName    the full name of the secret in the store
+     * @param value       the value
+     * @param writer      saves the value in the provider
+     */
+    public void set(SecretStore secretStore, String fullName, String value, Runnable writer) {
+        var key = storeKey(secretStore) + fullName;
+        try {
+            writer.run();
+        } catch (RuntimeException e) {
+            cache.invalidate(key);
+            throw e;
+        }
+        cache.put(key, Optional.ofNullable(value));
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getNegativeHitCount() {
+        return negativeHitCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SecretCache{" +
+                "hitCount=" + hitCount +
+                ", negativeHitCount=" + negativeHitCount +
+                ", missCount=" + missCount +
+                ", size=" + cache.size() +
+                '}';
+    }
+
+}
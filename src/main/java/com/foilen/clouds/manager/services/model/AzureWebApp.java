@@ -11,6 +11,7 @@ package com.foilen.clouds.manager.services.model;
 
 import com.azure.resourcemanager.appservice.fluent.models.SiteConfigInner;
 import com.azure.resourcemanager.appservice.models.AppSetting;
+import com.azure.resourcemanager.appservice.models.WebAppBasic;
 import com.foilen.clouds.manager.azureclient.model.AzureWebSiteConfig;
 import com.foilen.clouds.manager.services.model.manageconfig.Action;
 import com.foilen.clouds.manager.services.model.manageconfig.Modification;
@@ -61,21 +62,60 @@ public class AzureWebApp extends CommonResource implements WebApp, HasResourceGr
         }
         item.publicDockerHubImage = getPublicDockerHubImage(webApp);
 
-        webSiteConfig.getProperties().getAzureStorageAccounts().forEach((mountName, mountValue) -> item.mountStorages.put(mountName, new AzureWebAppMountStorage()
+        item.fillMountStorages(webSiteConfig);
+        item.fillCustomHostnames(webApp.getHostnameBindings().keySet(), hostnamesWithCertificates);
+
+        return item;
+    }
+
+    /**
+     * Create from a listed web application. The list does not give the site configuration and the app settings, so they are provided separately.
+     *
+     * @param webApp                    the listed web application
+     * @param webSiteConfig             the configuration of the site
+     * @param appSettings               the app settings (can be null)
+     * @param hostnamesWithCertificates the hostnames that have a certificate
+     * @return the web application
+     */
+    public static AzureWebApp from(WebAppBasic webApp, AzureWebSiteConfig webSiteConfig, Map<String, String> appSettings, Set<String> hostnamesWithCertificates) {
+        AzureWebApp item = new AzureWebApp();
+        item.setId(webApp.id());
+        item.name = webApp.name();
+        item.resourceGroup = webApp.resourceGroupName();
+        item.regionId = webApp.region().name();
+
+        item.httpsOnly = webApp.httpsOnly();
+        item.appServicePlanId = webApp.appServicePlanId();
+        if (appSettings != null) {
+            item.appSettings.putAll(appSettings);
+        }
+        var properties = webSiteConfig.getProperties();
+        item.webSocketsEnabled = Boolean.TRUE.equals(properties.getWebSocketsEnabled());
+        item.alwaysOn = properties.getAlwaysOn();
+        item.publicDockerHubImage = getPublicDockerHubImage(properties.getLinuxFxVersion());
+
+        item.fillMountStorages(webSiteConfig);
+        item.fillCustomHostnames(webApp.hostnames(), hostnamesWithCertificates);
+
+        return item;
+    }
+
+    private void fillMountStorages(AzureWebSiteConfig webSiteConfig) {
+        webSiteConfig.getProperties().getAzureStorageAccounts().forEach((mountName, mountValue) -> mountStorages.put(mountName, new AzureWebAppMountStorage()
                 .setMountPath(mountValue.getMountPath())
                 .setAccountName(mountValue.getAccountName())
                 .setShareName(mountValue.getShareName())
         ));
+    }
 
-        webApp.getHostnameBindings().forEach((hostname, binding) -> {
+    private void fillCustomHostnames(Collection<String> hostnames, Set<String> hostnamesWithCertificates) {
+        hostnames.forEach(hostname -> {
             if (!hostname.endsWith(".azurewebsites.net")) {
                 AzureWebAppCustomHostname customHostname = new AzureWebAppCustomHostname();
                 customHostname.setCreateCertificate(hostnamesWithCertificates.contains(hostname));
-                item.customHostnames.put(hostname, customHostname);
+                customHostnames.put(hostname, customHostname);
             }
         });
-
-        return item;
     }
 
     private static String getPublicDockerHubImage(com.azure.resourcemanager.appservice.models.WebApp webApp) {
@@ -83,15 +123,23 @@ public class AzureWebApp extends CommonResource implements WebApp, HasResourceGr
         if (innerModel != null) {
             SiteConfigInner siteConfig = innerModel.siteConfig();
             if (siteConfig != null) {
-                String[] linuxFxVersion = siteConfig.linuxFxVersion().split("\\|");
-                if (linuxFxVersion.length == 2) {
-                    return linuxFxVersion[1];
-                }
+                return getPublicDockerHubImage(siteConfig.linuxFxVersion());
             }
         }
         return null;
     }
 
+    private static String getPublicDockerHubImage(String linuxFxVersion) {
+        if (linuxFxVersion == null) {
+            return null;
+        }
+        String[] parts = linuxFxVersion.split("\\|");
+        if (parts.length == 2) {
+            return parts[1];
+        }
+        return null;
+    }
+
     public List<String> differences(AzureWebApp current) {
         return differences(current, null);
     }
@@ -0,0 +1,217 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services.model;
+
+import com.foilen.clouds.manager.commands.model.RawDnsEntry;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable DNS entry used internally for planning, sorting and diffing. Use {@link RawDnsEntry} for the JSON and CLI.
+ * <p>
+ * The order is the same as {@link RawDnsEntry#compareTo(RawDnsEntry)} (the id is ignored) and the equality uses all the fields, including the id.
+ */
+public final class DnsRecord implements Comparable<DnsRecord> {
+
+    private static final Interner<String> interner = Interners.newWeakInterner();
+
+    private final String id;
+    private final String name;
+    private final String type;
+    private final String details;
+    private final long ttl;
+    private final Integer priority;
+    private final Integer weight;
+    private final Integer port;
+
+    private final int hashCode;
+
+    public DnsRecord(String id, String name, String type, String details, long ttl, Integer priority, Integer weight, Integer port) {
+        this.id = id;
+        this.name = name == null ? null : interner.intern(name);
+        this.type = type == null ? null : interner.intern(type);
+        this.details = details;
+        this.ttl = ttl;
+        this.priority = priority;
+        this.weight = weight;
+        this.port = port;
+        this.hashCode = Objects.hash(id, name, type, details, ttl, priority, weight, port);
+    }
+
+    public static DnsRecord from(RawDnsEntry rawDnsEntry) {
+        return new DnsRecord(rawDnsEntry.get_id(), rawDnsEntry.getName(), rawDnsEntry.getType(), rawDnsEntry.getDetails(), rawDnsEntry.getTtl(),
+                rawDnsEntry.getPriority(), rawDnsEntry.getWeight(), rawDnsEntry.getPort());
+    }
+
+    public static List<DnsRecord> fromAll(Collection<RawDnsEntry> rawDnsEntries) {
+        List<DnsRecord> records = new ArrayList<>(rawDnsEntries.size());
+        for (var rawDnsEntry : rawDnsEntries) {
+            records.add(from(rawDnsEntry));
+        }
+        return records;
+    }
+
+    public static List<RawDnsEntry> toRawDnsEntries(Collection<DnsRecord> records) {
+        List<RawDnsEntry> rawDnsEntries = new ArrayList<>(records.size());
+        for (var record : records) {
+            rawDnsEntries.add(record.toRawDnsEntry());
+        }
+        return rawDnsEntries;
+    }
+
+    private static int compareNullable(String a, String b) {
+        if (a == b) {
+            return 0;
+        }
+        if (a == null) {
+            return -1;
+        }
+        if (b == null) {
+            return 1;
+        }
+        return a.compareTo(b);
+    }
+
+    private static int intOrZero(Integer value) {
+        return value == null ? 0 : value;
+    }
+
+    public RawDnsEntry toRawDnsEntry() {
+        return new RawDnsEntry()
+                .set_id(id)
+                .setName(name)
+                .setType(type)
+                .setDetails(details)
+                .setTtl(ttl)
+                .setPriority(priority)
+                .setWeight(weight)
+                .setPort(port);
+    }
+
+    public DnsRecord withId(String id) {
+        if (Objects.equals(this.id, id)) {
+            return this;
+        }
+        return new DnsRecord(id, name, type, details, ttl, priority, weight, port);
+    }
+
+    public DnsRecord withTtl(long ttl) {
+        if (this.ttl == ttl) {
+            return this;
+        }
+        return new DnsRecord(id, name, type, details, ttl, priority, weight, port);
+    }
+
+    @Override
+    public int compareTo(DnsRecord o) {
+        int result = compareNullable(name, o.name);
+        if (result != 0) {
+            return result;
+        }
+        result = compareNullable(type, o.type);
+        if (result != 0) {
+            return result;
+        }
+        result = compareNullable(details, o.details);
+        if (result != 0) {
+            return result;
+        }
+        result = Long.compare(ttl, o.ttl);
+        if (result != 0) {
+            return result;
+        }
+        result = Integer.compare(intOrZero(priority), intOrZero(o.priority));
+        if (result != 0) {
+            return result;
+        }
+        result = Integer.compare(intOrZero(weight), intOrZero(o.weight));
+        if (result != 0) {
+            return result;
+        }
+        return Integer.compare(intOrZero(port), intOrZero(o.port));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DnsRecord)) {
+            return false;
+        }
+        DnsRecord other = (DnsRecord) o;
+        return hashCode == other.hashCode
+                && ttl == other.ttl
+                && name == other.name
+                && type == other.type
+                && Objects.equals(details, other.details)
+                && Objects.equals(id, other.id)
+                && Objects.equals(priority, other.priority)
+                && Objects.equals(weight, other.weight)
+                && Objects.equals(port, other.port);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public Integer getPriority() {
+        return priority;
+    }
+
+    public Integer getWeight() {
+        return weight;
+    }
+
+    public Integer getPort() {
+        return port;
+    }
+
+    @Override
+    public String toString() {
+        return "DnsRecord{" +
+                "id='" + id + '\'' +
+                ", name='" + name + '\'' +
+                ", type='" + type + '\'' +
+                ", details='" + details + '\'' +
+                ", ttl=" + ttl +
+                ", priority=" + priority +
+                ", weight=" + weight +
+                ", port=" + port +
+                '}';
+    }
+
+}
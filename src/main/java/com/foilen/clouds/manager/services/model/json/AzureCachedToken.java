@@ -0,0 +1,73 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services.model.json;
+
+import com.foilen.smalltools.restapi.model.AbstractApiBase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AzureCachedToken extends AbstractApiBase {
+
+    private String namespace;
+    private String tenantId;
+    private List<String> scopes = new ArrayList<>();
+    private String token;
+    private long expiresAt;
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public AzureCachedToken setNamespace(String namespace) {
+        this.namespace = namespace;
+        return this;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public AzureCachedToken setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+        return this;
+    }
+
+    public List<String> getScopes() {
+        return scopes;
+    }
+
+    public AzureCachedToken setScopes(List<String> scopes) {
+        this.scopes = scopes;
+        return this;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public AzureCachedToken setToken(String token) {
+        this.token = token;
+        return this;
+    }
+
+    /**
+     * @return the expiration in epoch seconds
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public AzureCachedToken setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+        return this;
+    }
+
+}
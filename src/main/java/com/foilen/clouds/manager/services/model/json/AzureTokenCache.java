@@ -0,0 +1,33 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services.model.json;
+
+import com.foilen.smalltools.restapi.model.AbstractApiBase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Azure tokens kept on disk (encrypted) between the runs.
+ */
+public class AzureTokenCache extends AbstractApiBase {
+
+    private List<AzureCachedToken> tokens = new ArrayList<>();
+
+    public List<AzureCachedToken> getTokens() {
+        return tokens;
+    }
+
+    public AzureTokenCache setTokens(List<AzureCachedToken> tokens) {
+        this.tokens = tokens;
+        return this;
+    }
+
+}
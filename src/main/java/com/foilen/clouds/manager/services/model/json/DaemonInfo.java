@@ -0,0 +1,50 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services.model.json;
+
+import com.foilen.smalltools.restapi.model.AbstractApiBase;
+
+/**
+ * Where the daemon is listening and the token that the clients must send.
+ */
+public class DaemonInfo extends AbstractApiBase {
+
+    private long pid;
+    private int port;
+    private String token;
+
+    public long getPid() {
+        return pid;
+    }
+
+    public DaemonInfo setPid(long pid) {
+        this.pid = pid;
+        return this;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public DaemonInfo setPort(int port) {
+        this.port = port;
+        return this;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public DaemonInfo setToken(String token) {
+        this.token = token;
+        return this;
+    }
+
+}
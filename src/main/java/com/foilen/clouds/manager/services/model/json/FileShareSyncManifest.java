@@ -0,0 +1,51 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services.model.json;
+
+import com.foilen.smalltools.restapi.model.AbstractApiBase;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * What was on the share after the last successful sync. The keys are the paths in the share.
+ */
+public class FileShareSyncManifest extends AbstractApiBase {
+
+    private String sourceFolder;
+    private ConcurrentSkipListSet<String> directories = new ConcurrentSkipListSet<>();
+    private ConcurrentSkipListMap<String, FileShareSyncManifestEntry> files = new ConcurrentSkipListMap<>();
+
+    public String getSourceFolder() {
+        return sourceFolder;
+    }
+
+    public FileShareSyncManifest setSourceFolder(String sourceFolder) {
+        this.sourceFolder = sourceFolder;
+        return this;
+    }
+
+    public ConcurrentSkipListSet<String> getDirectories() {
+        return directories;
+    }
+
+    public void setDirectories(ConcurrentSkipListSet<String> directories) {
+        this.directories = directories;
+    }
+
+    public ConcurrentSkipListMap<String, FileShareSyncManifestEntry> getFiles() {
+        return files;
+    }
+
+    public void setFiles(ConcurrentSkipListMap<String, FileShareSyncManifestEntry> files) {
+        this.files = files;
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services.model.json;
+
+import com.foilen.smalltools.restapi.model.AbstractApiBase;
+
+public class FileShareSyncManifestEntry extends AbstractApiBase {
+
+    private long size;
+    private long lastModified;
+    private String sha256;
+    private String eTag;
+
+    public long getSize() {
+        return size;
+    }
+
+    public FileShareSyncManifestEntry setSize(long size) {
+        this.size = size;
+        return this;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public FileShareSyncManifestEntry setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+        return this;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public FileShareSyncManifestEntry setSha256(String sha256) {
+        this.sha256 = sha256;
+        return this;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public FileShareSyncManifestEntry setETag(String eTag) {
+        this.eTag = eTag;
+        return this;
+    }
+
+}
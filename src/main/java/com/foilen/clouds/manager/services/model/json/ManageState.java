@@ -0,0 +1,31 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services.model.json;
+
+import com.foilen.smalltools.restapi.model.AbstractApiBase;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * What was applied by the last successful runs of `manage-resources`. The keys are the ids of the managed resources.
+ */
+public class ManageState extends AbstractApiBase {
+
+    private ConcurrentSkipListMap<String, ManageStateResource> resources = new ConcurrentSkipListMap<>();
+
+    public ConcurrentSkipListMap<String, ManageStateResource> getResources() {
+        return resources;
+    }
+
+    public void setResources(ConcurrentSkipListMap<String, ManageStateResource> resources) {
+        this.resources = resources;
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services.model.json;
+
+import com.foilen.smalltools.restapi.model.AbstractApiBase;
+
+public class ManageStateResource extends AbstractApiBase {
+
+    private String desiredFingerprint;
+    private String remoteId;
+    private String remoteFingerprint;
+
+    public String getDesiredFingerprint() {
+        return desiredFingerprint;
+    }
+
+    public ManageStateResource setDesiredFingerprint(String desiredFingerprint) {
+        this.desiredFingerprint = desiredFingerprint;
+        return this;
+    }
+
+    public String getRemoteId() {
+        return remoteId;
+    }
+
+    public ManageStateResource setRemoteId(String remoteId) {
+        this.remoteId = remoteId;
+        return this;
+    }
+
+    public String getRemoteFingerprint() {
+        return remoteFingerprint;
+    }
+
+    public ManageStateResource setRemoteFingerprint(String remoteFingerprint) {
+        this.remoteFingerprint = remoteFingerprint;
+        return this;
+    }
+
+}
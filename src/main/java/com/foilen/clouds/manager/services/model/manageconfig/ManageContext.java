@@ -20,6 +20,7 @@ public class ManageContext {
     private List<String> modifications = new ArrayList<>();
 
     private String needsNextStageHash = "";
+    private List<ReadinessProbe> readinessProbes = new ArrayList<>();
 
     public void addModification(Modification modification) {
         switch (modification.getAction()) {
@@ -75,7 +76,35 @@ public class ManageContext {
         this.needsNextStageHash = needsNextStageHash;
     }
 
+    public List<ReadinessProbe> getReadinessProbes() {
+        return readinessProbes;
+    }
+
+    public void merge(ManageContext other) {
+        modifications.addAll(other.getModifications());
+        if (!other.getNeedsNextStageHash().isEmpty()) {
+            needsNextStageHash = HashSha256.hashString(needsNextStageHash + other.getNeedsNextStageHash());
+        }
+        readinessProbes.addAll(other.getReadinessProbes());
+    }
+
+    /**
+     * Mark that it needs to retry later without knowing what to wait for. The retry will happen after a fixed delay.
+     *
+     * @param failureDetails the details of what is failing
+     */
     public void needsNextStage(String... failureDetails) {
+        needsNextStage(ReadinessProbe.after("Wait for " + Joiner.on("/").join(failureDetails), 15000), failureDetails);
+    }
+
+    /**
+     * Mark that it needs to retry when the probe is ready.
+     *
+     * @param readinessProbe the probe that tells when to retry
+     * @param failureDetails the details of what is failing
+     */
+    public void needsNextStage(ReadinessProbe readinessProbe, String... failureDetails) {
         needsNextStageHash = HashSha256.hashString(needsNextStageHash + Joiner.on("|").join(failureDetails));
+        readinessProbes.add(readinessProbe);
     }
 }
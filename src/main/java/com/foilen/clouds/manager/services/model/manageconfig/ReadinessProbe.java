@@ -0,0 +1,59 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services.model.manageconfig;
+
+import com.foilen.smalltools.tools.AbstractBasics;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * A check telling if what was missing for a resource to proceed to the next stage is now available.
+ */
+public class ReadinessProbe extends AbstractBasics {
+
+    private final String description;
+    private final BooleanSupplier check;
+
+    public ReadinessProbe(String description, BooleanSupplier check) {
+        this.description = description;
+        this.check = check;
+    }
+
+    /**
+     * A probe that is ready after some time. Used when there is nothing specific to check.
+     *
+     * @param description the description
+     * @param delayMs     the time to wait from now
+     * @return the probe
+     */
+    public static ReadinessProbe after(String description, long delayMs) {
+        var readyAt = System.currentTimeMillis() + delayMs;
+        return new ReadinessProbe(description, () -> System.currentTimeMillis() >= readyAt);
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public boolean isReady() {
+        try {
+            return check.getAsBoolean();
+        } catch (Exception e) {
+            logger.debug("Probe {} failed", description, e);
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.daemon;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+public class DaemonProtocolTest {
+
+    @Test
+    public void testFrames() throws Exception {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        try (var commandOut = new PrintStream(new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.FRAME_OUT), true, StandardCharsets.UTF_8);
+             var commandErr = new PrintStream(new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.FRAME_ERR), true, StandardCharsets.UTF_8)) {
+            commandOut.print("hello \u00e9");
+            commandErr.print("error");
+        }
+        DaemonProtocol.writeExit(out, 3);
+
+        var in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Assert.assertEquals(DaemonProtocol.FRAME_OUT, in.readByte());
+        var text = new byte[in.readInt()];
+        in.readFully(text);
+        Assert.assertEquals("hello \u00e9", new String(text, StandardCharsets.UTF_8));
+        Assert.assertEquals(DaemonProtocol.FRAME_ERR, in.readByte());
+        text = new byte[in.readInt()];
+        in.readFully(text);
+        Assert.assertEquals("error", new String(text, StandardCharsets.UTF_8));
+        Assert.assertEquals(DaemonProtocol.FRAME_EXIT, in.readByte());
+        Assert.assertEquals(3, in.readInt());
+        Assert.assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testStrings() throws Exception {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        DaemonProtocol.writeString(out, "token");
+        DaemonProtocol.writeStrings(out, new String[]{"dns-query", "--hostname", "foilen.com", ""});
+
+        var in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Assert.assertEquals("token", DaemonProtocol.readString(in));
+        Assert.assertArrayEquals(new String[]{"dns-query", "--hostname", "foilen.com", ""}, DaemonProtocol.readStrings(in));
+    }
+
+}
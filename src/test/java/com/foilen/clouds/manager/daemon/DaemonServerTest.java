@@ -0,0 +1,85 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.daemon;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class DaemonServerTest {
+
+    private static String readErr(ByteArrayOutputStream bytes) throws IOException {
+        var in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Assert.assertEquals(DaemonProtocol.FRAME_ERR, in.readByte());
+        var text = new byte[in.readInt()];
+        in.readFully(text);
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testRefusedReason() {
+        Assert.assertNull(DaemonServer.refusedReason(new String[]{"dns-query", "--hostname", "foilen.com"}));
+        Assert.assertNull(DaemonServer.refusedReason(new String[]{}));
+        Assert.assertNotNull(DaemonServer.refusedReason(new String[]{"daemon"}));
+        Assert.assertNotNull(DaemonServer.refusedReason(new String[]{"azure-dns-zone-entry-update", "--hostname", "a.example.com", "--keep-alive"}));
+    }
+
+    @Test
+    public void testExecute_refused() throws Exception {
+        var daemonServer = new DaemonServer();
+        var bytes = new ByteArrayOutputStream();
+
+        Assert.assertEquals(1, daemonServer.execute(new DataOutputStream(bytes), "/", new String[]{"daemon"}));
+        Assert.assertEquals("The daemon is already running\n", readErr(bytes));
+    }
+
+    @Test(timeout = 10000)
+    public void testExecute_busy() throws Exception {
+        var daemonServer = new DaemonServer();
+        ReflectionTestUtils.setField(daemonServer, "busyTimeoutMs", 10L);
+
+        // Another command is running
+        var commandLock = (ReentrantLock) ReflectionTestUtils.getField(daemonServer, "commandLock");
+        var locked = new CountDownLatch(1);
+        var done = new CountDownLatch(1);
+        var otherCommand = new Thread(() -> {
+            commandLock.lock();
+            try {
+                locked.countDown();
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                commandLock.unlock();
+            }
+        });
+        otherCommand.start();
+        locked.await();
+
+        try {
+            var bytes = new ByteArrayOutputStream();
+            Assert.assertEquals(DaemonProtocol.EXIT_NOT_EXECUTED, daemonServer.execute(new DataOutputStream(bytes), "/", new String[]{"dns-query", "--hostname", "foilen.com"}));
+            Assert.assertTrue(readErr(bytes).startsWith("The daemon is busy"));
+        } finally {
+            done.countDown();
+            otherCommand.join();
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.digitaloceanclient;
+
+import com.foilen.clouds.manager.digitaloceanclient.model.DigitalOceanDomainRecord;
+import com.foilen.clouds.manager.digitaloceanclient.model.DigitalOceanDomainRecordType;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class DigitalOceanCustomClientTest {
+
+    private static DigitalOceanDomainRecord record(DigitalOceanDomainRecordType type, String name, String data, Integer priority) {
+        var record = new DigitalOceanDomainRecord();
+        record.setType(type);
+        record.setName(name);
+        record.setData(data);
+        record.setPriority(priority);
+        return record;
+    }
+
+    @Test
+    public void testIsRetryable() {
+        Assert.assertTrue(DigitalOceanCustomClient.isRetryable(HttpMethod.GET, 429));
+        Assert.assertTrue(DigitalOceanCustomClient.isRetryable(HttpMethod.DELETE, 429));
+        Assert.assertTrue(DigitalOceanCustomClient.isRetryable(HttpMethod.POST, 429));
+
+        Assert.assertTrue(DigitalOceanCustomClient.isRetryable(HttpMethod.GET, 502));
+        Assert.assertTrue(DigitalOceanCustomClient.isRetryable(HttpMethod.DELETE, 503));
+        Assert.assertFalse(DigitalOceanCustomClient.isRetryable(HttpMethod.POST, 500));
+        Assert.assertFalse(DigitalOceanCustomClient.isRetryable(HttpMethod.POST, 504));
+
+        Assert.assertFalse(DigitalOceanCustomClient.isRetryable(HttpMethod.GET, 404));
+        Assert.assertFalse(DigitalOceanCustomClient.isRetryable(HttpMethod.POST, 422));
+    }
+
+    @Test
+    public void testIsSameRecord() {
+        var sent = record(DigitalOceanDomainRecordType.A, "www", "127.0.0.1", null);
+        Assert.assertTrue(DigitalOceanCustomClient.isSameRecord(sent, record(DigitalOceanDomainRecordType.A, "www", "127.0.0.1", null), "example.com"));
+        Assert.assertFalse(DigitalOceanCustomClient.isSameRecord(sent, record(DigitalOceanDomainRecordType.A, "www", "127.0.0.2", null), "example.com"));
+        Assert.assertFalse(DigitalOceanCustomClient.isSameRecord(sent, record(DigitalOceanDomainRecordType.A, "web", "127.0.0.1", null), "example.com"));
+        Assert.assertFalse(DigitalOceanCustomClient.isSameRecord(sent, record(DigitalOceanDomainRecordType.AAAA, "www", "127.0.0.1", null), "example.com"));
+    }
+
+    @Test
+    public void testIsSameRecord_hostnames() {
+        // Sent with the final dot ; returned without it or with @ for the domain itself
+        var sent = record(DigitalOceanDomainRecordType.MX, "@", "mail.example.com.", 10);
+        Assert.assertTrue(DigitalOceanCustomClient.isSameRecord(sent, record(DigitalOceanDomainRecordType.MX, "@", "mail.example.com", 10), "example.com"));
+        Assert.assertFalse(DigitalOceanCustomClient.isSameRecord(sent, record(DigitalOceanDomainRecordType.MX, "@", "mail.example.com", 20), "example.com"));
+
+        sent = record(DigitalOceanDomainRecordType.CNAME, "www", "example.com.", null);
+        Assert.assertTrue(DigitalOceanCustomClient.isSameRecord(sent, record(DigitalOceanDomainRecordType.CNAME, "www", "@", null), "example.com"));
+    }
+
+    @Test
+    public void testParseRecordsPage() throws IOException {
+        var json = "{\"domain_records\":[" +
+                "{\"id\":1,\"type\":\"A\",\"name\":\"www\",\"data\":\"127.0.0.1\",\"ttl\":300,\"flags\":null,\"tag\":null}," +
+                "{\"id\":2,\"type\":\"MX\",\"name\":\"@\",\"data\":\"mail.example.com\",\"priority\":10,\"ttl\":3600}" +
+                "]," +
+                "\"links\":{\"pages\":{\"last\":\"https://api.digitalocean.com/v2/domains/example.com/records?page=3&per_page=2\",\"next\":\"https://api.digitalocean.com/v2/domains/example.com/records?page=2&per_page=2\"}}," +
+                "\"meta\":{\"total\":5}}";
+
+        var page = DigitalOceanCustomClient.parseRecordsPage(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        Assert.assertEquals(2, page.getDomainRecords().size());
+        Assert.assertEquals("1", page.getDomainRecords().get(0).getId());
+        Assert.assertEquals(DigitalOceanDomainRecordType.A, page.getDomainRecords().get(0).getType());
+        Assert.assertEquals(300, page.getDomainRecords().get(0).getTtl());
+        Assert.assertEquals(Integer.valueOf(10), page.getDomainRecords().get(1).getPriority());
+        Assert.assertEquals("https://api.digitalocean.com/v2/domains/example.com/records?page=2&per_page=2", page.getNextUrl());
+        Assert.assertEquals(5, page.getTotal());
+    }
+
+    @Test
+    public void testParseRecordsPage_lastPage() throws IOException {
+        var json = "{\"domain_records\":[],\"links\":{},\"meta\":{\"total\":0}}";
+
+        var page = DigitalOceanCustomClient.parseRecordsPage(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        Assert.assertTrue(page.getDomainRecords().isEmpty());
+        Assert.assertNull(page.getNextUrl());
+        Assert.assertEquals(0, page.getTotal());
+    }
+
+}
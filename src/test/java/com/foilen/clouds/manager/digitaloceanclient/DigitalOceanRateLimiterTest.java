@@ -0,0 +1,46 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.digitaloceanclient;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DigitalOceanRateLimiterTest {
+
+    @Test
+    public void testCanStart() {
+        var now = 1_000_000_000L;
+        var rateLimiter = new DigitalOceanRateLimiter(10);
+
+        // Unknown budget
+        Assert.assertTrue(rateLimiter.canStart(now));
+
+        // Enough budget
+        rateLimiter.update(11L, now / 1000 + 60);
+        Assert.assertTrue(rateLimiter.canStart(now));
+        rateLimiter.acquire();
+
+        // Reserve reached with the one in flight
+        Assert.assertFalse(rateLimiter.canStart(now));
+
+        // The budget is back after the reset
+        Assert.assertTrue(rateLimiter.canStart(now + 60000));
+    }
+
+    @Test
+    public void testRetryDelayMs() {
+        Assert.assertEquals(3000, DigitalOceanRateLimiter.retryDelayMs("3", 1, 0));
+        Assert.assertEquals(1000, DigitalOceanRateLimiter.retryDelayMs(null, 1, 0));
+        Assert.assertEquals(4000, DigitalOceanRateLimiter.retryDelayMs(null, 3, 0));
+        Assert.assertEquals(30000, DigitalOceanRateLimiter.retryDelayMs("invalid", 10, 0));
+        Assert.assertEquals(5000, DigitalOceanRateLimiter.retryDelayMs("Thu, 01 Jan 1970 00:00:10 GMT", 1, 5000));
+    }
+
+}
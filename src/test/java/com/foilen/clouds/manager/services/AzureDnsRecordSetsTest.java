@@ -0,0 +1,62 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.commands.model.RawDnsEntry;
+import com.google.common.base.Strings;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class AzureDnsRecordSetsTest {
+
+    @Test
+    public void testToRecordSet_a() {
+        var recordSet = AzureDnsRecordSets.toRecordSet("A", List.of(
+                new RawDnsEntry().setName("www.example.com").setType("A").setDetails("127.0.0.1").setTtl(3600),
+                new RawDnsEntry().setName("www.example.com").setType("A").setDetails("127.0.0.2").setTtl(300)
+        ));
+
+        Assert.assertEquals(Long.valueOf(300), recordSet.ttl());
+        Assert.assertEquals(2, recordSet.aRecords().size());
+        Assert.assertEquals("127.0.0.1", recordSet.aRecords().get(0).ipv4Address());
+        Assert.assertEquals("127.0.0.2", recordSet.aRecords().get(1).ipv4Address());
+    }
+
+    @Test
+    public void testToRecordSet_srv() {
+        var recordSet = AzureDnsRecordSets.toRecordSet("SRV", List.of(
+                new RawDnsEntry().setName("_sip._tcp.example.com").setType("SRV").setDetails("sip.example.com").setPort(5060).setPriority(10).setWeight(20)
+        ));
+
+        var srvRecord = recordSet.srvRecords().get(0);
+        Assert.assertEquals("sip.example.com", srvRecord.target());
+        Assert.assertEquals(Integer.valueOf(5060), srvRecord.port());
+        Assert.assertEquals(Integer.valueOf(10), srvRecord.priority());
+        Assert.assertEquals(Integer.valueOf(20), srvRecord.weight());
+    }
+
+    @Test
+    public void testToRecordSet_txtLong() {
+        var part1 = Strings.repeat("a", 255);
+        var part2 = Strings.repeat("b", 100);
+        var recordSet = AzureDnsRecordSets.toRecordSet("TXT", List.of(
+                new RawDnsEntry().setName("example.com").setType("TXT").setDetails(part1 + part2),
+                new RawDnsEntry().setName("example.com").setType("TXT").setDetails("short")
+        ));
+
+        Assert.assertEquals(2, recordSet.txtRecords().size());
+        Assert.assertEquals(Arrays.asList(part1, part2), recordSet.txtRecords().get(0).value());
+        Assert.assertEquals(Arrays.asList("short"), recordSet.txtRecords().get(1).value());
+    }
+
+}
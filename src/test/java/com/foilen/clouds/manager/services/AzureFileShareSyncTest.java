@@ -0,0 +1,96 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.services.model.json.FileShareSyncManifest;
+import com.foilen.clouds.manager.services.model.json.FileShareSyncManifestEntry;
+import com.foilen.smalltools.tuple.Tuple2;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class AzureFileShareSyncTest {
+
+    private static final long LAST_MODIFIED = 1700000000000L;
+
+    private static File localFile(int size) throws Exception {
+        var file = Files.createTempFile("sync", ".txt").toFile();
+        file.deleteOnExit();
+        Files.write(file.toPath(), new byte[size]);
+        Assert.assertTrue(file.setLastModified(LAST_MODIFIED));
+        return file;
+    }
+
+    @Test
+    public void testIsCompareWithRemote() {
+        Assert.assertTrue(AzureFileShareSync.isCompareWithRemote(null, false));
+        Assert.assertTrue(AzureFileShareSync.isCompareWithRemote(null, true));
+        Assert.assertFalse(AzureFileShareSync.isCompareWithRemote(new FileShareSyncManifest(), false));
+        Assert.assertTrue(AzureFileShareSync.isCompareWithRemote(new FileShareSyncManifest(), true));
+    }
+
+    @Test
+    public void testIsUnchangedSinceManifest() throws Exception {
+        var file = localFile(10);
+
+        Assert.assertTrue(AzureFileShareSync.isUnchangedSinceManifest(new FileShareSyncManifestEntry().setSize(10).setLastModified(LAST_MODIFIED), file));
+        Assert.assertFalse(AzureFileShareSync.isUnchangedSinceManifest(null, file));
+        Assert.assertFalse(AzureFileShareSync.isUnchangedSinceManifest(new FileShareSyncManifestEntry().setSize(11).setLastModified(LAST_MODIFIED), file));
+        Assert.assertFalse(AzureFileShareSync.isUnchangedSinceManifest(new FileShareSyncManifestEntry().setSize(10).setLastModified(LAST_MODIFIED - 1000), file));
+    }
+
+    @Test
+    public void testUploadReason_same() throws Exception {
+        var file = localFile(10);
+        var previousEntry = new FileShareSyncManifestEntry().setSize(10).setLastModified(LAST_MODIFIED).setETag("etag1");
+
+        Assert.assertNull(AzureFileShareSync.uploadReason(LAST_MODIFIED / 1000, 10, "etag1", file, previousEntry));
+        Assert.assertNull(AzureFileShareSync.uploadReason(LAST_MODIFIED / 1000 + 60, 10, "etag1", file, previousEntry));
+
+        // Nothing to compare the ETag with
+        Assert.assertNull(AzureFileShareSync.uploadReason(LAST_MODIFIED / 1000, 10, "etag2", file, null));
+        Assert.assertNull(AzureFileShareSync.uploadReason(LAST_MODIFIED / 1000, 10, "etag2", file, new FileShareSyncManifestEntry()));
+        Assert.assertNull(AzureFileShareSync.uploadReason(LAST_MODIFIED / 1000, 10, null, file, previousEntry));
+    }
+
+    @Test
+    public void testUploadReason_changed() throws Exception {
+        var file = localFile(10);
+        var previousEntry = new FileShareSyncManifestEntry().setSize(10).setLastModified(LAST_MODIFIED).setETag("etag1");
+
+        Assert.assertEquals("the last modification date is locally more recent", AzureFileShareSync.uploadReason(LAST_MODIFIED / 1000 - 1, 10, "etag1", file, previousEntry));
+        Assert.assertEquals("the size are different", AzureFileShareSync.uploadReason(LAST_MODIFIED / 1000, 11, "etag1", file, previousEntry));
+        Assert.assertEquals("it was changed remotely since the last sync", AzureFileShareSync.uploadReason(LAST_MODIFIED / 1000, 10, "etag2", file, previousEntry));
+    }
+
+    @Test
+    public void testRanges() {
+        Assert.assertEquals(Collections.emptyList(), AzureFileShareSync.ranges(0, 4));
+        Assert.assertEquals(Collections.singletonList(new Tuple2<>(0L, 3)), AzureFileShareSync.ranges(3, 4));
+        Assert.assertEquals(Collections.singletonList(new Tuple2<>(0L, 4)), AzureFileShareSync.ranges(4, 4));
+        Assert.assertEquals(Arrays.asList(new Tuple2<>(0L, 4), new Tuple2<>(4L, 4), new Tuple2<>(8L, 2)), AzureFileShareSync.ranges(10, 4));
+    }
+
+    @Test
+    public void testRanges_large() {
+        long size = 10L * 1024 * 1024 * 1024 + 1;
+        var ranges = AzureFileShareSync.ranges(size, AzureFileShareSync.MAX_CHUNK_SIZE);
+
+        Assert.assertEquals(2561, ranges.size());
+        Assert.assertEquals(Long.valueOf(size - 1), ranges.get(2560).getA());
+        Assert.assertEquals(Integer.valueOf(1), ranges.get(2560).getB());
+        Assert.assertEquals(size, ranges.stream().mapToLong(Tuple2::getB).sum());
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.google.common.base.Ticker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AzureKeyVaultSecretPrefetchTest {
+
+    private static class ManualTicker extends Ticker {
+
+        private long nanos;
+
+        public void advance(long time, TimeUnit unit) {
+            nanos += unit.toNanos(time);
+        }
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+    }
+
+    @Test
+    public void testGet_notPrefetched() {
+        var prefetch = new AzureKeyVaultSecretPrefetch(60000, new ManualTicker());
+        var loadCount = new AtomicInteger();
+
+        prefetch.put("vault1", "example-com--", Map.of("example-com--a", "prefetched"));
+
+        Assert.assertEquals("loaded", prefetch.get("vault1", "other-com--a", () -> {
+            loadCount.incrementAndGet();
+            return "loaded";
+        }));
+        Assert.assertEquals("loaded", prefetch.get("vault2", "example-com--a", () -> {
+            loadCount.incrementAndGet();
+            return "loaded";
+        }));
+        Assert.assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testGet_prefetched() {
+        var prefetch = new AzureKeyVaultSecretPrefetch(60000, new ManualTicker());
+
+        prefetch.put("vault1", "example-com--", Map.of("example-com--a", "prefetched"));
+
+        Assert.assertEquals("prefetched", prefetch.get("vault1", "example-com--a", () -> {
+            throw new AssertionError("Should not load");
+        }));
+        Assert.assertNull(prefetch.get("vault1", "example-com--missing", () -> {
+            throw new AssertionError("Should not load");
+        }));
+    }
+
+    @Test
+    public void testGet_expired() {
+        var ticker = new ManualTicker();
+        var prefetch = new AzureKeyVaultSecretPrefetch(60000, ticker);
+
+        prefetch.put("vault1", "example-com--", Map.of("example-com--a", "prefetched"));
+
+        ticker.advance(59, TimeUnit.SECONDS);
+        Assert.assertEquals("prefetched", prefetch.get("vault1", "example-com--a", () -> "loaded"));
+
+        ticker.advance(1, TimeUnit.SECONDS);
+        Assert.assertEquals("loaded", prefetch.get("vault1", "example-com--a", () -> "loaded"));
+        Assert.assertNull(prefetch.get("vault1", "example-com--missing", () -> null));
+    }
+
+    @Test
+    public void testClear() {
+        var prefetch = new AzureKeyVaultSecretPrefetch(60000, new ManualTicker());
+
+        prefetch.put("vault1", "example-com--", Map.of("example-com--a", "prefetched"));
+        prefetch.put("vault1", "other-com--", Map.of("other-com--a", "prefetched"));
+        prefetch.clear("vault1", "example-com--");
+
+        Assert.assertEquals("loaded", prefetch.get("vault1", "example-com--a", () -> "loaded"));
+        Assert.assertEquals("prefetched", prefetch.get("vault1", "other-com--a", () -> "loaded"));
+
+        // Clearing what is not prefetched does nothing
+        prefetch.clear("vault1", "example-com--");
+        prefetch.clear("vault2", "example-com--");
+    }
+
+    @Test
+    public void testSet() {
+        var prefetch = new AzureKeyVaultSecretPrefetch(60000, new ManualTicker());
+
+        prefetch.put("vault1", "example-com--", Map.of("example-com--a", "prefetched"));
+        prefetch.set("vault1", "example-com--a", "updated");
+        prefetch.set("vault1", "example-com--b", "created");
+        prefetch.set("vault1", "other-com--a", "not prefetched");
+
+        Assert.assertEquals("updated", prefetch.get("vault1", "example-com--a", () -> "loaded"));
+        Assert.assertEquals("created", prefetch.get("vault1", "example-com--b", () -> "loaded"));
+        Assert.assertEquals("loaded", prefetch.get("vault1", "other-com--a", () -> "loaded"));
+    }
+
+    @Test
+    public void testSet_overlappingPrefixes() {
+        for (var remainingPrefix : Arrays.asList("example-com--", "example-com--b-")) {
+            var prefetch = new AzureKeyVaultSecretPrefetch(60000, new ManualTicker());
+
+            prefetch.put("vault1", "example-com--", Map.of("example-com--a", "prefetched", "example-com--b-a", "prefetched"));
+            prefetch.put("vault1", "example-com--b-", Map.of("example-com--b-a", "prefetched"));
+            prefetch.set("vault1", "example-com--b-a", "updated");
+            Assert.assertEquals("updated", prefetch.get("vault1", "example-com--b-a", () -> "loaded"));
+
+            // Each prefetch got the update
+            prefetch.clear("vault1", remainingPrefix.equals("example-com--") ? "example-com--b-" : "example-com--");
+            Assert.assertEquals(remainingPrefix, "updated", prefetch.get("vault1", "example-com--b-a", () -> "loaded"));
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AzureResourceSnapshotTest {
+
+    private static final String WEBAPP_ID = "/subscriptions/sub1/resourceGroups/rg1/providers/Microsoft.Web/sites/app1";
+
+    @Test
+    public void testGet_loadOnce() {
+        var snapshot = new AzureResourceSnapshot();
+        var loadCount = new AtomicInteger();
+
+        Assert.assertEquals(Optional.of("app1"), snapshot.get("webapp", WEBAPP_ID, () -> {
+            loadCount.incrementAndGet();
+            return Optional.of("app1");
+        }));
+        Assert.assertEquals(Optional.of("app1"), snapshot.get("webapp", WEBAPP_ID.toUpperCase(), () -> {
+            loadCount.incrementAndGet();
+            return Optional.of("app1 again");
+        }));
+        Assert.assertEquals(Optional.empty(), snapshot.get("webappConfig", WEBAPP_ID, () -> Optional.empty()));
+        Assert.assertEquals(Optional.empty(), snapshot.get("webappConfig", WEBAPP_ID, () -> Optional.of("config")));
+
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertEquals(2, snapshot.getMisses());
+        Assert.assertEquals(2, snapshot.getHits());
+    }
+
+    @Test
+    public void testInvalidate() {
+        var snapshot = new AzureResourceSnapshot();
+        snapshot.put("webapp", WEBAPP_ID, "app1");
+        snapshot.put("webappConfig", WEBAPP_ID, "config1");
+        snapshot.put("webapp", WEBAPP_ID + "2", "app12");
+
+        snapshot.invalidate(WEBAPP_ID);
+
+        Assert.assertEquals(Optional.of("app1b"), snapshot.get("webapp", WEBAPP_ID, () -> Optional.of("app1b")));
+        Assert.assertEquals(Optional.of("config1b"), snapshot.get("webappConfig", WEBAPP_ID, () -> Optional.of("config1b")));
+        Assert.assertEquals(Optional.of("app12"), snapshot.get("webapp", WEBAPP_ID + "2", () -> Optional.of("app12b")));
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.services.model.json.AzureCachedToken;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class AzureTokenFileCacheTest {
+
+    @Test
+    public void testEncryptDecrypt() throws Exception {
+        var key = new byte[32];
+        key[0] = 1;
+        var encrypted = AzureTokenFileCache.encrypt(key, "secret token".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals("secret token", new String(AzureTokenFileCache.decrypt(key, encrypted), StandardCharsets.UTF_8));
+
+        // Random IV
+        Assert.assertNotEquals(new String(encrypted, StandardCharsets.ISO_8859_1), new String(AzureTokenFileCache.encrypt(key, "secret token".getBytes(StandardCharsets.UTF_8)), StandardCharsets.ISO_8859_1));
+    }
+
+    @Test(expected = GeneralSecurityException.class)
+    public void testDecrypt_tampered() throws Exception {
+        var key = new byte[32];
+        var encrypted = AzureTokenFileCache.encrypt(key, "secret token".getBytes(StandardCharsets.UTF_8));
+        encrypted[encrypted.length - 1] ^= 1;
+        AzureTokenFileCache.decrypt(key, encrypted);
+    }
+
+    @Test
+    public void testUpdate_concurrent() throws Exception {
+        var directory = Files.createTempDirectory("azure-token-cache");
+        var fileCache = new AzureTokenFileCache(directory);
+
+        // Each adds its token to what was saved
+        var futures = IntStream.range(0, 20)
+                .mapToObj(i -> CompletableFuture.runAsync(() -> fileCache.update(tokenCache -> {
+                    var tokens = new ArrayList<>(tokenCache.getTokens());
+                    tokens.add(new AzureCachedToken().setNamespace("ns").setToken("token" + i));
+                    return tokenCache.setTokens(tokens);
+                })))
+                .collect(Collectors.toList());
+        futures.forEach(CompletableFuture::join);
+
+        var tokens = fileCache.load().getTokens().stream()
+                .map(AzureCachedToken::getToken)
+                .sorted()
+                .collect(Collectors.toList());
+        Assert.assertEquals(IntStream.range(0, 20).mapToObj(i -> "token" + i).sorted().collect(Collectors.toList()), tokens);
+    }
+
+}
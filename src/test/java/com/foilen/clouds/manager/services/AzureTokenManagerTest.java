@@ -0,0 +1,89 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.azure.core.credential.AccessToken;
+import com.azure.core.credential.TokenCredential;
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AzureTokenManagerTest {
+
+    private static TokenCredential countingCredential(AtomicInteger callCount, Duration validity, long delayMs) {
+        return request -> Mono.fromCallable(() -> {
+            Thread.sleep(delayMs);
+            var count = callCount.incrementAndGet();
+            return new AccessToken("token-" + count, OffsetDateTime.now().plus(validity));
+        });
+    }
+
+    @Test(timeout = 10000)
+    public void testGetToken_singleFlight() {
+        var callCount = new AtomicInteger();
+        var tokenManager = new AzureTokenManager(countingCredential(callCount, Duration.ofHours(1), 200), "test", Duration.ofMinutes(5), null);
+
+        var futures = new ArrayList<CompletableFuture<String>>();
+        for (int i = 0; i < 10; ++i) {
+            futures.add(CompletableFuture.supplyAsync(() -> tokenManager.getTokenValue("scope")));
+        }
+        for (var future : futures) {
+            Assert.assertEquals("token-1", future.join());
+        }
+        Assert.assertEquals(1, callCount.get());
+
+        // Cached
+        Assert.assertEquals("token-1", tokenManager.getTokenValue("scope"));
+        Assert.assertEquals(1, callCount.get());
+
+        // Another scope
+        Assert.assertEquals("token-2", tokenManager.getTokenValue("scope2"));
+        Assert.assertEquals(2, callCount.get());
+    }
+
+    @Test
+    public void testRefreshAt() {
+        var now = OffsetDateTime.parse("2022-01-01T00:00:00Z");
+
+        // Before the expiration
+        Assert.assertEquals(OffsetDateTime.parse("2022-01-01T00:55:00Z"), AzureTokenManager.refreshAt(now, now.plusHours(1), Duration.ofMinutes(5)));
+
+        // Not before the middle of the life
+        Assert.assertEquals(OffsetDateTime.parse("2022-01-01T00:03:00Z"), AzureTokenManager.refreshAt(now, now.plusMinutes(6), Duration.ofMinutes(5)));
+    }
+
+    @Test(timeout = 10000)
+    public void testGetToken_fileCache() throws Exception {
+        var directory = Files.createTempDirectory("azure-token-cache");
+        var callCount = new AtomicInteger();
+
+        var tokenManager = new AzureTokenManager(countingCredential(callCount, Duration.ofHours(1), 0), "test", Duration.ofMinutes(5), new AzureTokenFileCache(directory));
+        Assert.assertEquals("token-1", tokenManager.getTokenValue("scope"));
+        Assert.assertEquals(1, callCount.get());
+
+        // Next run
+        tokenManager = new AzureTokenManager(countingCredential(callCount, Duration.ofHours(1), 0), "test", Duration.ofMinutes(5), new AzureTokenFileCache(directory));
+        Assert.assertEquals("token-1", tokenManager.getTokenValue("scope"));
+        Assert.assertEquals(1, callCount.get());
+
+        // Another credential
+        tokenManager = new AzureTokenManager(countingCredential(callCount, Duration.ofHours(1), 0), "other", Duration.ofMinutes(5), new AzureTokenFileCache(directory));
+        Assert.assertEquals("token-2", tokenManager.getTokenValue("scope"));
+        Assert.assertEquals(2, callCount.get());
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.commands.model.RawDnsEntry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CloudDigitalOceanServiceTest {
+
+    @Test
+    public void testMatchIds() {
+        var currentEntries = List.of(
+                new RawDnsEntry().set_id("1").setName("example.com").setType("TXT").setDetails("same").setTtl(300),
+                new RawDnsEntry().set_id("2").setName("example.com").setType("TXT").setDetails("same").setTtl(300),
+                new RawDnsEntry().set_id("3").setName("example.com").setType("MX").setDetails("mail.example.com").setPriority(10).setTtl(300),
+                new RawDnsEntry().set_id("4").setName("www.example.com").setType("A").setDetails("127.0.0.1").setTtl(300)
+        );
+        var desiredEntries = List.of(
+                new RawDnsEntry().setName("example.com").setType("TXT").setDetails("same").setTtl(300),
+                new RawDnsEntry().setName("example.com").setType("TXT").setDetails("same").setTtl(300),
+                new RawDnsEntry().setName("example.com").setType("TXT").setDetails("same").setTtl(300),
+                new RawDnsEntry().setName("example.com").setType("MX").setDetails("mail.example.com").setPriority(20).setTtl(300),
+                new RawDnsEntry().setName("www.example.com").setType("A").setDetails("127.0.0.1").setTtl(600)
+        );
+
+        CloudDigitalOceanService.matchIds(currentEntries, desiredEntries);
+
+        // Duplicates are matched one to one
+        Assert.assertEquals("1", desiredEntries.get(0).get_id());
+        Assert.assertEquals("2", desiredEntries.get(1).get_id());
+        Assert.assertNull(desiredEntries.get(2).get_id());
+
+        // Any difference is not a match
+        Assert.assertNull(desiredEntries.get(3).get_id());
+        Assert.assertNull(desiredEntries.get(4).get_id());
+    }
+
+    @Test(timeout = 10000)
+    public void testMatchIds_large() {
+        var count = 100000;
+        List<RawDnsEntry> currentEntries = new ArrayList<>(count);
+        List<RawDnsEntry> desiredEntries = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            currentEntries.add(new RawDnsEntry().set_id(String.valueOf(i)).setName("dkim" + (i % 1000) + ".example.com").setType("TXT").setDetails("v=DKIM1; k=rsa; p=" + i));
+        }
+        for (int i = count - 1; i >= 0; --i) {
+            var currentEntry = currentEntries.get(i);
+            desiredEntries.add(new RawDnsEntry().setName(currentEntry.getName()).setType(currentEntry.getType()).setDetails(currentEntry.getDetails()).setTtl(currentEntry.getTtl()));
+        }
+
+        CloudDigitalOceanService.matchIds(currentEntries, desiredEntries);
+
+        for (int i = 0; i < count; ++i) {
+            Assert.assertEquals(String.valueOf(count - 1 - i), desiredEntries.get(i).get_id());
+        }
+    }
+
+}
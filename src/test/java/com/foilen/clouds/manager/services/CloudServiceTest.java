@@ -0,0 +1,83 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.CliException;
+import com.foilen.clouds.manager.services.model.AzureKeyVault;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CloudServiceTest {
+
+    private static class FailingCloudAzureService extends CloudAzureService {
+
+        private final Map<String, String> secretByName = new ConcurrentHashMap<>();
+        private final AtomicInteger getCount = new AtomicInteger();
+        private boolean failSet;
+
+        @Override
+        public String keyVaultSecretGetAsText(AzureKeyVault azureKeyVault, String secretName) {
+            getCount.incrementAndGet();
+            return secretByName.get(secretName);
+        }
+
+        @Override
+        public void keyVaultSecretSetAsTextOrFail(AzureKeyVault azureKeyVault, String secretName, String value) {
+            if (failSet) {
+                throw new CliException("Could not set secret " + secretName);
+            }
+            secretByName.put(secretName, value);
+        }
+    }
+
+    private final CloudService cloudService = new CloudService();
+    private final FailingCloudAzureService cloudAzureService = new FailingCloudAzureService();
+    private final AzureKeyVault azureKeyVault = new AzureKeyVault();
+
+    @Before
+    public void init() {
+        ReflectionTestUtils.setField(cloudService, "cloudAzureService", cloudAzureService);
+        azureKeyVault.setId("vault1");
+    }
+
+    @Test
+    public void testSecretSetAsTextOrFail_azureSuccess() {
+        cloudService.secretSetAsTextOrFail(azureKeyVault, "example.com", "a", "new");
+
+        Assert.assertEquals("new", cloudService.secretGetAsText(azureKeyVault, "example.com", "a"));
+        Assert.assertEquals(0, cloudAzureService.getCount.get());
+    }
+
+    @Test
+    public void testSecretSetAsTextOrFail_azureFailure() {
+        cloudAzureService.secretByName.put("example.com--a", "old");
+        Assert.assertEquals("old", cloudService.secretGetAsText(azureKeyVault, "example.com", "a"));
+        Assert.assertEquals(1, cloudAzureService.getCount.get());
+
+        cloudAzureService.failSet = true;
+        try {
+            cloudService.secretSetAsTextOrFail(azureKeyVault, "example.com", "a", "new");
+            Assert.fail("Expected a failure");
+        } catch (CliException e) {
+            Assert.assertEquals("Could not set secret example.com--a", e.getMessage());
+        }
+
+        // The value that was not written is not cached and the next read goes to the vault
+        Assert.assertEquals("old", cloudService.secretGetAsText(azureKeyVault, "example.com", "a"));
+        Assert.assertEquals(2, cloudAzureService.getCount.get());
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.commands.model.RawDnsEntry;
+import com.foilen.clouds.manager.services.model.DnsRecord;
+import com.foilen.smalltools.tuple.Tuple2;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class DnsChangeSetTest {
+
+    private static List<DnsRecord> sorted(RawDnsEntry... rawDnsEntries) {
+        var records = DnsRecord.fromAll(Arrays.asList(rawDnsEntries));
+        Collections.sort(records);
+        return records;
+    }
+
+    @Test
+    public void testCompute() {
+        var current = sorted(
+                new RawDnsEntry().setName("a.example.com").setType("A").setDetails("127.0.0.1"),
+                new RawDnsEntry().setName("a.example.com").setType("A").setDetails("127.0.0.2"),
+                new RawDnsEntry().setName("a.example.com").setType("TXT").setDetails("same"),
+                new RawDnsEntry().setName("b.example.com").setType("A").setDetails("127.0.0.3"),
+                new RawDnsEntry().setName("d.example.com").setType("CNAME").setDetails("a.example.com")
+        );
+        var desired = sorted(
+                new RawDnsEntry().setName("a.example.com").setType("A").setDetails("127.0.0.1"),
+                new RawDnsEntry().setName("a.example.com").setType("A").setDetails("127.0.0.5"),
+                new RawDnsEntry().setName("a.example.com").setType("TXT").setDetails("same"),
+                new RawDnsEntry().setName("c.example.com").setType("A").setDetails("127.0.0.4"),
+                new RawDnsEntry().setName("d.example.com").setType("CNAME").setDetails("a.example.com")
+        );
+
+        var changeSet = DnsChangeSet.compute(current, desired);
+
+        Assert.assertEquals(2, changeSet.getRemoved().size());
+        Assert.assertEquals("127.0.0.2", changeSet.getRemoved().get(0).getDetails());
+        Assert.assertEquals("127.0.0.3", changeSet.getRemoved().get(1).getDetails());
+        Assert.assertEquals(2, changeSet.getAdded().size());
+        Assert.assertEquals("127.0.0.5", changeSet.getAdded().get(0).getDetails());
+        Assert.assertEquals("127.0.0.4", changeSet.getAdded().get(1).getDetails());
+
+        var desiredEntriesByNameType = changeSet.getDesiredEntriesByNameType();
+        Assert.assertEquals(Arrays.asList(
+                new Tuple2<>("a.example.com", "A"),
+                new Tuple2<>("b.example.com", "A"),
+                new Tuple2<>("c.example.com", "A")
+        ), List.copyOf(desiredEntriesByNameType.keySet()));
+        Assert.assertEquals(2, desiredEntriesByNameType.get(new Tuple2<>("a.example.com", "A")).size());
+        Assert.assertTrue(desiredEntriesByNameType.get(new Tuple2<>("b.example.com", "A")).isEmpty());
+        Assert.assertEquals("127.0.0.4", desiredEntriesByNameType.get(new Tuple2<>("c.example.com", "A")).get(0).getDetails());
+    }
+
+    @Test
+    public void testCompute_noChange() {
+        var records = sorted(
+                new RawDnsEntry().setName("a.example.com").setType("A").setDetails("127.0.0.1"),
+                new RawDnsEntry().setName("a.example.com").setType("TXT").setDetails("same")
+        );
+
+        Assert.assertTrue(DnsChangeSet.compute(records, records).isEmpty());
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.commands.model.RawDnsEntry;
+import com.foilen.clouds.manager.services.model.ConflictResolution;
+import com.foilen.clouds.manager.services.model.DnsConfig;
+import com.foilen.clouds.manager.services.model.DnsEntryConfig;
+import com.foilen.smalltools.test.asserts.AssertTools;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+public class DnsPlannerTest {
+
+    @Test
+    public void testPlan_expansionAndStartWithDomains() {
+
+        List<RawDnsEntry> initial = Arrays.asList(
+                new RawDnsEntry().set_id("1").setName("a.example.com").setType("A").setDetails("127.0.0.1").setTtl(300),
+                new RawDnsEntry().set_id("2").setName("b.example.com").setType("A").setDetails("127.0.0.2").setTtl(300),
+                new RawDnsEntry().set_id("3").setName("asuid.example.com").setType("TXT").setDetails("OLD").setTtl(3600)
+        );
+
+        DnsConfig config = new DnsConfig()
+                .setStartEmpty(true);
+        config.setStartWithDomains(Set.of("a.example.com", "asuid.example.com"));
+        config.setConfigs(Arrays.asList(
+                new DnsEntryConfig()
+                        .setConflictResolution(ConflictResolution.OVERWRITE)
+                        .setRawDnsEntries(Arrays.asList(
+                                new RawDnsEntry().setName("other.com").setType("A").setDetails("127.0.0.3")
+                        ))
+        ));
+
+        var actual = new DnsPlanner().plan("example.com", initial, config,
+                configEntries -> Arrays.asList(
+                        new RawDnsEntry().setName("asuid.example.com").setType("TXT").setDetails("NEW").setTtl(3600),
+                        new RawDnsEntry().setName("a.example.com").setType("A").setDetails("127.0.0.1").setTtl(300).set_id("1")
+                )
+        );
+
+        List<RawDnsEntry> expected = Arrays.asList(
+                new RawDnsEntry().set_id("1").setName("a.example.com").setType("A").setDetails("127.0.0.1").setTtl(300),
+                new RawDnsEntry().setName("asuid.example.com").setType("TXT").setDetails("NEW").setTtl(3600)
+        );
+        AssertTools.assertJsonComparison(expected, actual);
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.commands.model.RawDnsEntry;
+import com.foilen.clouds.manager.services.model.AzureResourceGroup;
+import com.foilen.clouds.manager.services.model.DigitalOceanDnsZone;
+import com.foilen.clouds.manager.services.model.DnsConfig;
+import com.foilen.clouds.manager.services.model.DnsEntryConfig;
+import com.foilen.clouds.manager.services.model.manageconfig.DigitalOceanDnsZoneManageConfiguration;
+import com.foilen.clouds.manager.services.model.manageconfig.ManageConfiguration;
+import com.foilen.smalltools.tools.JsonTools;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+public class ManageExportWriterTest {
+
+    @Test
+    public void testWriteArray() throws Exception {
+
+        var resourceGroup = new AzureResourceGroup();
+        resourceGroup.setId("/subscriptions/1/resourceGroups/rg1");
+        resourceGroup.setName("rg1");
+        resourceGroup.setRegionId("canadaeast");
+
+        var dnsZone = new DigitalOceanDnsZone();
+        dnsZone.setName("example.com");
+
+        var out = new ByteArrayOutputStream();
+        try (var writer = new ManageExportWriter(out)) {
+            writer.writeArray("azureResourceGroups", List.of(resourceGroup));
+            writer.writeArray("digitalOceanDnsZones", List.of(new DigitalOceanDnsZoneManageConfiguration()
+                    .setResource(dnsZone)
+                    .setConfig(new DnsConfig()
+                            .setStartEmpty(true)
+                            .setConfigs(Collections.singletonList(new DnsEntryConfig()
+                                    .setRawDnsEntries(List.of(new RawDnsEntry().setName("www.example.com").setType("A").setDetails("127.0.0.1")))
+                            ))
+                    )
+            ));
+        }
+        var json = out.toString(StandardCharsets.UTF_8);
+
+        Assert.assertFalse(json, json.contains("\"id\""));
+        Assert.assertFalse(json, json.contains("\"provider\""));
+        Assert.assertFalse(json, json.contains("null"));
+
+        var config = JsonTools.readFromString(json, ManageConfiguration.class);
+        Assert.assertEquals("rg1", config.getAzureResourceGroups().get(0).getName());
+        Assert.assertEquals("canadaeast", config.getAzureResourceGroups().get(0).getRegionId());
+        Assert.assertEquals("example.com", config.getDigitalOceanDnsZones().get(0).getResource().getName());
+        Assert.assertEquals("www.example.com", config.getDigitalOceanDnsZones().get(0).getConfig().getConfigs().get(0).getRawDnsEntries().get(0).getName());
+    }
+
+}
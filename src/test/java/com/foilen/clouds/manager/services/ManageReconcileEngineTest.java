@@ -0,0 +1,103 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.services.model.CloudProvider;
+import com.foilen.clouds.manager.services.model.manageconfig.ManageContext;
+import com.foilen.smalltools.tools.ThreadTools;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ManageReconcileEngineTest {
+
+    private final ManageReconcileEngine engine = new ManageReconcileEngine(Map.of(
+            CloudProvider.AZURE, 4,
+            CloudProvider.DIGITAL_OCEAN, 2
+    ));
+
+    @Test
+    public void testRun_dependenciesFirst() {
+
+        List<String> executed = new CopyOnWriteArrayList<>();
+        List<ManageReconcileEngine.Node> nodes = Arrays.asList(
+                new ManageReconcileEngine.Node("webapp", CloudProvider.AZURE, context -> executed.add("webapp"))
+                        .dependsOn(Arrays.asList("rg", "plan")),
+                new ManageReconcileEngine.Node("plan", CloudProvider.AZURE, context -> {
+                    ThreadTools.sleep(100);
+                    executed.add("plan");
+                }).dependsOn(Collections.singletonList("rg")),
+                new ManageReconcileEngine.Node("rg", CloudProvider.AZURE, context -> {
+                    ThreadTools.sleep(100);
+                    executed.add("rg");
+                })
+        );
+
+        engine.run(nodes);
+
+        Assert.assertEquals(Arrays.asList("rg", "plan", "webapp"), executed);
+    }
+
+    @Test
+    public void testRun_modificationsInNodesOrder() {
+
+        List<ManageReconcileEngine.Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 10; ++i) {
+            var name = "zone" + i;
+            var sleep = (10 - i) * 20;
+            nodes.add(new ManageReconcileEngine.Node(name, i % 2 == 0 ? CloudProvider.AZURE : CloudProvider.DIGITAL_OCEAN, context -> {
+                ThreadTools.sleep(sleep);
+                context.addModificationAdd("DNS Zone", name);
+            }));
+        }
+
+        var globalContext = new ManageContext();
+        engine.run(nodes).values().forEach(globalContext::merge);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 10; ++i) {
+            expected.add("DNS Zone (zone" + i + ") ADD ");
+        }
+        Assert.assertEquals(expected, globalContext.getModifications());
+    }
+
+    @Test
+    public void testRun_failureSkipsDependents() {
+
+        var dependentExecuted = new AtomicBoolean();
+        var independentExecuted = new AtomicBoolean();
+        List<ManageReconcileEngine.Node> nodes = Arrays.asList(
+                new ManageReconcileEngine.Node("rg", CloudProvider.AZURE, context -> {
+                    throw new IllegalStateException("rg failed");
+                }),
+                new ManageReconcileEngine.Node("plan", CloudProvider.AZURE, context -> dependentExecuted.set(true))
+                        .dependsOn(Collections.singletonList("rg")),
+                new ManageReconcileEngine.Node("zone", CloudProvider.DIGITAL_OCEAN, context -> independentExecuted.set(true))
+        );
+
+        try {
+            engine.run(nodes);
+            Assert.fail("Expecting an exception");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("rg failed", e.getMessage());
+        }
+
+        Assert.assertFalse(dependentExecuted.get());
+        Assert.assertTrue(independentExecuted.get());
+    }
+
+}
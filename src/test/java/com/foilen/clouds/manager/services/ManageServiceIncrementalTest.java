@@ -0,0 +1,159 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.services.model.CloudProvider;
+import com.foilen.clouds.manager.services.model.json.ManageState;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ManageServiceIncrementalTest {
+
+    private final ManageService manageService = new ManageService();
+    private final ManageReconcileEngine engine = new ManageReconcileEngine(Map.of(CloudProvider.AZURE, 2));
+
+    private final ManageState state = new ManageState();
+    private final Map<String, String> desiredFingerprintById = new ConcurrentHashMap<>();
+    private final Map<String, String> remoteFingerprintById = new ConcurrentHashMap<>();
+    private final List<String> executed = new CopyOnWriteArrayList<>();
+
+    private String failingId;
+    private String needsNextStageId;
+
+    private ManageReconcileEngine.Node node(String id, String... dependsOn) {
+        return new ManageReconcileEngine.Node(id, CloudProvider.AZURE, context -> {
+            executed.add(id);
+            if (id.equals(failingId)) {
+                throw new RuntimeException("Failed");
+            }
+            if (id.equals(needsNextStageId)) {
+                context.needsNextStage("Not ready");
+                return;
+            }
+            context.addModificationUpdate("Resource", id, "value", "old", "new");
+        })
+                .dependsOn(Arrays.asList(dependsOn))
+                .fingerprints(desiredFingerprintById.get(id), () -> "remote-" + id, remoteFingerprintById::get);
+    }
+
+    private int run(boolean full) {
+        executed.clear();
+        var nodes = Arrays.asList(
+                node("rg"),
+                node("plan", "rg"),
+                node("webapp", "rg", "plan")
+        );
+        var skippedCount = new AtomicInteger();
+        try {
+            engine.run(manageService.incremental(nodes, state, full, skippedCount));
+        } catch (RuntimeException e) {
+            // Tested with the executed nodes and the state
+        }
+        return skippedCount.get();
+    }
+
+    @Before
+    public void init() {
+        for (var id : Arrays.asList("rg", "plan", "webapp")) {
+            desiredFingerprintById.put(id, "desired-" + id);
+            remoteFingerprintById.put(id, "remote-" + id);
+        }
+    }
+
+    @Test
+    public void testSkip_unchanged() {
+        Assert.assertEquals(0, run(false));
+        Assert.assertEquals(3, executed.size());
+        Assert.assertEquals(3, state.getResources().size());
+
+        Assert.assertEquals(3, run(false));
+        Assert.assertEquals(Collections.emptyList(), executed);
+    }
+
+    @Test
+    public void testSkip_desiredChanged() {
+        run(false);
+
+        desiredFingerprintById.put("webapp", "desired-webapp-2");
+        Assert.assertEquals(2, run(false));
+        Assert.assertEquals(Collections.singletonList("webapp"), executed);
+    }
+
+    @Test
+    public void testSkip_remoteChanged() {
+        run(false);
+
+        remoteFingerprintById.put("webapp", "remote-webapp-2");
+        Assert.assertEquals(2, run(false));
+        Assert.assertEquals(Collections.singletonList("webapp"), executed);
+
+        // Kept the new remote fingerprint
+        Assert.assertEquals(3, run(false));
+    }
+
+    @Test
+    public void testSkip_dependencyChanged() {
+        run(false);
+
+        desiredFingerprintById.put("rg", "desired-rg-2");
+        Assert.assertEquals(0, run(false));
+        Assert.assertEquals(Arrays.asList("rg", "plan", "webapp"), executed);
+    }
+
+    @Test
+    public void testSkip_full() {
+        run(false);
+
+        Assert.assertEquals(0, run(true));
+        Assert.assertEquals(Arrays.asList("rg", "plan", "webapp"), executed);
+    }
+
+    @Test
+    public void testState_forgottenOnFailure() {
+        run(false);
+
+        desiredFingerprintById.put("webapp", "desired-webapp-2");
+        failingId = "webapp";
+        run(false);
+        Assert.assertFalse(state.getResources().containsKey("webapp"));
+
+        // Not skipped even if the desired configuration goes back to what it was
+        desiredFingerprintById.put("webapp", "desired-webapp");
+        failingId = null;
+        Assert.assertEquals(2, run(false));
+        Assert.assertEquals(Collections.singletonList("webapp"), executed);
+    }
+
+    @Test
+    public void testState_forgottenOnNeedsNextStage() {
+        run(false);
+
+        desiredFingerprintById.put("plan", "desired-plan-2");
+        needsNextStageId = "plan";
+        run(false);
+        Assert.assertFalse(state.getResources().containsKey("plan"));
+        Assert.assertEquals(Arrays.asList("plan", "webapp"), executed);
+
+        needsNextStageId = null;
+        desiredFingerprintById.put("plan", "desired-plan");
+        Assert.assertEquals(1, run(false));
+        Assert.assertEquals(Arrays.asList("plan", "webapp"), executed);
+    }
+
+}
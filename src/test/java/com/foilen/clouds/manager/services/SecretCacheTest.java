@@ -0,0 +1,133 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services;
+
+import com.foilen.clouds.manager.services.model.InMemorySecretStore;
+import com.google.common.base.Ticker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SecretCacheTest {
+
+    private static class ManualTicker extends Ticker {
+
+        private long nanos;
+
+        public void advance(long time, TimeUnit unit) {
+            nanos += unit.toNanos(time);
+        }
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+    }
+
+    private static InMemorySecretStore secretStore(String name) {
+        var secretStore = new InMemorySecretStore();
+        secretStore.setName(name);
+        return secretStore;
+    }
+
+    @Test
+    public void testGet() {
+        var ticker = new ManualTicker();
+        var secretCache = new SecretCache(100, 60000, ticker);
+        var secretStore = secretStore("store");
+        var loadCount = new AtomicInteger();
+
+        Assert.assertEquals("value", secretCache.get(secretStore, "a", () -> {
+            loadCount.incrementAndGet();
+            return "value";
+        }));
+        Assert.assertEquals("value", secretCache.get(secretStore, "a", () -> {
+            loadCount.incrementAndGet();
+            return "other";
+        }));
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertEquals(1, secretCache.getHitCount());
+        Assert.assertEquals(1, secretCache.getMissCount());
+
+        // Another store
+        Assert.assertEquals("other", secretCache.get(secretStore("store2"), "a", () -> "other"));
+
+        // Expired
+        ticker.advance(61, TimeUnit.SECONDS);
+        Assert.assertEquals("new", secretCache.get(secretStore, "a", () -> "new"));
+        Assert.assertEquals(3, secretCache.getMissCount());
+    }
+
+    @Test
+    public void testGet_negative() {
+        var secretCache = new SecretCache(100, 60000, new ManualTicker());
+        var secretStore = secretStore("store");
+        var loadCount = new AtomicInteger();
+
+        for (int i = 0; i < 3; ++i) {
+            Assert.assertNull(secretCache.get(secretStore, "a", () -> {
+                loadCount.incrementAndGet();
+                return null;
+            }));
+        }
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertEquals(2, secretCache.getNegativeHitCount());
+        Assert.assertEquals(0, secretCache.getHitCount());
+        Assert.assertEquals(1, secretCache.getMissCount());
+    }
+
+    @Test
+    public void testInvalidate() {
+        var secretCache = new SecretCache(100, 60000, new ManualTicker());
+        var secretStore = secretStore("store");
+        var secretStore2 = secretStore("store2");
+        secretCache.get(secretStore, "a", () -> "value");
+        secretCache.get(secretStore2, "a", () -> "value");
+
+        secretCache.invalidate(secretStore);
+
+        Assert.assertEquals("new", secretCache.get(secretStore, "a", () -> "new"));
+        Assert.assertEquals("value", secretCache.get(secretStore2, "a", () -> "new"));
+    }
+
+    @Test
+    public void testSet() {
+        var secretCache = new SecretCache(100, 60000, new ManualTicker());
+        var secretStore = secretStore("store");
+        Assert.assertNull(secretCache.get(secretStore, "a", () -> null));
+
+        var writeCount = new AtomicInteger();
+        secretCache.set(secretStore, "a", "value", writeCount::incrementAndGet);
+
+        Assert.assertEquals(1, writeCount.get());
+        Assert.assertEquals("value", secretCache.get(secretStore, "a", () -> "loaded"));
+    }
+
+    @Test
+    public void testSet_failure() {
+        var secretCache = new SecretCache(100, 60000, new ManualTicker());
+        var secretStore = secretStore("store");
+        secretCache.get(secretStore, "a", () -> "value");
+
+        try {
+            secretCache.set(secretStore, "a", "new", () -> {
+                throw new IllegalStateException("Failed");
+            });
+            Assert.fail("Expecting an exception");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("Failed", e.getMessage());
+        }
+
+        Assert.assertEquals("loaded", secretCache.get(secretStore, "a", () -> "loaded"));
+    }
+
+}
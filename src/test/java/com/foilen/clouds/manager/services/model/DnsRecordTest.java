@@ -0,0 +1,61 @@
+/*
+    Foilen Clouds Manager
+    https://github.com/foilen/foilen-clouds-manager
+    Copyright (c) 2021-2025 Foilen (https://foilen.com)
+
+    The MIT License
+    http://opensource.org/licenses/MIT
+
+ */
+package com.foilen.clouds.manager.services.model;
+
+import com.foilen.clouds.manager.commands.model.RawDnsEntry;
+import com.foilen.smalltools.test.asserts.AssertTools;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class DnsRecordTest {
+
+    @Test
+    public void testCompareTo_sameOrderAsRawDnsEntry() {
+        List<RawDnsEntry> rawDnsEntries = new ArrayList<>(Arrays.asList(
+                new RawDnsEntry().setName("b.example.com").setType("A").setDetails("127.0.0.1"),
+                new RawDnsEntry().setName("a.example.com").setType("TXT").setDetails("DEF"),
+                new RawDnsEntry().setName("a.example.com").setType("TXT").setDetails("ABC").setTtl(300),
+                new RawDnsEntry().setName("a.example.com").setType("TXT").setDetails("ABC"),
+                new RawDnsEntry().setName("a.example.com").setType("MX").setDetails("mail.example.com").setPriority(20),
+                new RawDnsEntry().setName("a.example.com").setType("MX").setDetails("mail.example.com"),
+                new RawDnsEntry().setName("a.example.com").setType("SRV").setDetails("sip.example.com").setPriority(1).setWeight(2).setPort(5061),
+                new RawDnsEntry().setName("a.example.com").setType("SRV").setDetails("sip.example.com").setPriority(1).setWeight(2).setPort(5060)
+        ));
+
+        var records = DnsRecord.fromAll(rawDnsEntries);
+        Collections.sort(records);
+        Collections.sort(rawDnsEntries);
+
+        AssertTools.assertJsonComparison(rawDnsEntries, DnsRecord.toRawDnsEntries(records));
+    }
+
+    @Test
+    public void testEquality() {
+        var record = DnsRecord.from(new RawDnsEntry().set_id("1").setName("a.example.com").setType("A").setDetails("127.0.0.1").setTtl(300));
+
+        Assert.assertEquals(record, DnsRecord.from(new RawDnsEntry().set_id("1").setName("a.example.com").setType("A").setDetails("127.0.0.1").setTtl(300)));
+        Assert.assertEquals(record.hashCode(), DnsRecord.from(new RawDnsEntry().set_id("1").setName("a.example.com").setType("A").setDetails("127.0.0.1").setTtl(300)).hashCode());
+        Assert.assertNotEquals(record, record.withId("2"));
+        Assert.assertNotEquals(record, record.withTtl(600));
+        Assert.assertSame(record, record.withTtl(300));
+
+        var distinct = Arrays.asList(record, record.withTtl(600).withTtl(300), record.withId(null)).stream()
+                .distinct()
+                .collect(Collectors.toList());
+        Assert.assertEquals(2, distinct.size());
+    }
+
+}